@@ -0,0 +1,106 @@
+package com.vroute.assignation;
+
+import com.vroute.models.Environment;
+import com.vroute.models.Vehicle;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Inserción más barata de una entrega en rutas ya construidas, para reparar
+ * planes sin lanzar la búsqueda completa.
+ *
+ * El coste de insertar en una posición es el aumento de distancia de la ruta
+ * según {@link RouteProfile} (Manhattan, incluidos los desvíos de recarga);
+ * solo se aceptan posiciones que dejan la ruta ejecutable en GLP y
+ * combustible.
+ */
+public final class CheapestInsertion {
+
+    private CheapestInsertion() {
+    }
+
+    /**
+     * Mejor posición para {@code instruction} entre todas las rutas de
+     * {@code routes}.
+     *
+     * @return La inserción de menor coste, o {@code null} si ningún camión
+     *         puede hacer la entrega completa
+     */
+    public static Insertion findBest(Environment environment, Map<Vehicle, List<DeliveryInstruction>> routes,
+            DeliveryInstruction instruction) {
+        Insertion best = null;
+        for (Map.Entry<Vehicle, List<DeliveryInstruction>> entry : routes.entrySet()) {
+            Insertion candidate = findBest(environment, entry.getKey(), entry.getValue(), instruction);
+            if (candidate != null && (best == null || candidate.getCostKm() < best.getCostKm())) {
+                best = candidate;
+            }
+        }
+        return best;
+    }
+
+    /**
+     * Mejor posición para {@code instruction} en la ruta de un camión.
+     */
+    public static Insertion findBest(Environment environment, Vehicle vehicle, List<DeliveryInstruction> route,
+            DeliveryInstruction instruction) {
+        if (instruction.getGlpAmountToDeliver() > vehicle.getGlpCapacityM3()) {
+            return null;
+        }
+        RouteProfile current = new RouteProfile(environment, vehicle, route);
+        if (!current.isFeasible()) {
+            return null;
+        }
+        double baseKm = current.getTotalDistanceKm();
+
+        Insertion best = null;
+        List<DeliveryInstruction> candidate = new ArrayList<>(route.size() + 1);
+        for (int position = 0; position <= route.size(); position++) {
+            candidate.clear();
+            candidate.addAll(route.subList(0, position));
+            candidate.add(instruction);
+            candidate.addAll(route.subList(position, route.size()));
+            RouteProfile profile = new RouteProfile(environment, vehicle, candidate);
+            if (!profile.isFeasible()) {
+                continue;
+            }
+            double cost = profile.getTotalDistanceKm() - baseKm;
+            if (best == null || cost < best.getCostKm()) {
+                best = new Insertion(vehicle, position, cost);
+            }
+        }
+        return best;
+    }
+
+    public static final class Insertion {
+        private final Vehicle vehicle;
+        private final int position;
+        private final double costKm;
+
+        private Insertion(Vehicle vehicle, int position, double costKm) {
+            this.vehicle = vehicle;
+            this.position = position;
+            this.costKm = costKm;
+        }
+
+        public Vehicle getVehicle() {
+            return vehicle;
+        }
+
+        /** Índice de la ruta en el que queda la entrega insertada. */
+        public int getPosition() {
+            return position;
+        }
+
+        /** Kilómetros que añade la inserción a la ruta. */
+        public double getCostKm() {
+            return costKm;
+        }
+
+        /** Inserta {@code instruction} en {@code route} en esta posición. */
+        public void apply(List<DeliveryInstruction> route, DeliveryInstruction instruction) {
+            route.add(position, instruction);
+        }
+    }
+}
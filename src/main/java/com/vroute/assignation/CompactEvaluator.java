@@ -0,0 +1,162 @@
+package com.vroute.assignation;
+
+import com.vroute.models.Environment;
+import com.vroute.models.Vehicle;
+
+import java.util.Arrays;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.logging.Logger;
+
+/**
+ * Misma puntuación que {@link SolutionEvaluator#evaluateSolution} calculada
+ * sobre un {@link CompactProblem}, salvo el redondeo de sumar el bonus de
+ * plazos ruta a ruta.
+ *
+ * La parte de cada ruta (bonus de plazos y distancia) se calcula sobre la
+ * ruta codificada y se guarda por identidad de la lista, que las
+ * {@link Solution}s comparten mientras un movimiento no la toca. La parte de
+ * cobertura de pedidos se guarda para el último mapa de GLP asignado, que
+ * también se comparte entre movimientos que solo recolocan entregas.
+ *
+ * Una solución con algún camión o pedido fuera del problema se evalúa
+ * entera con {@link SolutionEvaluator}; esas evaluaciones se cuentan para
+ * que el solver las informe.
+ */
+class CompactEvaluator {
+    private static final Logger logger = Logger.getLogger(CompactEvaluator.class.getName());
+    private static final int MAX_CACHED_ROUTES = 20_000;
+
+    private final CompactProblem problem;
+    private final Environment environment;
+    private final Map<List<DeliveryInstruction>, RouteTerms> routeTerms = new IdentityHashMap<>();
+    private final int[] assigned;
+
+    private Map<String, Integer> lastAssignedGlp;
+    private Coverage lastCoverage;
+    private long fullEvaluations;
+
+    CompactEvaluator(CompactProblem problem, Environment environment) {
+        this.problem = problem;
+        this.environment = environment;
+        this.assigned = new int[problem.orderCount];
+    }
+
+    double evaluate(Solution solution) {
+        double routeScore = 0.0;
+        double distance = 0.0;
+        for (Map.Entry<Vehicle, List<DeliveryInstruction>> entry : solution.getVehicleOrderAssignments().entrySet()) {
+            RouteTerms terms = terms(entry.getKey(), entry.getValue());
+            if (terms == null) {
+                // Entregas fuera del problema compacto
+                if (fullEvaluations++ == 0) {
+                    logger.fine(() -> "Route of " + entry.getKey().getId()
+                            + " is outside the compact problem; evaluating the whole solution");
+                }
+                return SolutionEvaluator.evaluateSolution(solution, environment);
+            }
+            routeScore += terms.timeBonus;
+            distance += terms.distance;
+        }
+        // Mismo orden de operaciones que SolutionEvaluator
+        Coverage coverage = coverage(solution.getAssignedGlpByOrderId());
+        return coverage.reward + routeScore - coverage.incompletePenalty
+                - distance * SolutionEvaluator.DISTANCE_PENALTY_PER_KM
+                - coverage.missingOrders * SolutionEvaluator.INCOMPLETE_ORDER_PENALTY * 2;
+    }
+
+    /** Evaluaciones que tuvieron que recurrir a {@link SolutionEvaluator}. */
+    long getFullEvaluations() {
+        return fullEvaluations;
+    }
+
+    private RouteTerms terms(Vehicle vehicle, List<DeliveryInstruction> route) {
+        RouteTerms terms = routeTerms.get(route);
+        if (terms != null && terms.vehicle == vehicle) {
+            return terms;
+        }
+        int v = problem.vehicleIndex(vehicle);
+        int[] encoded = problem.encodeRoute(route);
+        if (v == CompactProblem.UNKNOWN || encoded == null) {
+            return null;
+        }
+        terms = computeTerms(vehicle, v, encoded);
+        if (routeTerms.size() >= MAX_CACHED_ROUTES) {
+            routeTerms.clear();
+        }
+        routeTerms.put(route, terms);
+        return terms;
+    }
+
+    private RouteTerms computeTerms(Vehicle vehicle, int v, int[] route) {
+        int x = problem.vehicleX[v];
+        int y = problem.vehicleY[v];
+        double travelMinutes = 0.0;
+        double distance = 0.0;
+        double bonus = 0.0;
+        for (int i = 0; i < route.length; i += 2) {
+            int order = route[i];
+            int nextX = problem.orderX[order];
+            int nextY = problem.orderY[order];
+            double leg = Math.abs(x - nextX) + Math.abs(y - nextY);
+            distance += leg;
+            // Misma expresión que SolutionEvaluator: el truncado posterior depende del redondeo
+            travelMinutes += (leg / 60.0) * 60.0;
+            long arrival = problem.nowEpochMinute + (long) travelMinutes;
+            bonus += SolutionEvaluator.calculateStopTimeBonus(arrival, problem.orderDueEpochMinute[order]);
+            x = nextX;
+            y = nextY;
+        }
+        return new RouteTerms(vehicle, bonus, distance);
+    }
+
+    /**
+     * Recompensa por pedidos cubiertos y penalizaciones por pedidos
+     * incompletos o sin asignar.
+     */
+    private Coverage coverage(Map<String, Integer> assignedGlp) {
+        if (assignedGlp == lastAssignedGlp) {
+            return lastCoverage;
+        }
+        Arrays.fill(assigned, 0);
+        for (Map.Entry<String, Integer> entry : assignedGlp.entrySet()) {
+            int order = problem.orderIndex(entry.getKey());
+            if (order != CompactProblem.UNKNOWN) {
+                assigned[order] = entry.getValue();
+            }
+        }
+
+        Coverage coverage = new Coverage();
+        for (int o = 0; o < problem.orderCount; o++) {
+            int required = problem.orderRemaining[o];
+            int amount = assigned[o];
+            coverage.reward += SolutionEvaluator.calculateOrderReward(required, amount);
+            coverage.incompletePenalty += SolutionEvaluator.calculateOrderIncompletePenalty(required, amount);
+            if (amount <= 0 && required > 0) {
+                coverage.missingOrders++;
+            }
+        }
+        lastAssignedGlp = assignedGlp;
+        lastCoverage = coverage;
+        return coverage;
+    }
+
+    private static final class Coverage {
+        private double reward;
+        private double incompletePenalty;
+        private int missingOrders;
+    }
+
+    private static final class RouteTerms {
+        private final Vehicle vehicle;
+        private final double timeBonus;
+        private final double distance;
+
+        private RouteTerms(Vehicle vehicle, double timeBonus, double distance) {
+            this.vehicle = vehicle;
+            this.timeBonus = timeBonus;
+            this.distance = distance;
+        }
+    }
+}
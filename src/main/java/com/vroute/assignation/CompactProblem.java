@@ -0,0 +1,117 @@
+package com.vroute.assignation;
+
+import com.vroute.models.Environment;
+import com.vroute.models.Order;
+import com.vroute.models.Position;
+import com.vroute.models.SimClock;
+import com.vroute.models.Vehicle;
+
+import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Vista compacta de una replanificación para el score aproximado del solver
+ * ({@link CompactEvaluator}). Camiones y pedidos reciben ids densos
+ * ({@code 0..n-1}) y sus datos se guardan en arrays primitivos paralelos: la
+ * posición de cada camión; posición, plazo (minutos desde epoch) y GLP
+ * pendiente de cada pedido. La búsqueda sigue trabajando con listas de
+ * {@link DeliveryInstruction}, que se codifican para evaluarlas.
+ *
+ * Una ruta se codifica como {@code int[]} con pares
+ * {@code (pedido, m3)} consecutivos. Se construye una vez por
+ * replanificación con {@link #build(Environment)} y no sigue los cambios
+ * posteriores del entorno.
+ */
+public final class CompactProblem {
+    /** Índice que devuelven las búsquedas de ids que no están en el problema. */
+    public static final int UNKNOWN = -1;
+
+    final long nowEpochMinute;
+
+    final int vehicleCount;
+    final int[] vehicleX;
+    final int[] vehicleY;
+    private final Map<Vehicle, Integer> vehicleIndex;
+
+    final int orderCount;
+    final int[] orderX;
+    final int[] orderY;
+    final long[] orderDueEpochMinute;
+    final int[] orderRemaining;
+    private final Map<String, Integer> orderIndex;
+
+    private CompactProblem(LocalDateTime now, List<Vehicle> vehicleList, List<Order> orderList) {
+        this.nowEpochMinute = SimClock.toEpochMinute(now);
+
+        this.vehicleCount = vehicleList.size();
+        this.vehicleX = new int[vehicleCount];
+        this.vehicleY = new int[vehicleCount];
+        this.vehicleIndex = new IdentityHashMap<>(vehicleCount * 2);
+        for (int v = 0; v < vehicleCount; v++) {
+            Vehicle vehicle = vehicleList.get(v);
+            Position position = vehicle.getCurrentPosition();
+            vehicleX[v] = position.getX();
+            vehicleY[v] = position.getY();
+            vehicleIndex.put(vehicle, v);
+        }
+
+        this.orderCount = orderList.size();
+        this.orderX = new int[orderCount];
+        this.orderY = new int[orderCount];
+        this.orderDueEpochMinute = new long[orderCount];
+        this.orderRemaining = new int[orderCount];
+        this.orderIndex = new HashMap<>(orderCount * 2);
+        for (int o = 0; o < orderCount; o++) {
+            Order order = orderList.get(o);
+            orderX[o] = order.getPosition().getX();
+            orderY[o] = order.getPosition().getY();
+            orderDueEpochMinute[o] = SimClock.toEpochMinute(order.getDueTime());
+            orderRemaining[o] = order.getRemainingGlpM3();
+            orderIndex.put(order.getId(), o);
+        }
+    }
+
+    /**
+     * Camiones disponibles y pedidos pendientes de {@code environment} en el
+     * instante actual.
+     */
+    public static CompactProblem build(Environment environment) {
+        return new CompactProblem(environment.getCurrentTime(), environment.getAvailableVehicles(),
+                environment.getPendingOrders());
+    }
+
+    /** Id denso del camión, o {@link #UNKNOWN}. */
+    public int vehicleIndex(Vehicle vehicle) {
+        Integer index = vehicleIndex.get(vehicle);
+        return index != null ? index : UNKNOWN;
+    }
+
+    /** Id denso del pedido, o {@link #UNKNOWN}. */
+    public int orderIndex(String orderId) {
+        Integer index = orderIndex.get(orderId);
+        return index != null ? index : UNKNOWN;
+    }
+
+    /**
+     * Codifica una ruta como pares {@code (pedido, m3)}.
+     *
+     * @return La ruta codificada, o {@code null} si alguna entrega es de un
+     *         pedido que no está en el problema
+     */
+    public int[] encodeRoute(List<DeliveryInstruction> route) {
+        int[] encoded = new int[route.size() * 2];
+        for (int i = 0; i < route.size(); i++) {
+            DeliveryInstruction instruction = route.get(i);
+            int order = orderIndex(instruction.getOrderId());
+            if (order == UNKNOWN) {
+                return null;
+            }
+            encoded[2 * i] = order;
+            encoded[2 * i + 1] = instruction.getGlpAmountToDeliver();
+        }
+        return encoded;
+    }
+}
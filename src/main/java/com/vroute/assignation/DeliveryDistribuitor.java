@@ -11,15 +11,22 @@ import java.util.Comparator;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
-import java.util.Random;
+import java.util.SplittableRandom;
 
 public class DeliveryDistribuitor {
+    // Camiones más cercanos entre los que se reparte cada orden
+    private static final int NEARBY_VEHICLES = 6;
 
     private final Environment environment;
-    private final Random random = new Random();
+    private final SplittableRandom random;
 
     public DeliveryDistribuitor(Environment environment) {
+        this(environment, new SplittableRandom());
+    }
+
+    public DeliveryDistribuitor(Environment environment, SplittableRandom random) {
         this.environment = environment;
+        this.random = random;
     }
 
     public Solution createInitialRandomAssignments() {
@@ -51,6 +58,9 @@ public class DeliveryDistribuitor {
         // Sort orders by due time for better initial assignments
         pendingOrders.sort(Comparator.comparing(Order::getDueTime, Comparator.nullsLast(Comparator.naturalOrder())));
 
+        // GLP ya comprometido por camión en esta asignación
+        Map<Vehicle, Integer> committedGlp = new HashMap<>();
+
         // Assign each order
         for (Order order : pendingOrders) {
             int remainingGlpToAssign = order.getRemainingGlpM3();
@@ -60,44 +70,19 @@ public class DeliveryDistribuitor {
                 continue;
             }
 
-            // Create a probability distribution for vehicles based on proximity
+            // Split the order among the nearest vehicles with as few fragments as possible
             List<Vehicle> sortedVehicles = getVehiclesSortedByProximity(availableVehicles, order);
+            List<Vehicle> candidates = sortedVehicles.subList(0, Math.min(NEARBY_VEHICLES, sortedVehicles.size()));
 
-            // Assign splits until the order is fully assigned
-            while (remainingGlpToAssign > 0) {
-                // Select a vehicle based on proximity (with some randomness)
-                Vehicle selectedVehicle = selectVehicleWithBias(sortedVehicles);
-
-                // Determine a split amount
-                int splitAmount = Math.min(remainingGlpToAssign, 5);
-
-                // Create and add the delivery instruction
-                DeliveryInstruction instruction = new DeliveryInstruction(order.clone(), splitAmount);
-                assignments.get(selectedVehicle).add(instruction);
-
-                // Update remaining GLP to assign
-                remainingGlpToAssign -= splitAmount;
+            for (GlpSplitPlanner.Piece piece : GlpSplitPlanner.split(remainingGlpToAssign, candidates, committedGlp)) {
+                DeliveryInstruction instruction = new DeliveryInstruction(order.clone(), piece.getAmount());
+                assignments.get(piece.getVehicle()).add(instruction);
             }
         }
 
         return new Solution(assignments);
     }
 
-    /**
-     * Select a vehicle with bias towards those at the beginning of the list
-     * (which are assumed to be closer to the order)
-     */
-    private Vehicle selectVehicleWithBias(List<Vehicle> sortedVehicles) {
-        if (sortedVehicles.isEmpty()) {
-            throw new IllegalArgumentException("No vehicles available for selection");
-        }
-
-        // Use a simple exponential bias toward the front of the list
-        double random = Math.pow(this.random.nextDouble(), 2); // Square to bias toward 0
-        int index = (int) (random * sortedVehicles.size());
-        return sortedVehicles.get(Math.min(index, sortedVehicles.size() - 1));
-    }
-
     /**
      * Get vehicles sorted by proximity to order
      */
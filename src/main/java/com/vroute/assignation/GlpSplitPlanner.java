@@ -0,0 +1,148 @@
+package com.vroute.assignation;
+
+import com.vroute.models.Vehicle;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Reparte el volumen de una orden entre camiones de distinta capacidad
+ * (TA/TB/TC/TD) usando el menor número de fragmentos posible.
+ *
+ * Primero se usa el GLP que cada camión todavía lleva a bordo (su
+ * {@code currentGlpM3} menos lo ya comprometido), de modo que esas entregas
+ * no necesiten recarga; lo que falte se reparte por capacidad de tanque, que
+ * corresponde a un viaje con recarga. En cada nivel, si un camión puede
+ * llevar todo lo que queda se elige el de menor presupuesto suficiente
+ * (best-fit); si no, se toma el de mayor presupuesto y se repite. Con
+ * presupuestos fijos esto minimiza el número de fragmentos.
+ *
+ * El criterio es solo el número de fragmentos: en el segundo nivel la carga
+ * ya comprometida de un camión únicamente desempata entre camiones de igual
+ * capacidad, así que los viajes con recarga se acumulan en los camiones
+ * grandes. Repartirlos según la cola de cada camión no tiene en cuenta la
+ * distancia y empeora los planes cuando ninguna búsqueda lo corrige después,
+ * como al completar la solución de {@link ZoneDecompositionAssignator}; el
+ * equilibrio de carga queda para los movimientos del solver.
+ */
+final class GlpSplitPlanner {
+
+    private GlpSplitPlanner() {
+    }
+
+    static final class Piece {
+        private final Vehicle vehicle;
+        private final int amount;
+
+        Piece(Vehicle vehicle, int amount) {
+            this.vehicle = vehicle;
+            this.amount = amount;
+        }
+
+        Vehicle getVehicle() {
+            return vehicle;
+        }
+
+        int getAmount() {
+            return amount;
+        }
+    }
+
+    /**
+     * @param volume        GLP a repartir
+     * @param candidates    Camiones candidatos, en orden de preferencia (p.ej.
+     *                      por cercanía); desempata entre presupuestos iguales
+     * @param committedGlp  GLP ya comprometido por camión; se actualiza con los
+     *                      fragmentos devueltos
+     * @return Los fragmentos; su suma es {@code volume} salvo que no haya
+     *         candidatos
+     */
+    static List<Piece> split(int volume, List<Vehicle> candidates, Map<Vehicle, Integer> committedGlp) {
+        List<Piece> pieces = new ArrayList<>();
+        if (volume <= 0 || candidates.isEmpty()) {
+            return pieces;
+        }
+
+        int remaining = volume;
+
+        // Nivel 1: GLP a bordo, cada camión una vez
+        Set<Vehicle> used = new HashSet<>();
+        while (remaining > 0) {
+            Vehicle chosen = null;
+            int chosenBudget = 0;
+            for (Vehicle vehicle : candidates) {
+                if (used.contains(vehicle)) {
+                    continue;
+                }
+                int budget = Math.min(vehicle.getGlpCapacityM3(),
+                        vehicle.getCurrentGlpM3() - committedGlp.getOrDefault(vehicle, 0));
+                if (budget > 0 && isBetter(budget, chosenBudget, remaining)) {
+                    chosen = vehicle;
+                    chosenBudget = budget;
+                }
+            }
+            if (chosen == null) {
+                break;
+            }
+            remaining -= take(pieces, chosen, Math.min(chosenBudget, remaining), committedGlp);
+            used.add(chosen);
+        }
+
+        // Nivel 2: viajes con recarga, por capacidad de tanque. Entre camiones de
+        // igual capacidad se prefiere el menos comprometido.
+        used.clear();
+        while (remaining > 0) {
+            Vehicle chosen = null;
+            int chosenBudget = 0;
+            for (Vehicle vehicle : candidates) {
+                if (used.contains(vehicle)) {
+                    continue;
+                }
+                int budget = vehicle.getGlpCapacityM3();
+                if (budget <= 0) {
+                    continue;
+                }
+                if (chosen == null || isBetter(budget, chosenBudget, remaining)
+                        || (budget == chosenBudget
+                                && committedGlp.getOrDefault(vehicle, 0) < committedGlp.getOrDefault(chosen, 0))) {
+                    chosen = vehicle;
+                    chosenBudget = budget;
+                }
+            }
+            if (chosen == null) {
+                if (used.isEmpty()) {
+                    break;
+                }
+                // Todos los candidatos ya llevan un fragmento: otra vuelta
+                used.clear();
+                continue;
+            }
+            remaining -= take(pieces, chosen, Math.min(chosenBudget, remaining), committedGlp);
+            used.add(chosen);
+        }
+
+        return pieces;
+    }
+
+    /**
+     * Best-fit si el presupuesto cubre lo que queda; si ninguno lo cubre, el
+     * mayor presupuesto.
+     */
+    private static boolean isBetter(int budget, int currentBest, int remaining) {
+        boolean fits = budget >= remaining;
+        boolean bestFits = currentBest >= remaining;
+        if (fits != bestFits) {
+            return fits;
+        }
+        return fits ? budget < currentBest : budget > currentBest;
+    }
+
+    private static int take(List<Piece> pieces, Vehicle vehicle, int amount, Map<Vehicle, Integer> committedGlp) {
+        pieces.add(new Piece(vehicle, amount));
+        committedGlp.merge(vehicle, amount, Integer::sum);
+        return amount;
+    }
+}
@@ -4,43 +4,72 @@ import com.vroute.models.Environment;
 import com.vroute.models.Vehicle;
 import com.vroute.models.Order;
 
+import java.util.ArrayList;
+import java.util.Comparator;
 import java.util.HashMap;
 import java.util.LinkedList;
 import java.util.List;
-import java.util.Random;
+import java.util.SplittableRandom;
+import java.util.logging.Logger;
 
 public class MetaheuristicAssignator implements Assignator {
 
-    private static final int DEFAULT_MAX_ITERATIONS = 1500;
-    private static final int DEFAULT_TABU_LIST_SIZE = 50;
-    private static final int DEFAULT_NUM_NEIGHBORS = 50;
+    private static final Logger logger = Logger.getLogger(MetaheuristicAssignator.class.getName());
+
     private static final int DIVERSIFICATION_FACTOR = 4;
     private static final int REPORT_INTERVAL = 100;
-    private static final int DETAILED_REPORT_INTERVAL = 250;
-    private static final double TEMPERATURE_INITIAL = 100.0;
-    private static final double TEMPERATURE_DECAY = 0.995;
     private static final double MINIMUM_SOLUTION_IMPROVEMENT = 0.001;
+    private static final int TRANSPOSITION_TABLE_SIZE = 1 << 16;
 
     private final DeliveryDistribuitor deliveryDistribuitor;
     private final SolutionGenerator solutionGenerator;
     private final int maxIterations;
     private final int tabuListSize;
-    private final Random random = new Random();
+    private final int neighborsPerIteration;
+    private final double initialTemperature;
+    private final double temperatureDecay;
+    // Vecinos por iteración que pasan del score aproximado a la simulación del plan
+    private final int exactTopK;
+    // Semilla de esta instancia; con la misma semilla y el mismo entorno la
+    // búsqueda se repite exactamente
+    private final long seed;
+    private final SplittableRandom random;
     private Environment environment;
     private double temperature;
+    // Evaluadores de la búsqueda en curso, creados en cada solve
+    private PlanSimulationEvaluator exactEvaluator;
+    private RouteFeasibility feasibility;
+    private CompactEvaluator surrogate;
+    private SolverProgressListener progressListener = new SampledProgressSink(REPORT_INTERVAL);
 
     public MetaheuristicAssignator(Environment environment) {
-        this.deliveryDistribuitor = new DeliveryDistribuitor(environment);
-        this.solutionGenerator = new SolutionGenerator(environment);
-        this.maxIterations = DEFAULT_MAX_ITERATIONS;
-        this.tabuListSize = DEFAULT_TABU_LIST_SIZE;
+        this(environment, new SplittableRandom().nextLong());
+    }
+
+    public MetaheuristicAssignator(Environment environment, long seed) {
+        this(environment, seed, SolverParameters.defaults());
+    }
+
+    public MetaheuristicAssignator(Environment environment, long seed, SolverParameters parameters) {
+        this.seed = seed;
+        this.random = new SplittableRandom(seed);
+        // Cada componente tiene su propio flujo derivado de la semilla
+        this.deliveryDistribuitor = new DeliveryDistribuitor(environment, random.split());
+        this.solutionGenerator = new SolutionGenerator(environment, random.split());
+        this.maxIterations = parameters.getMaxIterations();
+        this.tabuListSize = parameters.getTabuListSize();
+        this.neighborsPerIteration = parameters.getNeighborsPerIteration();
+        this.initialTemperature = parameters.getInitialTemperature();
+        this.temperatureDecay = parameters.getTemperatureDecay();
+        this.exactTopK = parameters.getExactTopK();
         this.environment = environment;
     }
 
     @Override
     public Solution solve(Environment env) {
         this.environment = env;
-        this.temperature = TEMPERATURE_INITIAL;
+        this.temperature = initialTemperature;
+        long startNanos = System.nanoTime();
 
         // Check if there are pending orders
         List<Order> pendingOrders = environment.getPendingOrders();
@@ -60,12 +89,17 @@ public class MetaheuristicAssignator implements Assignator {
         Solution currentSolution = deliveryDistribuitor.createInitialRandomAssignments();
         currentSolution = solutionGenerator.ensureFullOrderAssignment(currentSolution);
 
+        // Los vecinos se ordenan con SolutionEvaluator (rápido) y solo los mejores
+        // se puntúan simulando sus planes; el SA y el tabú trabajan con ese score
+        exactEvaluator = exactTopK > 0 ? new PlanSimulationEvaluator(environment) : null;
+        // Descarta en O(1) los movimientos que exceden la capacidad o el combustible
+        feasibility = new RouteFeasibility(environment);
+        // Pedidos y camiones en arrays primitivos para el score aproximado
+        surrogate = new CompactEvaluator(CompactProblem.build(environment), environment);
+
         // Evaluar y mostrar la solución inicial
-        double initialScore = SolutionEvaluator.evaluateSolution(currentSolution, environment);
-        System.out.println("Initial solution score: " + initialScore);
-        System.out.println("Initial distance: " + currentSolution.getTotalDistance());
-        System.out.println("Detailed evaluation of initial solution:");
-        System.out.println(SolutionEvaluator.getDetailedEvaluation(currentSolution, environment));
+        double initialScore = exactScore(currentSolution);
+        progressListener.onStart(seed, pendingOrders.size(), availableVehicles.size(), initialScore);
 
         Solution bestSolution = currentSolution;
 
@@ -79,10 +113,19 @@ public class MetaheuristicAssignator implements Assignator {
 
         LinkedList<TabuMove> tabuList = new LinkedList<>();
 
+        // Soluciones ya visitadas (por hash Zobrist) con su score
+        TranspositionTable visited = new TranspositionTable(TRANSPOSITION_TABLE_SIZE);
+        visited.put(currentSolution.getHash(), initialScore);
+        long neighborsGenerated = 0;
+        long duplicateNeighbors = 0;
+        int acceptedIterations = 0;
+
         int iterationsWithoutImprovement = 0;
         int maxIterationsWithoutImprovement = maxIterations / DIVERSIFICATION_FACTOR;
 
         double previousBestScore = initialScore;
+        double currentScore = initialScore;
+        double bestScore = initialScore;
         int bestSolutionIteration = 0;
 
         for (int i = 0; i < maxIterations; i++) {
@@ -90,61 +133,82 @@ public class MetaheuristicAssignator implements Assignator {
             double bestNeighborScore = Double.NEGATIVE_INFINITY;
             TabuMove bestMove = null;
 
-            for (int j = 0; j < DEFAULT_NUM_NEIGHBORS; j++) {
+            List<Candidate> candidates = new ArrayList<>(neighborsPerIteration);
+            for (int j = 0; j < neighborsPerIteration; j++) {
                 TabuMove move = solutionGenerator.generateRandomMove(currentSolution);
+                if (!feasibility.isMoveFeasible(currentSolution, move)) {
+                    continue;
+                }
                 Solution neighborSolution = solutionGenerator.applyMove(currentSolution, move);
                 
                 // Asegurar que la solución vecina tiene todas las órdenes asignadas completamente
                 neighborSolution = solutionGenerator.ensureFullOrderAssignment(neighborSolution);
-                
-                double neighborScore = SolutionEvaluator.evaluateSolution(neighborSolution, environment);
+
+                // Descartar vecinos ya visitados sin volver a evaluarlos
+                neighborsGenerated++;
+                if (visited.contains(neighborSolution.getHash())) {
+                    duplicateNeighbors++;
+                    continue;
+                }
+
+                candidates.add(new Candidate(move, neighborSolution, approximateScore(neighborSolution)));
+            }
+
+            // Solo los top-k vecinos según el score aproximado se simulan
+            if (exactEvaluator != null) {
+                candidates.sort(Comparator.comparingDouble((Candidate c) -> c.score).reversed());
+                if (candidates.size() > exactTopK) {
+                    candidates.subList(exactTopK, candidates.size()).clear();
+                }
+                for (Candidate candidate : candidates) {
+                    candidate.score = exactEvaluator.evaluateSolution(candidate.solution);
+                }
+            }
+
+            for (Candidate candidate : candidates) {
+                double neighborScore = candidate.score;
+                visited.put(candidate.solution.getHash(), neighborScore);
 
                 // Accept worse solutions based on simulated annealing probability
                 boolean acceptWorseMove = false;
-                double currentSolutionScore = SolutionEvaluator.evaluateSolution(currentSolution, environment);
-                if (neighborScore < currentSolutionScore) {
-                    double acceptanceProbability = Math.exp((neighborScore - currentSolutionScore) / temperature);
+                if (neighborScore < currentScore) {
+                    double acceptanceProbability = Math.exp((neighborScore - currentScore) / temperature);
                     acceptWorseMove = random.nextDouble() < acceptanceProbability;
                 }
 
                 // Actualizar al mejor vecino si es mejor o se acepta un movimiento peor con SA
-                double bestSolutionScore = SolutionEvaluator.evaluateSolution(bestSolution, environment);
-                boolean isBetterThanCurrentBest = neighborScore > bestSolutionScore;
+                boolean isBetterThanCurrentBest = neighborScore > bestScore;
                 
                 if ((neighborScore > bestNeighborScore || acceptWorseMove) &&
-                        (!isTabu(tabuList, move) || isBetterThanCurrentBest)) {
-                    bestNeighbor = neighborSolution;
+                        (!isTabu(tabuList, candidate.move) || isBetterThanCurrentBest)) {
+                    bestNeighbor = candidate.solution;
                     bestNeighborScore = neighborScore;
-                    bestMove = move;
+                    bestMove = candidate.move;
                 }
             }
 
             if (bestNeighbor != null) {
+                acceptedIterations++;
                 currentSolution = bestNeighbor;
+                currentScore = bestNeighborScore;
 
                 tabuList.add(bestMove);
                 if (tabuList.size() > tabuListSize) {
                     tabuList.removeFirst();
                 }
 
-                double currentScore = SolutionEvaluator.evaluateSolution(currentSolution, environment);
-                double bestScore = SolutionEvaluator.evaluateSolution(bestSolution, environment);
-
                 // Actualizar mejor solución si el score es mejor (ahora mayor es mejor)
                 if (currentScore > bestScore) {
+                    double replacedBestScore = bestScore;
                     bestSolution = currentSolution;
+                    bestScore = currentScore;
                     bestSolutionIteration = i;
 
                     // Check if the improvement is significant
                     double improvementPercentage = (currentScore - previousBestScore) / previousBestScore;
                     if (improvementPercentage > MINIMUM_SOLUTION_IMPROVEMENT) {
                         iterationsWithoutImprovement = 0;
-                        previousBestScore = bestScore;
-                        
-                        // Log mejora significativa
-                        System.out.println("Significant improvement at iteration " + i + 
-                                          ": New best score = " + bestScore + 
-                                          ", Improvement = " + String.format("%.2f%%", improvementPercentage * 100));
+                        previousBestScore = replacedBestScore;
                     } else {
                         iterationsWithoutImprovement++;
                     }
@@ -154,49 +218,94 @@ public class MetaheuristicAssignator implements Assignator {
 
                 // Aplicar diversificación si no hay mejora por un largo tiempo
                 if (iterationsWithoutImprovement > maxIterationsWithoutImprovement) {
-                    System.out.println("Diversification applied at iteration " + i + 
-                                      " after " + iterationsWithoutImprovement + 
-                                      " iterations without significant improvement");
+                    progressListener.onDiversification(i, iterationsWithoutImprovement);
                     
                     currentSolution = solutionGenerator.diversify(currentSolution);
                     // Ensure the diversified solution has all orders fully assigned
                     currentSolution = solutionGenerator.ensureFullOrderAssignment(currentSolution);
+                    currentScore = scoreOf(currentSolution, visited);
                     
                     iterationsWithoutImprovement = 0;
-                    temperature = TEMPERATURE_INITIAL * 0.5; // Reset temperature partially to encourage exploration
-                }
-
-                // Reportes periódicos
-                if (i % REPORT_INTERVAL == 0) {
-                    System.out.printf(
-                            "Iteration %d: Current Score = %.2f, Best Score = %.2f, Best found at it.%d, Distance = %.2f, Temp = %.2f%n",
-                            i, currentScore, bestScore, bestSolutionIteration, bestSolution.getTotalDistance(), temperature);
-                }
-                
-                // Reporte detallado ocasional
-                if (i % DETAILED_REPORT_INTERVAL == 0) {
-                    System.out.println("Detailed evaluation at iteration " + i + ":");
-                    System.out.println(SolutionEvaluator.getDetailedEvaluation(bestSolution, environment));
+                    temperature = initialTemperature * 0.5; // Reset temperature partially to encourage exploration
                 }
             }
 
+            progressListener.onIteration(i, currentScore, bestScore, bestSolutionIteration,
+                    acceptedIterations / (double) (i + 1), temperature, System.nanoTime() - startNanos);
+
             // Cool down temperature for simulated annealing
-            temperature *= TEMPERATURE_DECAY;
+            temperature *= temperatureDecay;
         }
 
         // Final check to ensure all orders are delivered and assignments are valid
         bestSolution = solutionGenerator.ensureAllOrdersDelivered(bestSolution);
         bestSolution = solutionGenerator.ensureFullOrderAssignment(bestSolution);
 
-        // Evaluación final
-        System.out.println("Final solution found at iteration " + bestSolutionIteration);
-        System.out.println("Final distance: " + bestSolution.getTotalDistance());
-        System.out.println("Final evaluation:");
-        System.out.println(SolutionEvaluator.getDetailedEvaluation(bestSolution, environment));
+        progressListener.onFinish(maxIterations, bestScore, bestSolutionIteration, System.nanoTime() - startNanos,
+                neighborsGenerated, duplicateNeighbors, feasibility.getMovesRejected(),
+                exactEvaluator != null ? exactEvaluator.getRoutesSimulated() : 0);
+        if (surrogate.getFullEvaluations() > 0) {
+            // Cada una es una evaluación completa en lugar de la incremental
+            logger.warning(surrogate.getFullEvaluations() + " of " + neighborsGenerated
+                    + " evaluations fell back to SolutionEvaluator: routes outside the compact problem");
+        }
+        if (progressListener.wantsDetailedEvaluation()) {
+            progressListener.onDetailedEvaluation(SolutionEvaluator.getDetailedEvaluation(bestSolution, environment));
+        }
 
         return bestSolution;
     }
 
+    public long getSeed() {
+        return seed;
+    }
+
+    /**
+     * Reemplaza el listener de progreso; por defecto se registra una de cada
+     * {@value #REPORT_INTERVAL} iteraciones en un hilo aparte.
+     */
+    public void setProgressListener(SolverProgressListener progressListener) {
+        this.progressListener = progressListener != null ? progressListener : SolverProgressListener.NONE;
+    }
+
+    private double scoreOf(Solution solution, TranspositionTable visited) {
+        double score = visited.getScore(solution.getHash());
+        if (Double.isNaN(score)) {
+            score = exactScore(solution);
+            visited.put(solution.getHash(), score);
+        }
+        return score;
+    }
+
+    /**
+     * Score con el que trabajan el SA, el tabú y la tabla de transposición:
+     * la simulación de planes si está activa y, si no, el score aproximado,
+     * de modo que todas las soluciones se comparan en la misma escala.
+     */
+    private double exactScore(Solution solution) {
+        return exactEvaluator != null ? exactEvaluator.evaluateSolution(solution) : approximateScore(solution);
+    }
+
+    /**
+     * Score aproximado más los desvíos de recarga que el evaluador rápido no ve
+     */
+    private double approximateScore(Solution solution) {
+        return surrogate.evaluate(solution)
+                - feasibility.getDetourKm(solution) * SolutionEvaluator.DISTANCE_PENALTY_PER_KM;
+    }
+
+    private static class Candidate {
+        private final TabuMove move;
+        private final Solution solution;
+        private double score;
+
+        private Candidate(TabuMove move, Solution solution, double score) {
+            this.move = move;
+            this.solution = solution;
+            this.score = score;
+        }
+    }
+
     private boolean isTabu(LinkedList<TabuMove> tabuList, TabuMove move) {
         return tabuList.contains(move);
     }
@@ -0,0 +1,126 @@
+package com.vroute.assignation;
+
+import com.vroute.models.Environment;
+import com.vroute.models.Order;
+import com.vroute.models.Vehicle;
+import com.vroute.operation.Action;
+import com.vroute.operation.ActionType;
+import com.vroute.operation.VehiclePlan;
+import com.vroute.operation.VehiclePlanCreator;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Evaluación exacta de una solución: cada ruta se convierte en un
+ * {@link VehiclePlan} con {@link VehiclePlanCreator#createPlan}, de modo que
+ * el score incluye los desvíos para recargar GLP, las paradas de combustible,
+ * los bloqueos y las instrucciones que el plan no puede cumplir.
+ *
+ * Usa la misma escala que {@link SolutionEvaluator}. El resultado de cada ruta
+ * se guarda por (vehículo, hash de ruta): un movimiento solo cambia una o dos
+ * rutas, así que el resto se reutiliza. Una instancia sirve para un solo
+ * entorno y una sola hora de planificación.
+ */
+public class PlanSimulationEvaluator {
+    private static final int MAX_CACHED_ROUTES = 20_000;
+
+    private final Environment environment;
+    private final Map<Vehicle, Map<Long, RouteResult>> routeCache = new HashMap<>();
+    private int cachedRoutes;
+
+    private long routesSimulated;
+    private long routeCacheHits;
+
+    public PlanSimulationEvaluator(Environment environment) {
+        this.environment = environment;
+    }
+
+    public double evaluateSolution(Solution solution) {
+        Map<String, Order> pendingOrdersMap = SolutionEvaluator.getPendingOrdersMap(environment);
+        Map<String, Integer> servedGlpByOrderId = new HashMap<>();
+        double timeBonus = 0.0;
+        double distanceKm = 0.0;
+
+        for (Map.Entry<Vehicle, List<DeliveryInstruction>> entry : solution.getVehicleOrderAssignments().entrySet()) {
+            if (entry.getValue().isEmpty()) {
+                continue;
+            }
+            RouteResult route = evaluateRoute(entry.getKey(), entry.getValue());
+            timeBonus += route.timeBonus;
+            distanceKm += route.distanceKm;
+            for (Map.Entry<String, Integer> served : route.servedGlpByOrderId.entrySet()) {
+                servedGlpByOrderId.merge(served.getKey(), served.getValue(), Integer::sum);
+            }
+        }
+
+        double reward = SolutionEvaluator.calculateCompletedOrdersReward(pendingOrdersMap, servedGlpByOrderId);
+        double incompletePenalty = SolutionEvaluator.calculateIncompletePenalty(pendingOrdersMap, servedGlpByOrderId);
+        double distancePenalty = distanceKm * SolutionEvaluator.DISTANCE_PENALTY_PER_KM;
+
+        double totalScore = reward + timeBonus - incompletePenalty - distancePenalty;
+
+        Set<String> notServed = SolutionEvaluator.checkForMissingOrders(pendingOrdersMap.keySet(),
+                servedGlpByOrderId.keySet());
+        totalScore -= notServed.size() * SolutionEvaluator.INCOMPLETE_ORDER_PENALTY * 2;
+
+        return totalScore;
+    }
+
+    public long getRoutesSimulated() {
+        return routesSimulated;
+    }
+
+    public long getRouteCacheHits() {
+        return routeCacheHits;
+    }
+
+    private RouteResult evaluateRoute(Vehicle vehicle, List<DeliveryInstruction> instructions) {
+        long routeHash = SolutionHasher.hashRoute(vehicle, instructions);
+        Map<Long, RouteResult> vehicleRoutes = routeCache.computeIfAbsent(vehicle, v -> new HashMap<>());
+        RouteResult cached = vehicleRoutes.get(routeHash);
+        if (cached != null) {
+            routeCacheHits++;
+            return cached;
+        }
+
+        RouteResult result = simulateRoute(vehicle, instructions);
+        routesSimulated++;
+        if (cachedRoutes >= MAX_CACHED_ROUTES) {
+            routeCache.clear();
+            cachedRoutes = 0;
+            vehicleRoutes = routeCache.computeIfAbsent(vehicle, v -> new HashMap<>());
+        }
+        vehicleRoutes.put(routeHash, result);
+        cachedRoutes++;
+        return result;
+    }
+
+    private RouteResult simulateRoute(Vehicle vehicle, List<DeliveryInstruction> instructions) {
+        RouteResult result = new RouteResult();
+        VehiclePlan plan = VehiclePlanCreator.createPlan(environment, vehicle, instructions);
+        if (plan == null) {
+            // El plan no es ejecutable: ninguna de sus entregas cuenta como atendida
+            return result;
+        }
+
+        result.distanceKm = plan.getTotalDistanceKm();
+        for (Action action : plan.getActions()) {
+            if (action.getType() != ActionType.SERVE || action.getOrder() == null) {
+                continue;
+            }
+            result.servedGlpByOrderId.merge(action.getOrderId(), Math.abs(action.getGlpChangeM3()), Integer::sum);
+            result.timeBonus += SolutionEvaluator.calculateStopTimeBonus(action.getExpectedStartTime(),
+                    action.getOrder().getDueTime());
+        }
+        return result;
+    }
+
+    private static class RouteResult {
+        private final Map<String, Integer> servedGlpByOrderId = new HashMap<>();
+        private double timeBonus;
+        private double distanceKm;
+    }
+}
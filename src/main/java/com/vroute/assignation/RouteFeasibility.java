@@ -0,0 +1,231 @@
+package com.vroute.assignation;
+
+import com.vroute.models.Environment;
+import com.vroute.models.Position;
+import com.vroute.models.Vehicle;
+
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Comprobación de factibilidad de capacidad de GLP y de combustible para los
+ * movimientos de la búsqueda.
+ *
+ * Mantiene un {@link RouteProfile} por ruta y, con el estado del camión
+ * antes de cada parada que guarda el perfil, comprueba en O(1) solo los
+ * tramos que crea el movimiento: que la
+ * entrega quepa en el tanque del camión y que cada tramo nuevo se pueda
+ * recorrer con el combustible disponible o tras reponer en el depósito
+ * principal.
+ *
+ * Los perfiles se guardan por identidad de la lista de la ruta: las rutas de
+ * una {@link Solution} no se modifican y
+ * {@link SolutionGenerator#applyMove} comparte las que el movimiento no toca,
+ * así que obtener el perfil de una ruta ya vista también es O(1).
+ */
+public class RouteFeasibility {
+    private static final int MAX_CACHED_PROFILES = 20_000;
+
+    private final Environment environment;
+    private final Position mainDepot;
+    private final Map<List<DeliveryInstruction>, RouteProfile> profiles = new IdentityHashMap<>();
+
+    private long movesRejected;
+
+    public RouteFeasibility(Environment environment) {
+        this.environment = environment;
+        this.mainDepot = environment.getMainDepot().getPosition();
+    }
+
+    /**
+     * Kilómetros de desvío por recargas de GLP y de combustible de toda la
+     * solución; la evaluación rápida no los incluye.
+     */
+    public double getDetourKm(Solution solution) {
+        double detour = 0.0;
+        for (Map.Entry<Vehicle, List<DeliveryInstruction>> entry : solution.getVehicleOrderAssignments().entrySet()) {
+            if (!entry.getValue().isEmpty()) {
+                detour += profile(entry.getKey(), entry.getValue()).getDetourKm();
+            }
+        }
+        return detour;
+    }
+
+    /**
+     * Comprueba en O(1) si {@code move} aplicado a {@code solution} deja rutas
+     * ejecutables, suponiendo que las rutas actuales lo son.
+     */
+    public boolean isMoveFeasible(Solution solution, TabuMove move) {
+        boolean feasible = checkMove(solution, move);
+        if (!feasible) {
+            movesRejected++;
+        }
+        return feasible;
+    }
+
+    public long getMovesRejected() {
+        return movesRejected;
+    }
+
+    private boolean checkMove(Solution solution, TabuMove move) {
+        Map<Vehicle, List<DeliveryInstruction>> assignments = solution.getVehicleOrderAssignments();
+        List<DeliveryInstruction> source = assignments.get(move.getSourceVehicle());
+        int sourceIndex = move.getSourceInstructionIndex();
+        if (source == null || sourceIndex < 0 || sourceIndex >= source.size()) {
+            // applyMove devolverá la misma solución
+            return true;
+        }
+        RouteProfile sourceProfile = profile(move.getSourceVehicle(), source);
+        DeliveryInstruction moved = source.get(sourceIndex);
+        if (!sourceProfile.isFeasible()) {
+            // Sin estado fiable por parada; solo se puede comprobar la capacidad
+            return fits(move.getTargetVehicle(), moved);
+        }
+
+        switch (move.getMoveType()) {
+            case TRANSFER: {
+                Vehicle target = move.getTargetVehicle();
+                List<DeliveryInstruction> targetRoute = assignments.getOrDefault(target, List.of());
+                RouteProfile targetProfile = profile(target, targetRoute);
+                int end = targetRoute.size();
+                return fits(target, moved)
+                        && (!targetProfile.isFeasible() || canServe(targetProfile, end, moved, end))
+                        && canBridge(sourceProfile, sourceIndex, sourceIndex + 1);
+            }
+            case SWAP: {
+                Vehicle target = move.getTargetVehicle();
+                List<DeliveryInstruction> targetRoute = assignments.get(target);
+                int targetIndex = move.getTargetInstructionIndex();
+                if (targetRoute == null || targetIndex < 0 || targetIndex >= targetRoute.size()) {
+                    return true;
+                }
+                RouteProfile targetProfile = profile(target, targetRoute);
+                DeliveryInstruction other = targetRoute.get(targetIndex);
+                if (!targetProfile.isFeasible()) {
+                    return fits(target, moved) && fits(move.getSourceVehicle(), other);
+                }
+                return fits(target, moved) && fits(move.getSourceVehicle(), other)
+                        && canServe(targetProfile, targetIndex, moved, targetIndex + 1)
+                        && canServe(sourceProfile, sourceIndex, other, sourceIndex + 1);
+            }
+            case REORDER: {
+                int targetIndex = move.getTargetInstructionIndex();
+                if (targetIndex < 0 || targetIndex >= source.size() || targetIndex == sourceIndex) {
+                    return true;
+                }
+                // La parada queda entre las que en la ruta actual son las
+                // paradas at - 1 y at. Si se adelanta, el prefijo no cambia; si
+                // se atrasa, el estado del perfil antes de at es aproximado,
+                // porque el camión todavía lleva el GLP de la parada movida
+                int at = targetIndex < sourceIndex ? targetIndex : targetIndex + 1;
+                return legFromFullTank(sourceProfile.getVehicle(), moved.getCustomerPosition())
+                        && canBridge(sourceProfile, sourceIndex, sourceIndex + 1)
+                        && canServe(sourceProfile, at, moved, at);
+            }
+            default:
+                return true;
+        }
+    }
+
+    private static boolean fits(Vehicle vehicle, DeliveryInstruction instruction) {
+        return instruction.getGlpAmountToDeliver() <= vehicle.getGlpCapacityM3();
+    }
+
+    /**
+     * Si el camión, con el estado que tiene antes de la parada {@code index},
+     * puede llegar a servir {@code instruction} (recargando GLP o combustible
+     * si hace falta) y seguir después hacia la parada {@code nextIndex} del
+     * perfil, o volver al depósito principal si no quedan paradas.
+     */
+    private boolean canServe(RouteProfile profile, int index, DeliveryInstruction instruction, int nextIndex) {
+        Vehicle vehicle = profile.getVehicle();
+        Position from = profile.positionBefore(index);
+        int glp = profile.glpBefore(index);
+        double fuel = profile.fuelBefore(index);
+        Position stop = instruction.getCustomerPosition();
+
+        if (glp < instruction.getGlpAmountToDeliver()) {
+            Position depot = RouteProfile.nearestGlpDepot(environment, from);
+            if (!reachable(vehicle, from, depot, glp, fuel)) {
+                return false;
+            }
+            fuel = depot.equals(mainDepot) ? vehicle.getFuelCapacityGal()
+                    : fuelAfterReaching(vehicle, from, depot, glp, fuel);
+            from = depot;
+            glp = vehicle.getGlpCapacityM3();
+        }
+
+        if (!reachable(vehicle, from, stop, glp, fuel)) {
+            return false;
+        }
+        fuel = fuelAfterReaching(vehicle, from, stop, glp, fuel);
+        glp -= instruction.getGlpAmountToDeliver();
+        return canLeave(profile, nextIndex, stop, glp, fuel);
+    }
+
+    /**
+     * Tramo de salida desde {@code stop}: hacia la parada {@code nextIndex},
+     * o antes al depósito de GLP más cercano si lo que queda a bordo no
+     * alcanza para ella; sin más paradas, de vuelta al depósito principal.
+     */
+    private boolean canLeave(RouteProfile profile, int nextIndex, Position stop, int glp, double fuel) {
+        Vehicle vehicle = profile.getVehicle();
+        if (nextIndex >= profile.size()) {
+            return reachable(vehicle, stop, mainDepot, glp, fuel);
+        }
+        DeliveryInstruction next = profile.instructionAt(nextIndex);
+        Position to = glp < next.getGlpAmountToDeliver() ? RouteProfile.nearestGlpDepot(environment, stop)
+                : next.getCustomerPosition();
+        return reachable(vehicle, stop, to, glp, fuel);
+    }
+
+    /**
+     * Si al quitar paradas el tramo de la parada {@code fromIndex - 1} a la
+     * parada {@code toIndex} sigue siendo recorrible. Con menos entregas el
+     * camión puede ir más cargado, así que se usa el tanque de GLP lleno.
+     */
+    private boolean canBridge(RouteProfile profile, int fromIndex, int toIndex) {
+        Vehicle vehicle = profile.getVehicle();
+        Position from = profile.positionBefore(fromIndex);
+        Position to = toIndex < profile.size() ? profile.positionBefore(toIndex + 1) : mainDepot;
+        return reachable(vehicle, from, to, vehicle.getGlpCapacityM3(), profile.fuelBefore(fromIndex));
+    }
+
+    private boolean legFromFullTank(Vehicle vehicle, Position stop) {
+        return RouteProfile.fuelNeeded(vehicle, mainDepot.distanceTo(stop), vehicle.getGlpCapacityM3())
+                <= vehicle.getFuelCapacityGal();
+    }
+
+    /**
+     * Alcanzable directamente o pasando antes por el depósito principal a
+     * reponer combustible.
+     */
+    private boolean reachable(Vehicle vehicle, Position from, Position to, int glp, double fuel) {
+        if (RouteProfile.fuelNeeded(vehicle, from.distanceTo(to), glp) <= fuel) {
+            return true;
+        }
+        return RouteProfile.fuelNeeded(vehicle, from.distanceTo(mainDepot), glp) <= fuel
+                && RouteProfile.fuelNeeded(vehicle, mainDepot.distanceTo(to), glp) <= vehicle.getFuelCapacityGal();
+    }
+
+    private double fuelAfterReaching(Vehicle vehicle, Position from, Position to, int glp, double fuel) {
+        double direct = RouteProfile.fuelNeeded(vehicle, from.distanceTo(to), glp);
+        if (direct <= fuel) {
+            return fuel - direct;
+        }
+        return vehicle.getFuelCapacityGal() - RouteProfile.fuelNeeded(vehicle, mainDepot.distanceTo(to), glp);
+    }
+
+    RouteProfile profile(Vehicle vehicle, List<DeliveryInstruction> route) {
+        RouteProfile profile = profiles.get(route);
+        if (profile == null || profile.getVehicle() != vehicle) {
+            profile = new RouteProfile(environment, vehicle, route);
+            if (profiles.size() >= MAX_CACHED_PROFILES) {
+                profiles.clear();
+            }
+            profiles.put(route, profile);
+        }
+        return profile;
+    }
+}
@@ -0,0 +1,183 @@
+package com.vroute.assignation;
+
+import com.vroute.models.Constants;
+import com.vroute.models.Depot;
+import com.vroute.models.Environment;
+import com.vroute.models.Position;
+import com.vroute.models.Vehicle;
+
+import java.util.List;
+
+/**
+ * Perfil de una ruta con sumas prefijas del estado del camión tras cada
+ * parada: GLP a bordo, combustible restante, distancia acumulada (incluidos
+ * los desvíos).
+ *
+ * Sigue las mismas reglas que {@link com.vroute.operation.VehiclePlanCreator}
+ * pero con distancia Manhattan: si el GLP a bordo no alcanza para la entrega
+ * se recarga hasta llenar el tanque en el depósito más cercano, y si el
+ * combustible no alcanza para un tramo se repone antes en el depósito
+ * principal. El consumo depende de la carga, como en
+ * {@link Vehicle#calculateFuelNeeded}.
+ */
+final class RouteProfile {
+    private final Vehicle vehicle;
+    private final List<DeliveryInstruction> route;
+
+    private final int[] glpAfter;
+    private final double[] fuelAfter;
+    private final double[] distanceAfterKm;
+
+    private final double totalDistanceKm;
+    private final double directDistanceKm;
+    private final boolean feasible;
+
+    RouteProfile(Environment environment, Vehicle vehicle, List<DeliveryInstruction> route) {
+        this.vehicle = vehicle;
+        this.route = route;
+        int n = route.size();
+        this.glpAfter = new int[n];
+        this.fuelAfter = new double[n];
+        this.distanceAfterKm = new double[n];
+
+        Position mainDepot = environment.getMainDepot().getPosition();
+        Position position = vehicle.getCurrentPosition();
+        int glp = vehicle.getCurrentGlpM3();
+        double fuel = vehicle.getCurrentFuelGal();
+        double distance = 0.0;
+        double direct = 0.0;
+        boolean ok = true;
+
+        for (int i = 0; i < n && ok; i++) {
+            DeliveryInstruction instruction = route.get(i);
+            Position stop = instruction.getCustomerPosition();
+            int amount = instruction.getGlpAmountToDeliver();
+            direct += position.distanceTo(stop);
+
+            if (amount > vehicle.getGlpCapacityM3()) {
+                ok = false;
+                break;
+            }
+
+            if (glp < amount) {
+                Position depot = nearestGlpDepot(environment, position);
+                double leg = position.distanceTo(depot);
+                if (fuelNeeded(vehicle, leg, glp) > fuel) {
+                    double toMain = position.distanceTo(mainDepot);
+                    if (fuelNeeded(vehicle, toMain, glp) > fuel) {
+                        ok = false;
+                        break;
+                    }
+                    distance += toMain;
+                    position = mainDepot;
+                    fuel = vehicle.getFuelCapacityGal();
+                    leg = position.distanceTo(depot);
+                }
+                fuel -= fuelNeeded(vehicle, leg, glp);
+                distance += leg;
+                position = depot;
+                glp = vehicle.getGlpCapacityM3();
+                if (depot.equals(mainDepot)) {
+                    fuel = vehicle.getFuelCapacityGal();
+                }
+            }
+
+            double leg = position.distanceTo(stop);
+            if (fuelNeeded(vehicle, leg, glp) > fuel) {
+                double toMain = position.distanceTo(mainDepot);
+                double fromMain = mainDepot.distanceTo(stop);
+                if (fuelNeeded(vehicle, toMain, glp) > fuel
+                        || fuelNeeded(vehicle, fromMain, glp) > vehicle.getFuelCapacityGal()) {
+                    ok = false;
+                    break;
+                }
+                distance += toMain;
+                fuel = vehicle.getFuelCapacityGal();
+                leg = fromMain;
+            }
+            fuel -= fuelNeeded(vehicle, leg, glp);
+            distance += leg;
+            position = stop;
+            glp -= amount;
+
+            glpAfter[i] = glp;
+            fuelAfter[i] = fuel;
+            distanceAfterKm[i] = distance;
+        }
+
+        if (ok) {
+            // Vuelta al depósito principal al final del plan
+            double back = position.distanceTo(mainDepot);
+            if (fuelNeeded(vehicle, back, glp) > fuel) {
+                ok = false;
+            }
+            distance += back;
+            direct += back;
+        }
+
+        this.totalDistanceKm = distance;
+        this.directDistanceKm = direct;
+        this.feasible = ok;
+    }
+
+    boolean isFeasible() {
+        return feasible;
+    }
+
+    int size() {
+        return route.size();
+    }
+
+    Vehicle getVehicle() {
+        return vehicle;
+    }
+
+    /**
+     * Kilómetros extra que añaden las recargas de GLP y de combustible
+     * respecto a recorrer las paradas directamente.
+     */
+    double getDetourKm() {
+        return feasible ? Math.max(0.0, totalDistanceKm - directDistanceKm) : 0.0;
+    }
+
+    double getTotalDistanceKm() {
+        return totalDistanceKm;
+    }
+
+    DeliveryInstruction instructionAt(int index) {
+        return route.get(index);
+    }
+
+    /** Posición del camión antes de la parada {@code index}. */
+    Position positionBefore(int index) {
+        return index == 0 ? vehicle.getCurrentPosition() : route.get(index - 1).getCustomerPosition();
+    }
+
+    /** GLP a bordo antes de la parada {@code index} (sin la recarga de esa parada). */
+    int glpBefore(int index) {
+        return index == 0 ? vehicle.getCurrentGlpM3() : glpAfter[index - 1];
+    }
+
+    /** Combustible antes de la parada {@code index}. */
+    double fuelBefore(int index) {
+        return index == 0 ? vehicle.getCurrentFuelGal() : fuelAfter[index - 1];
+    }
+
+    static double fuelNeeded(Vehicle vehicle, double distanceKm, int glpM3) {
+        double combinedWeight = vehicle.getType().convertGlpM3ToTon(glpM3) + vehicle.getType().getTareWeightTon();
+        return Math.abs((distanceKm * combinedWeight) / Constants.CONSUMPTION_FACTOR);
+    }
+
+    static Position nearestGlpDepot(Environment environment, Position from) {
+        Position best = environment.getMainDepot().getPosition();
+        double bestDistance = from.distanceTo(best);
+        for (Depot depot : environment.getAuxDepots()) {
+            double distance = from.distanceTo(depot.getPosition());
+            if (distance < bestDistance) {
+                best = depot.getPosition();
+                bestDistance = distance;
+            }
+        }
+        return best;
+    }
+}
@@ -0,0 +1,157 @@
+package com.vroute.assignation;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * {@link SolverProgressListener} que registra una de cada {@code interval}
+ * iteraciones. El hilo del solver solo encola un registro con los valores
+ * primitivos ({@code offer}, sin esperar); un hilo daemon compartido los
+ * formatea y los escribe en el log. Si la cola está llena el registro se
+ * descarta y se cuenta en {@link #getDroppedSamples()}.
+ */
+public class SampledProgressSink implements SolverProgressListener {
+    private static final Logger logger = Logger.getLogger(SampledProgressSink.class.getName());
+
+    private static final int QUEUE_CAPACITY = 1024;
+    private static final BlockingQueue<Sample> queue = new ArrayBlockingQueue<>(QUEUE_CAPACITY);
+    private static Thread writer;
+
+    private final int interval;
+    private volatile long droppedSamples;
+
+    public SampledProgressSink(int interval) {
+        this.interval = Math.max(1, interval);
+        startWriter();
+    }
+
+    @Override
+    public void onStart(long seed, int pendingOrders, int availableVehicles, double initialScore) {
+        enqueue(new Sample(Kind.START, seed, pendingOrders, availableVehicles, initialScore, 0, 0, 0, 0, 0, 0, 0));
+    }
+
+    @Override
+    public void onIteration(int iteration, double currentScore, double bestScore, int bestIteration,
+            double acceptanceRate, double temperature, long elapsedNanos) {
+        if (iteration % interval != 0) {
+            return;
+        }
+        enqueue(new Sample(Kind.ITERATION, elapsedNanos, iteration, bestIteration, currentScore, bestScore,
+                acceptanceRate, temperature, 0, 0, 0, 0));
+    }
+
+    @Override
+    public void onDiversification(int iteration, int iterationsWithoutImprovement) {
+        enqueue(new Sample(Kind.DIVERSIFICATION, 0, iteration, iterationsWithoutImprovement, 0, 0, 0, 0, 0, 0, 0,
+                0));
+    }
+
+    @Override
+    public void onFinish(int iterations, double bestScore, int bestIteration, long elapsedNanos,
+            long neighborsGenerated, long duplicateNeighbors, long infeasibleMoves, long routesSimulated) {
+        enqueue(new Sample(Kind.FINISH, elapsedNanos, iterations, bestIteration, bestScore, 0, 0, 0,
+                neighborsGenerated, duplicateNeighbors, infeasibleMoves, routesSimulated));
+    }
+
+    @Override
+    public boolean wantsDetailedEvaluation() {
+        return logger.isLoggable(Level.FINE);
+    }
+
+    @Override
+    public void onDetailedEvaluation(String evaluation) {
+        logger.fine(evaluation);
+    }
+
+    public long getDroppedSamples() {
+        return droppedSamples;
+    }
+
+    private void enqueue(Sample sample) {
+        if (!queue.offer(sample)) {
+            droppedSamples++;
+        }
+    }
+
+    private static synchronized void startWriter() {
+        if (writer != null) {
+            return;
+        }
+        writer = new Thread(SampledProgressSink::drain, "solver-progress");
+        writer.setDaemon(true);
+        writer.start();
+    }
+
+    private static void drain() {
+        try {
+            while (true) {
+                Sample sample = queue.take();
+                if (logger.isLoggable(Level.INFO)) {
+                    logger.info(sample.format());
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private enum Kind {
+        START, ITERATION, DIVERSIFICATION, FINISH
+    }
+
+    private static final class Sample {
+        private final Kind kind;
+        private final long l0;
+        private final int i0;
+        private final int i1;
+        private final double d0;
+        private final double d1;
+        private final double d2;
+        private final double d3;
+        private final long l1;
+        private final long l2;
+        private final long l3;
+        private final long l4;
+
+        private Sample(Kind kind, long l0, int i0, int i1, double d0, double d1, double d2, double d3,
+                long l1, long l2, long l3, long l4) {
+            this.kind = kind;
+            this.l0 = l0;
+            this.i0 = i0;
+            this.i1 = i1;
+            this.d0 = d0;
+            this.d1 = d1;
+            this.d2 = d2;
+            this.d3 = d3;
+            this.l1 = l1;
+            this.l2 = l2;
+            this.l3 = l3;
+            this.l4 = l4;
+        }
+
+        private String format() {
+            switch (kind) {
+                case START:
+                    return String.format("Solver start: seed=%d, %d pending orders, %d vehicles, initial score=%.2f",
+                            l0, i0, i1, d0);
+                case ITERATION:
+                    return String.format(
+                            "Iteration %d: Current Score = %.2f, Best Score = %.2f, Best found at it.%d, "
+                                    + "Acceptance = %.1f%%, Temp = %.2f, Elapsed = %.1f ms",
+                            i0, d0, d1, i1, d2 * 100, d3, l0 / 1e6);
+                case DIVERSIFICATION:
+                    return String.format("Diversification applied at iteration %d after %d iterations "
+                            + "without significant improvement", i0, i1);
+                case FINISH:
+                    return String.format("Solver finished: %d iterations in %.1f ms, best score=%.2f at it.%d, "
+                            + "duplicate neighbors skipped %d of %d, infeasible moves rejected %d, "
+                            + "routes simulated %d",
+                            i0, l0 / 1e6, d0, i1, l2, l1, l3, l4);
+                default:
+                    return kind.name();
+            }
+        }
+    }
+}
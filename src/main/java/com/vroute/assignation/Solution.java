@@ -1,7 +1,11 @@
 package com.vroute.assignation;
 
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
 import java.util.List;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.Map;
 
 import com.vroute.models.Position;
@@ -10,20 +14,94 @@ import com.vroute.models.Vehicle;
 public class Solution {
     private final Map<Vehicle, List<DeliveryInstruction>> vehicleOrderAssignments;
     private final double totalDistance;
+    private final long hash;
+    // GLP assigned to each order across all routes. Moves that only relocate
+    // instructions keep these totals, so the map is shared between solutions.
+    private final Map<String, Integer> assignedGlpByOrderId;
+    // Pending-order version of the environment for which every pending order
+    // was checked to be fully assigned; -1 if it has not been checked
+    private long coveredPendingVersion = -1;
 
     public Solution(Map<Vehicle, List<DeliveryInstruction>> vehicleOrderAssignments) {
-        this.vehicleOrderAssignments = new HashMap<>(vehicleOrderAssignments);
+        this.vehicleOrderAssignments = orderedById(vehicleOrderAssignments);
         this.totalDistance = calculateDistance();
+        this.hash = SolutionHasher.hash(this.vehicleOrderAssignments);
+        this.assignedGlpByOrderId = Collections.unmodifiableMap(calculateAssignedGlp());
+    }
+
+    /**
+     * Used by moves and repairs that already know the resulting hash and the
+     * GLP assigned per order.
+     */
+    Solution(Map<Vehicle, List<DeliveryInstruction>> vehicleOrderAssignments, long hash,
+            Map<String, Integer> assignedGlpByOrderId, long coveredPendingVersion) {
+        this.vehicleOrderAssignments = orderedById(vehicleOrderAssignments);
+        this.totalDistance = calculateDistance();
+        this.hash = hash;
+        this.assignedGlpByOrderId = Collections.unmodifiableMap(assignedGlpByOrderId);
+        this.coveredPendingVersion = coveredPendingVersion;
     }
 
     public double getTotalDistance() {
         return totalDistance;
     }
 
+    /**
+     * Zobrist hash of the assignments; equal assignments have equal hashes.
+     */
+    public long getHash() {
+        return hash;
+    }
+
     public Map<Vehicle, List<DeliveryInstruction>> getVehicleOrderAssignments() {
         return vehicleOrderAssignments;
     }
 
+    /**
+     * GLP assigned to each order id across all routes (read-only).
+     */
+    public Map<String, Integer> getAssignedGlpByOrderId() {
+        return assignedGlpByOrderId;
+    }
+
+    public int getAssignedGlp(String orderId) {
+        return assignedGlpByOrderId.getOrDefault(orderId, 0);
+    }
+
+    long getCoveredPendingVersion() {
+        return coveredPendingVersion;
+    }
+
+    void markCovered(long pendingVersion) {
+        this.coveredPendingVersion = pendingVersion;
+    }
+
+    /**
+     * Copia las asignaciones ordenadas por id de vehículo. Vehicle no redefine
+     * hashCode, así que el orden de un HashMap cambiaría entre ejecuciones y
+     * una misma semilla no daría la misma búsqueda.
+     */
+    private static Map<Vehicle, List<DeliveryInstruction>> orderedById(
+            Map<Vehicle, List<DeliveryInstruction>> assignments) {
+        List<Vehicle> vehicles = new ArrayList<>(assignments.keySet());
+        vehicles.sort(Comparator.comparing(Vehicle::getId));
+        Map<Vehicle, List<DeliveryInstruction>> ordered = new LinkedHashMap<>();
+        for (Vehicle vehicle : vehicles) {
+            ordered.put(vehicle, assignments.get(vehicle));
+        }
+        return ordered;
+    }
+
+    private Map<String, Integer> calculateAssignedGlp() {
+        Map<String, Integer> assigned = new HashMap<>();
+        for (List<DeliveryInstruction> instructions : vehicleOrderAssignments.values()) {
+            for (DeliveryInstruction instruction : instructions) {
+                assigned.merge(instruction.getOrderId(), instruction.getGlpAmountToDeliver(), Integer::sum);
+            }
+        }
+        return assigned;
+    }
+
     private double calculateDistance() {
         double distance = 0.0;
         for (Map.Entry<Vehicle, List<DeliveryInstruction>> entry : vehicleOrderAssignments.entrySet()) {
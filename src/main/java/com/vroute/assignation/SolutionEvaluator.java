@@ -3,6 +3,7 @@ package com.vroute.assignation;
 import com.vroute.models.Environment;
 import com.vroute.models.Order;
 import com.vroute.models.Position;
+import com.vroute.models.SimClock;
 import com.vroute.models.Vehicle;
 
 import java.time.LocalDateTime;
@@ -20,16 +21,16 @@ import java.util.Set;
 public class SolutionEvaluator {
     
     // Recompensas y penalizaciones para el score
-    private static final double ORDER_DELIVERED_REWARD = 1000.0;      // Recompensa base por cada orden entregada
+    static final double ORDER_DELIVERED_REWARD = 1000.0;      // Recompensa base por cada orden entregada
     private static final double ON_TIME_DELIVERY_BONUS = 500.0;       // Bonus adicional por entrega a tiempo
     private static final double EARLY_DELIVERY_BONUS_PER_MINUTE = 1.0; // Bonus adicional por cada minuto de anticipación (hasta un máximo)
     private static final int MAX_EARLY_BONUS_MINUTES = 30;            // Límite de minutos para bonus por anticipación
     
     // Penalizaciones
-    private static final double INCOMPLETE_ORDER_PENALTY = 2000.0;    // Penalización por orden incompleta
+    static final double INCOMPLETE_ORDER_PENALTY = 2000.0;    // Penalización por orden incompleta
     private static final double LATE_DELIVERY_PENALTY_PER_MINUTE = 10.0; // Penalización por minuto de retraso
     private static final double LATE_PENALTY_EXPONENT = 1.5;          // Exponente para penalización por retraso
-    private static final double DISTANCE_PENALTY_PER_KM = 0.5;        // Pequeña penalización por km recorrido
+    static final double DISTANCE_PENALTY_PER_KM = 0.5;                // Pequeña penalización por km recorrido
     
     // Constructor privado para evitar instanciación
     private SolutionEvaluator() {}
@@ -55,8 +56,7 @@ public class SolutionEvaluator {
         // Verificar si hay órdenes pendientes no atendidas
         Set<String> pendingOrdersNotCovered = checkForMissingOrders(pendingOrdersMap.keySet(), assignedGlpByOrderId.keySet());
         if (!pendingOrdersNotCovered.isEmpty()) {
-            System.err.printf("Warning: %d pending orders not covered in solution: %s%n", 
-                    pendingOrdersNotCovered.size(), pendingOrdersNotCovered);
+            // Sin log aquí: se llama por cada vecino; getDetailedEvaluation lista las órdenes
             totalScore -= pendingOrdersNotCovered.size() * INCOMPLETE_ORDER_PENALTY * 2; // Doble penalización
         }
         
@@ -66,12 +66,8 @@ public class SolutionEvaluator {
     /**
      * Obtiene un mapa de todas las órdenes pendientes por ID
      */
-    private static Map<String, Order> getPendingOrdersMap(Environment environment) {
-        Map<String, Order> pendingOrdersMap = new HashMap<>();
-        for (Order order : environment.getPendingOrders()) {
-            pendingOrdersMap.put(order.getId(), order);
-        }
-        return pendingOrdersMap;
+    static Map<String, Order> getPendingOrdersMap(Environment environment) {
+        return environment.getPendingOrdersById();
     }
     
     /**
@@ -95,7 +91,7 @@ public class SolutionEvaluator {
     /**
      * Verifica si hay órdenes pendientes que no estén incluidas en la solución
      */
-    private static Set<String> checkForMissingOrders(Set<String> pendingOrderIds, Set<String> assignedOrderIds) {
+    static Set<String> checkForMissingOrders(Set<String> pendingOrderIds, Set<String> assignedOrderIds) {
         Set<String> missingOrderIds = new HashSet<>(pendingOrderIds);
         missingOrderIds.removeAll(assignedOrderIds);
         return missingOrderIds;
@@ -104,7 +100,7 @@ public class SolutionEvaluator {
     /**
      * Calcula la recompensa base por órdenes completadas
      */
-    private static double calculateCompletedOrdersReward(Map<String, Order> pendingOrdersMap, Map<String, Integer> assignedGlpByOrderId) {
+    static double calculateCompletedOrdersReward(Map<String, Order> pendingOrdersMap, Map<String, Integer> assignedGlpByOrderId) {
         double reward = 0.0;
         
         for (Map.Entry<String, Order> entry : pendingOrdersMap.entrySet()) {
@@ -113,24 +109,33 @@ public class SolutionEvaluator {
             int required = order.getRemainingGlpM3();
             int assigned = assignedGlpByOrderId.getOrDefault(orderId, 0);
             
-            if (assigned >= required) {
-                reward += ORDER_DELIVERED_REWARD;
-            } else if (assigned > 0) {
-                // Recompensa parcial proporcional a la cantidad asignada
-                double completionRatio = (double) assigned / required;
-                reward += ORDER_DELIVERED_REWARD * completionRatio * 0.5; // Solo 50% de la recompensa si es parcial
-            }
+            reward += calculateOrderReward(required, assigned);
         }
         
         return reward;
     }
     
+    /**
+     * Recompensa de una orden según el GLP que tiene asignado
+     */
+    static double calculateOrderReward(int required, int assigned) {
+        if (assigned >= required) {
+            return ORDER_DELIVERED_REWARD;
+        }
+        if (assigned > 0) {
+            // Recompensa parcial proporcional a la cantidad asignada
+            double completionRatio = (double) assigned / required;
+            return ORDER_DELIVERED_REWARD * completionRatio * 0.5; // Solo 50% de la recompensa si es parcial
+        }
+        return 0.0;
+    }
+    
     /**
      * Calcula bonus por entrega a tiempo o anticipada
      */
     private static double calculateTimeBonus(Solution solution, Environment environment) {
         double totalBonus = 0.0;
-        LocalDateTime now = environment.getCurrentTime();
+        long nowMinute = SimClock.toEpochMinute(environment.getCurrentTime());
         Map<Vehicle, List<DeliveryInstruction>> assignments = solution.getVehicleOrderAssignments();
 
         for (Map.Entry<Vehicle, List<DeliveryInstruction>> entry : assignments.entrySet()) {
@@ -145,22 +150,8 @@ public class SolutionEvaluator {
                 double travelTimeForThisLeg = (distance / 60.0) * 60.0; // Convertir a minutos
                 travelTimeMinutes += travelTimeForThisLeg;
 
-                LocalDateTime estimatedArrival = now.plusMinutes((long) travelTimeMinutes);
-                LocalDateTime dueDate = instruction.getDueDate();
-
-                if (estimatedArrival.isBefore(dueDate) || estimatedArrival.isEqual(dueDate)) {
-                    // Entrega a tiempo - otorgar bonus base
-                    totalBonus += ON_TIME_DELIVERY_BONUS;
-                    
-                    // Bonus adicional por entrega anticipada
-                    long minutesEarly = java.time.Duration.between(estimatedArrival, dueDate).toMinutes();
-                    totalBonus += Math.min(minutesEarly, MAX_EARLY_BONUS_MINUTES) * EARLY_DELIVERY_BONUS_PER_MINUTE;
-                } else {
-                    // Entrega tardía - penalización
-                    long minutesLate = java.time.Duration.between(dueDate, estimatedArrival).toMinutes();
-                    double penalty = Math.pow(minutesLate, LATE_PENALTY_EXPONENT) * LATE_DELIVERY_PENALTY_PER_MINUTE;
-                    totalBonus -= penalty; // Resta de la bonificación total
-                }
+                long estimatedArrival = nowMinute + (long) travelTimeMinutes;
+                totalBonus += calculateStopTimeBonus(estimatedArrival, SimClock.toEpochMinute(instruction.getDueDate()));
 
                 currentPosition = instruction.getCustomerPosition();
             }
@@ -168,11 +159,33 @@ public class SolutionEvaluator {
 
         return totalBonus;
     }
+
+    /**
+     * Bonus (o penalización si es negativo) por llegar a una entrega en
+     * {@code arrival} dado su plazo {@code dueDate}
+     */
+    static double calculateStopTimeBonus(LocalDateTime arrival, LocalDateTime dueDate) {
+        return calculateStopTimeBonus(SimClock.toEpochMinute(arrival), SimClock.toEpochMinute(dueDate));
+    }
+
+    /**
+     * Igual que {@link #calculateStopTimeBonus(LocalDateTime, LocalDateTime)}
+     * con los instantes en minutos desde epoch ({@link SimClock}).
+     */
+    static double calculateStopTimeBonus(long arrivalMinute, long dueMinute) {
+        if (arrivalMinute <= dueMinute) {
+            // Entrega a tiempo - bonus base más bonus por anticipación
+            return ON_TIME_DELIVERY_BONUS
+                    + Math.min(dueMinute - arrivalMinute, MAX_EARLY_BONUS_MINUTES) * EARLY_DELIVERY_BONUS_PER_MINUTE;
+        }
+        // Entrega tardía - penalización
+        return -Math.pow(arrivalMinute - dueMinute, LATE_PENALTY_EXPONENT) * LATE_DELIVERY_PENALTY_PER_MINUTE;
+    }
     
     /**
      * Calcula penalización por órdenes incompletas
      */
-    private static double calculateIncompletePenalty(Map<String, Order> pendingOrdersMap, Map<String, Integer> assignedGlpByOrderId) {
+    static double calculateIncompletePenalty(Map<String, Order> pendingOrdersMap, Map<String, Integer> assignedGlpByOrderId) {
         double penalty = 0.0;
         
         for (Map.Entry<String, Order> entry : pendingOrdersMap.entrySet()) {
@@ -181,16 +194,24 @@ public class SolutionEvaluator {
             int required = order.getRemainingGlpM3();
             int assigned = assignedGlpByOrderId.getOrDefault(orderId, 0);
             
-            if (assigned < required) {
-                // Penalización proporcional a la cantidad no asignada
-                double missingRatio = (double)(required - assigned) / required;
-                penalty += INCOMPLETE_ORDER_PENALTY * missingRatio * missingRatio; // Penalización cuadrática
-            }
+            penalty += calculateOrderIncompletePenalty(required, assigned);
         }
         
         return penalty;
     }
     
+    /**
+     * Penalización de una orden por el GLP que le falta asignar
+     */
+    static double calculateOrderIncompletePenalty(int required, int assigned) {
+        if (assigned >= required) {
+            return 0.0;
+        }
+        // Penalización proporcional a la cantidad no asignada
+        double missingRatio = (double)(required - assigned) / required;
+        return INCOMPLETE_ORDER_PENALTY * missingRatio * missingRatio; // Penalización cuadrática
+    }
+    
     /**
      * Calcula penalización por distancia recorrida
      */
@@ -9,7 +9,7 @@ import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
-import java.util.Random;
+import java.util.SplittableRandom;
 import java.util.HashSet;
 import java.util.Set;
 import java.util.Collections;
@@ -17,11 +17,16 @@ import java.util.Comparator;
 import java.time.LocalDateTime;
 
 public class SolutionGenerator {
-    private final Random random = new Random();
+    private final SplittableRandom random;
     private final Environment environment;
     
     public SolutionGenerator(Environment environment) {
+        this(environment, new SplittableRandom());
+    }
+
+    public SolutionGenerator(Environment environment, SplittableRandom random) {
         this.environment = environment;
+        this.random = random;
     }
     
     /**
@@ -153,10 +158,8 @@ public class SolutionGenerator {
         }
         
         Map<Vehicle, List<DeliveryInstruction>> currentAssignments = solution.getVehicleOrderAssignments();
-        Map<Vehicle, List<DeliveryInstruction>> newAssignments = new HashMap<>();
-        for (Map.Entry<Vehicle, List<DeliveryInstruction>> entry : currentAssignments.entrySet()) {
-            newAssignments.put(entry.getKey(), new ArrayList<>(entry.getValue()));
-        }
+        // Las rutas que el movimiento no toca se comparten con la solución original
+        Map<Vehicle, List<DeliveryInstruction>> newAssignments = new HashMap<>(currentAssignments);
 
         Vehicle sourceVehicle = move.getSourceVehicle();
         Vehicle targetVehicle = move.getTargetVehicle();
@@ -167,8 +170,14 @@ public class SolutionGenerator {
             return solution;
         }
         
-        List<DeliveryInstruction> sourceInstructions = newAssignments.get(sourceVehicle);
-        List<DeliveryInstruction> targetInstructions = newAssignments.get(targetVehicle);
+        List<DeliveryInstruction> sourceInstructions = new ArrayList<>(newAssignments.get(sourceVehicle));
+        newAssignments.put(sourceVehicle, sourceInstructions);
+        List<DeliveryInstruction> targetInstructions = sourceVehicle == targetVehicle ? sourceInstructions
+                : newAssignments.get(targetVehicle);
+        if (targetInstructions != null && targetInstructions != sourceInstructions) {
+            targetInstructions = new ArrayList<>(targetInstructions);
+            newAssignments.put(targetVehicle, targetInstructions);
+        }
 
         // Validate source instructions
         if (sourceInstructions == null || sourceInstructions.isEmpty() ||
@@ -183,6 +192,9 @@ public class SolutionGenerator {
             newAssignments.put(targetVehicle, targetInstructions);
         }
 
+        List<DeliveryInstruction> sourceBefore = currentAssignments.get(sourceVehicle);
+        List<DeliveryInstruction> targetBefore = currentAssignments.getOrDefault(targetVehicle, List.of());
+
         switch (move.getMoveType()) {
             case TRANSFER:
                 DeliveryInstruction instructionToTransfer = sourceInstructions.remove(move.getSourceInstructionIndex());
@@ -211,7 +223,12 @@ public class SolutionGenerator {
                 break;
         }
 
-        return new Solution(newAssignments);
+        long hash = SolutionHasher.applyMove(solution.getHash(), move,
+                sourceBefore, sourceInstructions, targetBefore, targetInstructions);
+        // Los movimientos solo cambian instrucciones de sitio: el GLP asignado
+        // por orden (y por tanto la cobertura) es el mismo que el de la solución original
+        return new Solution(newAssignments, hash,
+                solution.getAssignedGlpByOrderId(), solution.getCoveredPendingVersion());
     }
 
     /**
@@ -398,11 +415,17 @@ public class SolutionGenerator {
             }
         }
 
-        return new Solution(newAssignments);
+        return new Solution(newAssignments, SolutionHasher.hash(newAssignments),
+                solution.getAssignedGlpByOrderId(), solution.getCoveredPendingVersion());
     }
 
     /**
-     * Se asegura de que todas las órdenes estén asignadas completamente
+     * Se asegura de que todas las órdenes estén asignadas completamente.
+     *
+     * Usa el GLP asignado por orden que mantiene la {@link Solution}, así que
+     * si la solución ya se comprobó para la versión actual de órdenes
+     * pendientes no hace nada, y si hay déficit solo copia las rutas que
+     * reciben instrucciones nuevas.
      */
     public Solution ensureFullOrderAssignment(Solution solution) {
         Map<Vehicle, List<DeliveryInstruction>> currentAssignments = solution.getVehicleOrderAssignments();
@@ -412,85 +435,71 @@ public class SolutionGenerator {
             System.err.println("No vehicle assignments available to ensure full order assignment.");
             return solution;
         }
-        
-        List<Order> pendingOrders = environment.getPendingOrders();
-        if (pendingOrders.isEmpty()) {
+
+        long pendingVersion = environment.getPendingVersion();
+        if (solution.getCoveredPendingVersion() == pendingVersion) {
             return solution;
         }
         
-        // Track how much of each order is currently assigned
-        Map<String, Integer> assignedGlpByOrderId = new HashMap<>();
-        for (List<DeliveryInstruction> instructions : currentAssignments.values()) {
-            for (DeliveryInstruction instruction : instructions) {
-                String orderId = instruction.getOrderId();
-                assignedGlpByOrderId.put(orderId, 
-                    assignedGlpByOrderId.getOrDefault(orderId, 0) + instruction.getGlpAmountToDeliver());
-            }
-        }
-        
-        // Create a new assignments map
-        Map<Vehicle, List<DeliveryInstruction>> newAssignments = new HashMap<>();
-        for (Map.Entry<Vehicle, List<DeliveryInstruction>> entry : currentAssignments.entrySet()) {
-            newAssignments.put(entry.getKey(), new ArrayList<>(entry.getValue()));
-        }
+        List<Order> pendingOrders = environment.getPendingOrders();
         
         // Find orders that are partially assigned or not assigned at all
         List<Order> incompletedOrders = new ArrayList<>();
         for (Order order : pendingOrders) {
             if (order.isDelivered()) continue;
             
-            int totalRequired = order.getRemainingGlpM3();
-            int currentlyAssigned = assignedGlpByOrderId.getOrDefault(order.getId(), 0);
-            
-            if (currentlyAssigned < totalRequired) {
-                // Clone the order to prevent modifying the original
-                Order clonedOrder = order.clone();
-                incompletedOrders.add(clonedOrder);
+            if (solution.getAssignedGlp(order.getId()) < order.getRemainingGlpM3()) {
+                incompletedOrders.add(order);
             }
         }
         
         if (incompletedOrders.isEmpty()) {
             // All orders are fully assigned
+            solution.markCovered(pendingVersion);
             return solution;
         }
         
-        // Sort vehicles by current load
-        List<Vehicle> sortedVehicles = new ArrayList<>(newAssignments.keySet());
-        Collections.sort(sortedVehicles, Comparator.comparingInt(v -> newAssignments.get(v).size()));
+        // Las rutas se comparten con la solución original hasta que se modifican
+        Map<Vehicle, List<DeliveryInstruction>> newAssignments = new HashMap<>(currentAssignments);
+        Set<Vehicle> copiedRoutes = new HashSet<>();
+        Map<String, Integer> assignedGlpByOrderId = new HashMap<>(solution.getAssignedGlpByOrderId());
+        long hash = solution.getHash();
+        
+        // GLP ya asignado a cada camión
+        Map<Vehicle, Integer> committedGlp = new HashMap<>();
+        for (Map.Entry<Vehicle, List<DeliveryInstruction>> entry : newAssignments.entrySet()) {
+            int glp = 0;
+            for (DeliveryInstruction instruction : entry.getValue()) {
+                glp += instruction.getGlpAmountToDeliver();
+            }
+            committedGlp.put(entry.getKey(), glp);
+        }
+        // La carga comprometida la tiene en cuenta GlpSplitPlanner; el orden por
+        // id solo fija los desempates para que no dependan del HashMap
+        List<Vehicle> vehicles = new ArrayList<>(currentAssignments.keySet());
+        vehicles.sort(Comparator.comparing(Vehicle::getId));
         
         // Sort orders by due time (prioritize earlier due times)
         Collections.sort(incompletedOrders, Comparator.comparing(Order::getDueTime, 
                                                   Comparator.nullsLast(Comparator.naturalOrder())));
         
         for (Order order : incompletedOrders) {
-            int totalRequired = order.getRemainingGlpM3();
-            int currentlyAssigned = assignedGlpByOrderId.getOrDefault(order.getId(), 0);
-            int remainingToAssign = totalRequired - currentlyAssigned;
-            
-            while (remainingToAssign > 0 && !sortedVehicles.isEmpty()) {
-                Vehicle leastLoadedVehicle = sortedVehicles.get(0);
-                
-                // Get vehicle capacity
-                int vehicleCapacity = leastLoadedVehicle.getType().getCapacityM3();
-                int amountForThisVehicle = Math.min(remainingToAssign, vehicleCapacity);
-                
-                if (amountForThisVehicle > 0) {
-                    DeliveryInstruction instruction = new DeliveryInstruction(order, amountForThisVehicle);
-                    newAssignments.get(leastLoadedVehicle).add(instruction);
-                    remainingToAssign -= amountForThisVehicle;
-                    
-                    // Re-sort vehicles by load
-                    Collections.sort(sortedVehicles, Comparator.comparingInt(v -> newAssignments.get(v).size()));
+            int remainingToAssign = order.getRemainingGlpM3() - assignedGlpByOrderId.getOrDefault(order.getId(), 0);
+            for (GlpSplitPlanner.Piece piece : GlpSplitPlanner.split(remainingToAssign, vehicles, committedGlp)) {
+                Vehicle vehicle = piece.getVehicle();
+                List<DeliveryInstruction> route = newAssignments.get(vehicle);
+                if (copiedRoutes.add(vehicle)) {
+                    route = new ArrayList<>(route);
+                    newAssignments.put(vehicle, route);
                 }
-            }
-            
-            if (remainingToAssign > 0) {
-                System.err.println("Warning: Unable to fully assign order " + order.getId() + 
-                                  ". Still missing " + remainingToAssign + " GLP units.");
+                hash -= SolutionHasher.hashRoute(vehicle, route);
+                route.add(new DeliveryInstruction(order, piece.getAmount()));
+                hash += SolutionHasher.hashRoute(vehicle, route);
+                assignedGlpByOrderId.merge(order.getId(), piece.getAmount(), Integer::sum);
             }
         }
         
-        return new Solution(newAssignments);
+        return new Solution(newAssignments, hash, assignedGlpByOrderId, pendingVersion);
     }
 
     /**
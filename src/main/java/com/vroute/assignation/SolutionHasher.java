@@ -0,0 +1,102 @@
+package com.vroute.assignation;
+
+import java.util.List;
+import java.util.Map;
+
+import com.vroute.models.Vehicle;
+
+/**
+ * Hash tipo Zobrist de una {@link Solution}.
+ *
+ * Cada tramo de una ruta (vehículo, instrucción anterior, instrucción actual)
+ * aporta una clave pseudoaleatoria y el hash de la solución es la suma de
+ * todas ellas. Como un movimiento solo cambia los tramos alrededor de las
+ * posiciones que toca, el hash se actualiza en O(1) por movimiento. Se usa la
+ * suma en lugar del XOR para que dos tramos idénticos (entregas partidas de la
+ * misma orden) no se cancelen entre sí.
+ */
+public final class SolutionHasher {
+
+    private static final long ROUTE_START_TOKEN = 0x9E3779B97F4A7C15L;
+
+    private SolutionHasher() {
+    }
+
+    public static long hash(Map<Vehicle, List<DeliveryInstruction>> assignments) {
+        long hash = 0L;
+        for (Map.Entry<Vehicle, List<DeliveryInstruction>> entry : assignments.entrySet()) {
+            hash += legs(entry.getKey(), entry.getValue(), 0, entry.getValue().size() - 1);
+        }
+        return hash;
+    }
+
+    /**
+     * Hash de una sola ruta; la suma de los hashes de todas las rutas es el
+     * hash de la solución.
+     */
+    public static long hashRoute(Vehicle vehicle, List<DeliveryInstruction> route) {
+        return legs(vehicle, route, 0, route.size() - 1);
+    }
+
+    /**
+     * Calcula el hash de la solución resultante de aplicar {@code move}, a
+     * partir del hash anterior y de las rutas antes y después del movimiento.
+     */
+    static long applyMove(long hash, TabuMove move,
+            List<DeliveryInstruction> sourceBefore, List<DeliveryInstruction> sourceAfter,
+            List<DeliveryInstruction> targetBefore, List<DeliveryInstruction> targetAfter) {
+        Vehicle source = move.getSourceVehicle();
+        Vehicle target = move.getTargetVehicle();
+        int sourceIndex = move.getSourceInstructionIndex();
+        int targetIndex = move.getTargetInstructionIndex();
+
+        switch (move.getMoveType()) {
+            case TRANSFER:
+                hash -= legs(source, sourceBefore, sourceIndex, sourceIndex + 1);
+                hash += legs(source, sourceAfter, sourceIndex, sourceIndex);
+                hash += legs(target, targetAfter, targetAfter.size() - 1, targetAfter.size() - 1);
+                return hash;
+            case SWAP:
+                hash -= legs(source, sourceBefore, sourceIndex, sourceIndex + 1);
+                hash += legs(source, sourceAfter, sourceIndex, sourceIndex + 1);
+                hash -= legs(target, targetBefore, targetIndex, targetIndex + 1);
+                hash += legs(target, targetAfter, targetIndex, targetIndex + 1);
+                return hash;
+            case REORDER:
+                int from = Math.min(sourceIndex, targetIndex);
+                int to = Math.max(sourceIndex, targetIndex) + 1;
+                hash -= legs(source, sourceBefore, from, to);
+                hash += legs(source, sourceAfter, from, to);
+                return hash;
+            default:
+                return hash;
+        }
+    }
+
+    /**
+     * Suma de las claves de los tramos que llegan a las posiciones
+     * {@code from..to} (inclusive) de la ruta.
+     */
+    private static long legs(Vehicle vehicle, List<DeliveryInstruction> route, int from, int to) {
+        long vehicleKey = mix(vehicle.getId().hashCode());
+        int start = Math.max(0, from);
+        int end = Math.min(route.size() - 1, to);
+        long sum = 0L;
+        for (int i = start; i <= end; i++) {
+            long previous = i == 0 ? ROUTE_START_TOKEN : token(route.get(i - 1));
+            sum += mix(vehicleKey ^ mix(previous * 31 + token(route.get(i))));
+        }
+        return sum;
+    }
+
+    private static long token(DeliveryInstruction instruction) {
+        return mix(instruction.getOrderId().hashCode() * 0x100000001B3L + instruction.getGlpAmountToDeliver());
+    }
+
+    // Finalizador de SplitMix64
+    private static long mix(long z) {
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return z ^ (z >>> 31);
+    }
+}
@@ -0,0 +1,77 @@
+package com.vroute.assignation;
+
+/**
+ * Parámetros de búsqueda de {@link MetaheuristicAssignator}. Los valores por
+ * defecto son los que el solver usaba fijos; el paquete
+ * {@code com.vroute.tuning} busca mejores combinaciones.
+ */
+public class SolverParameters {
+    public static final int DEFAULT_MAX_ITERATIONS = 1500;
+    public static final int DEFAULT_TABU_LIST_SIZE = 50;
+    public static final int DEFAULT_NUM_NEIGHBORS = 50;
+    public static final double DEFAULT_INITIAL_TEMPERATURE = 100.0;
+    public static final double DEFAULT_TEMPERATURE_DECAY = 0.995;
+    public static final int DEFAULT_EXACT_TOP_K = 3;
+
+    private final int maxIterations;
+    private final int tabuListSize;
+    private final int neighborsPerIteration;
+    private final double initialTemperature;
+    private final double temperatureDecay;
+    private final int exactTopK;
+
+    public SolverParameters(int maxIterations, int tabuListSize, int neighborsPerIteration,
+            double initialTemperature, double temperatureDecay, int exactTopK) {
+        if (maxIterations <= 0 || tabuListSize < 0 || neighborsPerIteration <= 0) {
+            throw new IllegalArgumentException("Iterations and neighbors must be positive, tabu size non-negative");
+        }
+        if (initialTemperature <= 0 || temperatureDecay <= 0 || temperatureDecay > 1) {
+            throw new IllegalArgumentException("Temperature must be positive and decay in (0, 1]");
+        }
+        this.maxIterations = maxIterations;
+        this.tabuListSize = tabuListSize;
+        this.neighborsPerIteration = neighborsPerIteration;
+        this.initialTemperature = initialTemperature;
+        this.temperatureDecay = temperatureDecay;
+        this.exactTopK = Math.max(0, exactTopK);
+    }
+
+    public static SolverParameters defaults() {
+        return new SolverParameters(DEFAULT_MAX_ITERATIONS, DEFAULT_TABU_LIST_SIZE, DEFAULT_NUM_NEIGHBORS,
+                DEFAULT_INITIAL_TEMPERATURE, DEFAULT_TEMPERATURE_DECAY, DEFAULT_EXACT_TOP_K);
+    }
+
+    public int getMaxIterations() {
+        return maxIterations;
+    }
+
+    public int getTabuListSize() {
+        return tabuListSize;
+    }
+
+    public int getNeighborsPerIteration() {
+        return neighborsPerIteration;
+    }
+
+    public double getInitialTemperature() {
+        return initialTemperature;
+    }
+
+    public double getTemperatureDecay() {
+        return temperatureDecay;
+    }
+
+    /**
+     * Vecinos por iteración que se puntúan con la simulación del plan (0 = solo
+     * el evaluador rápido).
+     */
+    public int getExactTopK() {
+        return exactTopK;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("iterations=%d, tabu=%d, neighbors=%d, T0=%.2f, decay=%.5f, exactTopK=%d",
+                maxIterations, tabuListSize, neighborsPerIteration, initialTemperature, temperatureDecay, exactTopK);
+    }
+}
@@ -0,0 +1,48 @@
+package com.vroute.assignation;
+
+/**
+ * Recibe el progreso de {@link MetaheuristicAssignator} como valores
+ * primitivos. {@link #onIteration} se llama en cada iteración del bucle de
+ * búsqueda, así que las implementaciones no deben bloquear ni construir
+ * cadenas ahí; {@link SampledProgressSink} muestrea y formatea fuera del hilo
+ * del solver.
+ */
+public interface SolverProgressListener {
+
+    SolverProgressListener NONE = new SolverProgressListener() {
+    };
+
+    default void onStart(long seed, int pendingOrders, int availableVehicles, double initialScore) {
+    }
+
+    /**
+     * @param acceptanceRate Fracción de iteraciones hasta ahora en las que se
+     *                       aceptó un vecino
+     * @param elapsedNanos   Tiempo desde el inicio de la búsqueda
+     */
+    default void onIteration(int iteration, double currentScore, double bestScore, int bestIteration,
+            double acceptanceRate, double temperature, long elapsedNanos) {
+    }
+
+    default void onDiversification(int iteration, int iterationsWithoutImprovement) {
+    }
+
+    /**
+     * @param routesSimulated Rutas simuladas por la evaluación exacta (0 si
+     *                        está desactivada)
+     */
+    default void onFinish(int iterations, double bestScore, int bestIteration, long elapsedNanos,
+            long neighborsGenerated, long duplicateNeighbors, long infeasibleMoves, long routesSimulated) {
+    }
+
+    /**
+     * Si devuelve {@code true}, el solver calcula al final la evaluación
+     * detallada de la mejor solución y la pasa a {@link #onDetailedEvaluation}.
+     */
+    default boolean wantsDetailedEvaluation() {
+        return false;
+    }
+
+    default void onDetailedEvaluation(String evaluation) {
+    }
+}
@@ -0,0 +1,48 @@
+package com.vroute.assignation;
+
+/**
+ * Tabla de transposición acotada que guarda el score de las soluciones ya
+ * visitadas, indexada por su hash Zobrist ({@link SolutionHasher}).
+ *
+ * Es de mapeo directo: cada hash tiene una sola ranura y una entrada nueva
+ * reemplaza a la anterior, de modo que la consulta y la inserción son O(1) y
+ * la memoria no crece con el número de iteraciones.
+ */
+public class TranspositionTable {
+    private final long[] keys;
+    private final double[] scores;
+    private final boolean[] used;
+    private final int mask;
+
+    public TranspositionTable(int capacity) {
+        int size = Integer.highestOneBit(Math.max(2, capacity - 1)) << 1;
+        this.keys = new long[size];
+        this.scores = new double[size];
+        this.used = new boolean[size];
+        this.mask = size - 1;
+    }
+
+    public boolean contains(long hash) {
+        int slot = slot(hash);
+        return used[slot] && keys[slot] == hash;
+    }
+
+    /**
+     * @return El score guardado para el hash, o {@code Double.NaN} si no está
+     */
+    public double getScore(long hash) {
+        int slot = slot(hash);
+        return used[slot] && keys[slot] == hash ? scores[slot] : Double.NaN;
+    }
+
+    public void put(long hash, double score) {
+        int slot = slot(hash);
+        keys[slot] = hash;
+        scores[slot] = score;
+        used[slot] = true;
+    }
+
+    private int slot(long hash) {
+        return (int) (hash ^ (hash >>> 32)) & mask;
+    }
+}
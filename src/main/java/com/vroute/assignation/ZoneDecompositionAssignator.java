@@ -0,0 +1,357 @@
+package com.vroute.assignation;
+
+import com.vroute.models.Depot;
+import com.vroute.models.Environment;
+import com.vroute.models.Order;
+import com.vroute.models.Position;
+import com.vroute.models.Vehicle;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Divide el problema en zonas de servicio, una por cada almacén (planta
+ * principal y tanques intermedios). Cada zona recibe las órdenes pendientes
+ * más cercanas a su almacén y una parte de la flota proporcional a su demanda
+ * de GLP; las zonas se resuelven en paralelo con {@link MetaheuristicAssignator}
+ * y al final se ejecuta una reparación corta para las órdenes de frontera.
+ */
+public class ZoneDecompositionAssignator implements Assignator {
+
+    private static final Logger logger = Logger.getLogger(ZoneDecompositionAssignator.class.getName());
+
+    // Una orden es de frontera si su almacén más cercano no está claramente más cerca que el segundo
+    private static final double BOUNDARY_DISTANCE_RATIO = 0.8;
+    private static final int REPAIR_PASSES = 2;
+
+    private final int maxThreads;
+    private final long seed;
+    private final SolverParameters parameters;
+
+    public ZoneDecompositionAssignator() {
+        this(Runtime.getRuntime().availableProcessors(), new SplittableRandom().nextLong());
+    }
+
+    public ZoneDecompositionAssignator(int maxThreads, long seed) {
+        this(maxThreads, seed, SolverParameters.defaults());
+    }
+
+    public ZoneDecompositionAssignator(int maxThreads, long seed, SolverParameters parameters) {
+        this.maxThreads = Math.max(1, maxThreads);
+        this.seed = seed;
+        this.parameters = parameters;
+    }
+
+    public long getSeed() {
+        return seed;
+    }
+
+    @Override
+    public Solution solve(Environment environment) {
+        List<Order> pendingOrders = environment.getPendingOrders();
+        List<Vehicle> availableVehicles = environment.getAvailableVehicles();
+        if (pendingOrders.isEmpty() || availableVehicles.isEmpty()) {
+            return new MetaheuristicAssignator(environment, seed, parameters).solve(environment);
+        }
+
+        List<Position> zoneCenters = getZoneCenters(environment);
+        List<List<Order>> zoneOrders = partitionOrders(pendingOrders, zoneCenters);
+        List<List<Vehicle>> zoneVehicles = partitionVehicles(availableVehicles, zoneOrders, zoneCenters);
+
+        Map<Vehicle, List<DeliveryInstruction>> merged = new HashMap<>();
+        for (Vehicle vehicle : availableVehicles) {
+            merged.put(vehicle, new ArrayList<>());
+        }
+
+        logger.fine(() -> "Zone decomposition seed: " + seed);
+        // Una semilla por zona, sacadas en orden de zona en este hilo: cada
+        // trabajador tiene su propio generador y el resultado no depende del
+        // orden en que se ejecuten
+        SplittableRandom zoneSeeds = new SplittableRandom(seed);
+
+        List<Future<Solution>> futures = new ArrayList<>();
+        ExecutorService executor = Executors.newFixedThreadPool(Math.min(maxThreads, zoneCenters.size()));
+        try {
+            for (int zone = 0; zone < zoneCenters.size(); zone++) {
+                if (zoneOrders.get(zone).isEmpty() || zoneVehicles.get(zone).isEmpty()) {
+                    continue;
+                }
+                Environment zoneEnvironment = createZoneEnvironment(environment, zoneOrders.get(zone),
+                        zoneVehicles.get(zone));
+                long zoneSeed = zoneSeeds.nextLong();
+                futures.add(executor.submit(
+                        () -> new MetaheuristicAssignator(zoneEnvironment, zoneSeed, parameters).solve(zoneEnvironment)));
+            }
+
+            // Una zona fallida solo pierde sus propias órdenes; el resto se mezcla igual
+            for (Future<Solution> future : futures) {
+                Solution zoneSolution;
+                try {
+                    zoneSolution = future.get();
+                } catch (ExecutionException e) {
+                    logger.log(Level.WARNING, "Zone solve failed, its orders go to the global completion",
+                            e.getCause());
+                    continue;
+                }
+                for (Map.Entry<Vehicle, List<DeliveryInstruction>> entry : zoneSolution.getVehicleOrderAssignments()
+                        .entrySet()) {
+                    merged.computeIfAbsent(entry.getKey(), v -> new ArrayList<>()).addAll(entry.getValue());
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            logger.warning("Interrupted while solving zones");
+        } finally {
+            executor.shutdownNow();
+        }
+
+        Solution solution = repairBoundaryOrders(new Solution(merged), environment, zoneCenters);
+
+        // Las órdenes de zonas sin vehículos (o de zonas fallidas) se completan sobre el problema global
+        return new SolutionGenerator(environment).ensureFullOrderAssignment(solution);
+    }
+
+    private List<Position> getZoneCenters(Environment environment) {
+        List<Position> centers = new ArrayList<>();
+        centers.add(environment.getMainDepot().getPosition());
+        for (Depot depot : environment.getAuxDepots()) {
+            centers.add(depot.getPosition());
+        }
+        return centers;
+    }
+
+    private static int nearestZone(Position position, List<Position> zoneCenters) {
+        int nearest = 0;
+        double nearestDistance = Double.MAX_VALUE;
+        for (int zone = 0; zone < zoneCenters.size(); zone++) {
+            double distance = position.distanceTo(zoneCenters.get(zone));
+            if (distance < nearestDistance) {
+                nearestDistance = distance;
+                nearest = zone;
+            }
+        }
+        return nearest;
+    }
+
+    private List<List<Order>> partitionOrders(List<Order> orders, List<Position> zoneCenters) {
+        List<List<Order>> zoneOrders = new ArrayList<>();
+        for (int zone = 0; zone < zoneCenters.size(); zone++) {
+            zoneOrders.add(new ArrayList<>());
+        }
+        for (Order order : orders) {
+            zoneOrders.get(nearestZone(order.getPosition(), zoneCenters)).add(order);
+        }
+        return zoneOrders;
+    }
+
+    /**
+     * Asigna cada vehículo a la zona de su almacén más cercano y luego mueve
+     * vehículos desde las zonas con exceso de capacidad hacia las zonas cuya
+     * capacidad queda por debajo de su parte de la demanda total.
+     */
+    private List<List<Vehicle>> partitionVehicles(List<Vehicle> vehicles, List<List<Order>> zoneOrders,
+            List<Position> zoneCenters) {
+        int zones = zoneCenters.size();
+        List<List<Vehicle>> zoneVehicles = new ArrayList<>();
+        for (int zone = 0; zone < zones; zone++) {
+            zoneVehicles.add(new ArrayList<>());
+        }
+        for (Vehicle vehicle : vehicles) {
+            zoneVehicles.get(nearestZone(vehicle.getCurrentPosition(), zoneCenters)).add(vehicle);
+        }
+
+        double[] demand = new double[zones];
+        double totalDemand = 0;
+        double totalCapacity = 0;
+        for (int zone = 0; zone < zones; zone++) {
+            for (Order order : zoneOrders.get(zone)) {
+                demand[zone] += order.getRemainingGlpM3();
+            }
+            totalDemand += demand[zone];
+        }
+        for (Vehicle vehicle : vehicles) {
+            totalCapacity += vehicle.getGlpCapacityM3();
+        }
+        if (totalDemand <= 0) {
+            return zoneVehicles;
+        }
+
+        double[] deficit = new double[zones];
+        for (int zone = 0; zone < zones; zone++) {
+            deficit[zone] = totalCapacity * demand[zone] / totalDemand;
+            for (Vehicle vehicle : zoneVehicles.get(zone)) {
+                deficit[zone] -= vehicle.getGlpCapacityM3();
+            }
+        }
+
+        for (int moves = 0; moves < vehicles.size(); moves++) {
+            int needy = -1;
+            for (int zone = 0; zone < zones; zone++) {
+                boolean starving = demand[zone] > 0 && zoneVehicles.get(zone).isEmpty();
+                if (starving || (deficit[zone] > 0 && (needy < 0 || deficit[zone] > deficit[needy]))) {
+                    needy = zone;
+                    if (starving) {
+                        break;
+                    }
+                }
+            }
+            if (needy < 0) {
+                break;
+            }
+
+            // Tomar el vehículo más cercano a la zona necesitada entre las zonas con exceso
+            Vehicle candidate = null;
+            int donor = -1;
+            double bestDistance = Double.MAX_VALUE;
+            for (int zone = 0; zone < zones; zone++) {
+                if (zone == needy || zoneVehicles.get(zone).size() <= (demand[zone] > 0 ? 1 : 0)) {
+                    continue;
+                }
+                for (Vehicle vehicle : zoneVehicles.get(zone)) {
+                    double capacity = vehicle.getGlpCapacityM3();
+                    // Solo mover si reduce el desbalance total
+                    boolean improves = Math.abs(deficit[needy] - capacity) + Math.abs(deficit[zone] + capacity)
+                            < Math.abs(deficit[needy]) + Math.abs(deficit[zone]);
+                    if (!improves && !zoneVehicles.get(needy).isEmpty()) {
+                        continue;
+                    }
+                    double distance = vehicle.getCurrentPosition().distanceTo(zoneCenters.get(needy));
+                    if (distance < bestDistance) {
+                        bestDistance = distance;
+                        candidate = vehicle;
+                        donor = zone;
+                    }
+                }
+            }
+            if (candidate == null) {
+                break;
+            }
+
+            zoneVehicles.get(donor).remove(candidate);
+            zoneVehicles.get(needy).add(candidate);
+            deficit[donor] += candidate.getGlpCapacityM3();
+            deficit[needy] -= candidate.getGlpCapacityM3();
+        }
+
+        return zoneVehicles;
+    }
+
+    private Environment createZoneEnvironment(Environment environment, List<Order> orders, List<Vehicle> vehicles) {
+        Environment zoneEnvironment = new Environment(vehicles, environment.getMainDepot(),
+                environment.getAuxDepots(), environment.getCurrentTime());
+        zoneEnvironment.addOrders(orders);
+        zoneEnvironment.addBlockages(environment.getActiveBlockages());
+        return zoneEnvironment;
+    }
+
+    /**
+     * Reubica las instrucciones de órdenes de frontera en el vehículo (de
+     * cualquier zona) donde su inserción es más barata, aceptando el cambio
+     * solo si mejora el score global.
+     */
+    private Solution repairBoundaryOrders(Solution solution, Environment environment, List<Position> zoneCenters) {
+        Solution current = solution;
+        double currentScore = SolutionEvaluator.evaluateSolution(current, environment);
+
+        for (int pass = 0; pass < REPAIR_PASSES; pass++) {
+            boolean improved = false;
+            List<Vehicle> vehicles = new ArrayList<>(current.getVehicleOrderAssignments().keySet());
+
+            for (Vehicle sourceVehicle : vehicles) {
+                List<DeliveryInstruction> sourceRoute = current.getVehicleOrderAssignments().get(sourceVehicle);
+                for (int index = sourceRoute.size() - 1; index >= 0; index--) {
+                    DeliveryInstruction instruction = sourceRoute.get(index);
+                    if (!isBoundary(instruction.getCustomerPosition(), zoneCenters)) {
+                        continue;
+                    }
+
+                    Position previous = index == 0 ? sourceVehicle.getCurrentPosition()
+                            : sourceRoute.get(index - 1).getCustomerPosition();
+                    Position next = index + 1 < sourceRoute.size() ? sourceRoute.get(index + 1).getCustomerPosition()
+                            : null;
+                    double removalGain = detour(previous, instruction.getCustomerPosition(), next);
+
+                    Vehicle bestVehicle = null;
+                    int bestPosition = -1;
+                    double bestCost = removalGain;
+                    for (Vehicle targetVehicle : vehicles) {
+                        if (targetVehicle == sourceVehicle) {
+                            continue;
+                        }
+                        List<DeliveryInstruction> targetRoute = current.getVehicleOrderAssignments().get(targetVehicle);
+                        for (int position = 0; position <= targetRoute.size(); position++) {
+                            Position before = position == 0 ? targetVehicle.getCurrentPosition()
+                                    : targetRoute.get(position - 1).getCustomerPosition();
+                            Position after = position < targetRoute.size()
+                                    ? targetRoute.get(position).getCustomerPosition()
+                                    : null;
+                            double cost = detour(before, instruction.getCustomerPosition(), after);
+                            if (cost < bestCost) {
+                                bestCost = cost;
+                                bestVehicle = targetVehicle;
+                                bestPosition = position;
+                            }
+                        }
+                    }
+                    if (bestVehicle == null) {
+                        continue;
+                    }
+
+                    Map<Vehicle, List<DeliveryInstruction>> candidateAssignments = new HashMap<>();
+                    for (Map.Entry<Vehicle, List<DeliveryInstruction>> entry : current.getVehicleOrderAssignments()
+                            .entrySet()) {
+                        candidateAssignments.put(entry.getKey(), new ArrayList<>(entry.getValue()));
+                    }
+                    candidateAssignments.get(sourceVehicle).remove(index);
+                    candidateAssignments.get(bestVehicle).add(bestPosition, instruction);
+
+                    Solution candidate = new Solution(candidateAssignments);
+                    double candidateScore = SolutionEvaluator.evaluateSolution(candidate, environment);
+                    if (candidateScore > currentScore) {
+                        current = candidate;
+                        currentScore = candidateScore;
+                        sourceRoute = current.getVehicleOrderAssignments().get(sourceVehicle);
+                        improved = true;
+                    }
+                }
+            }
+
+            if (!improved) {
+                break;
+            }
+        }
+
+        return current;
+    }
+
+    private static boolean isBoundary(Position position, List<Position> zoneCenters) {
+        double nearest = Double.MAX_VALUE;
+        double secondNearest = Double.MAX_VALUE;
+        for (Position center : zoneCenters) {
+            double distance = position.distanceTo(center);
+            if (distance < nearest) {
+                secondNearest = nearest;
+                nearest = distance;
+            } else if (distance < secondNearest) {
+                secondNearest = distance;
+            }
+        }
+        return secondNearest < Double.MAX_VALUE && nearest >= BOUNDARY_DISTANCE_RATIO * secondNearest;
+    }
+
+    private static double detour(Position before, Position stop, Position after) {
+        if (after == null) {
+            return before.distanceTo(stop);
+        }
+        return before.distanceTo(stop) + stop.distanceTo(after) - before.distanceTo(after);
+    }
+}
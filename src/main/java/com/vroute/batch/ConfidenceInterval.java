@@ -0,0 +1,81 @@
+package com.vroute.batch;
+
+/**
+ * Mean of a set of replica outcomes with a two-sided 95% Student-t
+ * confidence interval.
+ */
+public final class ConfidenceInterval {
+    // t(0.975, df) for df = 1..30; larger samples use the normal quantile
+    private static final double[] T_975 = {
+            12.706, 4.303, 3.182, 2.776, 2.571, 2.447, 2.365, 2.306, 2.262, 2.228,
+            2.201, 2.179, 2.160, 2.145, 2.131, 2.120, 2.110, 2.101, 2.093, 2.086,
+            2.080, 2.074, 2.069, 2.064, 2.060, 2.056, 2.052, 2.048, 2.045, 2.042 };
+    private static final double Z_975 = 1.960;
+
+    private final int samples;
+    private final double mean;
+    private final double standardDeviation;
+    private final double halfWidth;
+
+    private ConfidenceInterval(int samples, double mean, double standardDeviation, double halfWidth) {
+        this.samples = samples;
+        this.mean = mean;
+        this.standardDeviation = standardDeviation;
+        this.halfWidth = halfWidth;
+    }
+
+    /**
+     * With fewer than two samples the half-width is infinite (no spread
+     * estimate).
+     */
+    public static ConfidenceInterval of(double[] values) {
+        int n = values.length;
+        if (n == 0) {
+            return new ConfidenceInterval(0, Double.NaN, Double.NaN, Double.POSITIVE_INFINITY);
+        }
+        double sum = 0.0;
+        for (double value : values) {
+            sum += value;
+        }
+        double mean = sum / n;
+        if (n == 1) {
+            return new ConfidenceInterval(1, mean, 0.0, Double.POSITIVE_INFINITY);
+        }
+        double squares = 0.0;
+        for (double value : values) {
+            squares += (value - mean) * (value - mean);
+        }
+        double deviation = Math.sqrt(squares / (n - 1));
+        double t = n - 1 <= T_975.length ? T_975[n - 2] : Z_975;
+        return new ConfidenceInterval(n, mean, deviation, t * deviation / Math.sqrt(n));
+    }
+
+    public int getSamples() {
+        return samples;
+    }
+
+    public double getMean() {
+        return mean;
+    }
+
+    public double getStandardDeviation() {
+        return standardDeviation;
+    }
+
+    public double getHalfWidth() {
+        return halfWidth;
+    }
+
+    public double getLower() {
+        return mean - halfWidth;
+    }
+
+    public double getUpper() {
+        return mean + halfWidth;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%.3f +/- %.3f (sd %.3f, n=%d)", mean, halfWidth, standardDeviation, samples);
+    }
+}
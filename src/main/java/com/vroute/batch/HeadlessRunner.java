@@ -0,0 +1,243 @@
+package com.vroute.batch;
+
+import com.vroute.models.Environment;
+import com.vroute.models.Vehicle;
+import com.vroute.orchest.AlgorithmConfig;
+import com.vroute.orchest.CheckpointCodec;
+import com.vroute.orchest.CheckpointWriter;
+import com.vroute.orchest.Event;
+import com.vroute.orchest.EventLog;
+import com.vroute.orchest.Orchestrator;
+import com.vroute.orchest.SimulationStats;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.logging.Handler;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Runs a scenario at full speed: no UI and no sleep between ticks. The
+ * result is the orchestrator's {@link SimulationStats} with order outcomes
+ * filled in and wall time split into simulation, planning and I/O.
+ *
+ * With {@code scenario.checkpointEveryHours} set, the run writes a checkpoint
+ * at each interval; {@code --resume} continues a run from one of them. With
+ * {@code scenario.eventLog} set, a single run also records an
+ * {@link EventLog} that {@link LogReplayer} replays without the solver.
+ *
+ * Usage: {@code HeadlessRunner <scenario.properties>... [--out <dir>] [--verbose] [--resume <checkpoint>]}
+ */
+public class HeadlessRunner {
+    private static final Logger logger = Logger.getLogger(HeadlessRunner.class.getName());
+
+    private static final DateTimeFormatter CHECKPOINT_TIME = DateTimeFormatter.ofPattern("yyyyMMdd'T'HHmm");
+
+    private final ScenarioDefinition scenario;
+    private final ScenarioData data;
+    private final AlgorithmConfig config;
+    private final long seed;
+    private LocalDateTime collapseTime;
+
+    /**
+     * Runs {@code scenario} once with its configured seed; the data files are
+     * read by {@link #run()}.
+     */
+    public HeadlessRunner(ScenarioDefinition scenario) {
+        this.scenario = scenario;
+        this.data = null;
+        this.config = scenario.getConfig();
+        this.seed = config.getRandomSeed();
+    }
+
+    /**
+     * One run of a sweep: shares the already parsed {@code data} and uses
+     * {@code seed} for the solver, the order sample and the incidents.
+     */
+    public HeadlessRunner(ScenarioData data, long seed) {
+        this.scenario = data.getScenario();
+        this.data = data;
+        this.config = scenario.getConfig().copy();
+        this.config.setRandomSeed(seed);
+        this.seed = seed;
+    }
+
+    public static void main(String[] args) {
+        List<Path> scenarioFiles = new ArrayList<>();
+        Path outputDirectory = Paths.get("reports");
+        boolean verbose = false;
+        Path resumeFrom = null;
+        for (int i = 0; i < args.length; i++) {
+            if (args[i].equals("--out") && i + 1 < args.length) {
+                outputDirectory = Paths.get(args[++i]);
+            } else if (args[i].equals("--resume") && i + 1 < args.length) {
+                resumeFrom = Paths.get(args[++i]);
+            } else if (args[i].equals("--verbose")) {
+                verbose = true;
+            } else {
+                scenarioFiles.add(Paths.get(args[i]));
+            }
+        }
+        if (scenarioFiles.isEmpty() || (resumeFrom != null && scenarioFiles.size() != 1)) {
+            System.err.println("Usage: HeadlessRunner <scenario.properties>... [--out <dir>] [--verbose] "
+                    + "[--resume <checkpoint>]");
+            System.err.println("--resume takes the scenario the checkpoint was written from");
+            System.exit(1);
+        }
+        if (!verbose) {
+            // The orchestrator logs every plan at INFO, which dominates a headless run
+            setRootLogLevel(Level.WARNING);
+        }
+
+        int failures = 0;
+        for (Path file : scenarioFiles) {
+            try {
+                ScenarioDefinition scenario = ScenarioLoader.load(file);
+                HeadlessRunner runner = new HeadlessRunner(scenario);
+                SimulationStats stats = resumeFrom != null ? runner.resume(resumeFrom) : runner.run();
+                Path report = runner.writeReport(stats, outputDirectory);
+                System.out.println(runner.formatReport(stats));
+                System.out.println("Report written to " + report);
+            } catch (IOException | RuntimeException e) {
+                failures++;
+                logger.log(Level.SEVERE, "Scenario " + file + " failed", e);
+            }
+        }
+        if (failures > 0) {
+            System.exit(2);
+        }
+    }
+
+    /**
+     * Loads the scenario data and runs it to its end, or to the first overdue
+     * order for a {@link ScenarioDefinition.Kind#COLLAPSE} scenario.
+     */
+    public SimulationStats run() throws IOException {
+        long runStart = System.nanoTime();
+        ScenarioData runData = data != null ? data : ScenarioData.load(scenario);
+        Environment environment = ScenarioLoader.createEnvironment(scenario);
+        List<Event> events = runData.createEvents(environment, seed);
+        long loadNanos = System.nanoTime() - runStart;
+        logger.info("Loaded " + events.size() + " events for " + scenario + " in " + loadNanos / 1_000_000 + " ms");
+
+        Orchestrator orchestrator = new Orchestrator(environment);
+        orchestrator.setConfig(config);
+        orchestrator.setTicksPerReplan(scenario.getTicksPerReplan());
+        orchestrator.addEvents(events);
+        orchestrator.initialize();
+        orchestrator.prepareSimulation();
+
+        SimulationStats stats = orchestrator.getStats();
+        stats.addIoWallNanos(loadNanos);
+        stats.startSimulation(scenario.getStart());
+        return simulate(orchestrator, runStart);
+    }
+
+    /**
+     * Continues a run of this scenario from a checkpoint it wrote. The
+     * configuration, seeds and pending events come from the checkpoint, so
+     * the rest of the run is the same as in the original process.
+     */
+    public SimulationStats resume(Path checkpoint) throws IOException {
+        long runStart = System.nanoTime();
+        Orchestrator orchestrator = CheckpointCodec.read(checkpoint);
+        orchestrator.getStats().addIoWallNanos(System.nanoTime() - runStart);
+        logger.info("Resuming " + scenario.getName() + " at " + orchestrator.getSimulationTime() + " from "
+                + checkpoint);
+        return simulate(orchestrator, runStart);
+    }
+
+    private SimulationStats simulate(Orchestrator orchestrator, long runStart) throws IOException {
+        Environment environment = orchestrator.getEnvironment();
+        SimulationStats stats = orchestrator.getStats();
+        LocalDateTime end = scenario.getEnd();
+        boolean collapseMode = scenario.getKind() == ScenarioDefinition.Kind.COLLAPSE;
+        int checkpointHours = scenario.getCheckpointEveryHours();
+        LocalDateTime nextCheckpoint = checkpointHours > 0
+                ? nextCheckpointAfter(orchestrator.getSimulationTime(), checkpointHours) : null;
+
+        // Sweep replicas share the scenario, so only a single run records the log
+        Path eventLogFile = data == null ? scenario.getEventLogFile() : null;
+        try (CheckpointWriter checkpoints = new CheckpointWriter();
+                EventLog eventLog = eventLogFile != null
+                        ? new EventLog(eventLogFile, scenario.getEventLogKeyframeTicks()) : null) {
+            orchestrator.setEventLog(eventLog);
+            boolean running = true;
+            while (running && orchestrator.getSimulationTime().isBefore(end)) {
+                running = scenario.isEventDriven() ? orchestrator.advanceToNextEvent() : orchestrator.advanceTick();
+                if (collapseMode && !environment.getOverdueOrders().isEmpty()) {
+                    collapseTime = environment.getCurrentTime();
+                    logger.info("Scenario " + scenario.getName() + " collapsed at " + collapseTime);
+                    break;
+                }
+                LocalDateTime now = orchestrator.getSimulationTime();
+                if (nextCheckpoint != null && !now.isBefore(nextCheckpoint) && now.isBefore(end)) {
+                    checkpoints.submit(orchestrator, scenario.getCheckpointDirectory()
+                            .resolve(scenario.getName() + "-" + now.format(CHECKPOINT_TIME) + ".ckpt"));
+                    nextCheckpoint = nextCheckpointAfter(now, checkpointHours);
+                }
+            }
+            orchestrator.setEventLog(null);
+            if (eventLog != null) {
+                logger.info("Event log of " + eventLog.getTicks() + " ticks written to " + eventLogFile);
+            }
+        }
+
+        stats.endSimulation(orchestrator.getSimulationTime());
+        for (Vehicle vehicle : environment.getVehicles()) {
+            stats.recordVehicleOperation(vehicle.getId(), vehicle.getDistanceTraveledKm(), vehicle.getFuelBurnedGal(),
+                    Duration.ZERO);
+        }
+        stats.setRealExecutionTimeMillis((System.nanoTime() - runStart) / 1_000_000);
+        return stats;
+    }
+
+    /** First multiple of {@code hours} after the scenario start that is later than {@code time}. */
+    private LocalDateTime nextCheckpointAfter(LocalDateTime time, int hours) {
+        long elapsedHours = Duration.between(scenario.getStart(), time).toHours();
+        return scenario.getStart().plusHours((elapsedHours / hours + 1) * hours);
+    }
+
+    /** First instant an order was overdue, or null if the scenario did not collapse. */
+    public LocalDateTime getCollapseTime() {
+        return collapseTime;
+    }
+
+    public String formatReport(SimulationStats stats) {
+        StringBuilder sb = new StringBuilder();
+        sb.append("Scenario: ").append(scenario).append('\n');
+        sb.append("Advance: ").append(scenario.isEventDriven() ? "event-driven" : "every step")
+                .append(", seed: ").append(seed)
+                .append(", solver: ").append(config.toSolverParameters()).append('\n');
+        if (scenario.getKind() == ScenarioDefinition.Kind.COLLAPSE) {
+            sb.append("Collapse: ").append(collapseTime != null ? collapseTime : "none before " + scenario.getEnd())
+                    .append('\n');
+        }
+        sb.append(stats);
+        return sb.toString();
+    }
+
+    /** Writes {@code <name>-report.txt} into {@code directory}. */
+    public Path writeReport(SimulationStats stats, Path directory) throws IOException {
+        Files.createDirectories(directory);
+        Path file = directory.resolve(scenario.getName() + "-report.txt");
+        Files.write(file, formatReport(stats).getBytes(StandardCharsets.UTF_8));
+        return file;
+    }
+
+    static void setRootLogLevel(Level level) {
+        Logger root = Logger.getLogger("");
+        root.setLevel(level);
+        for (Handler handler : root.getHandlers()) {
+            handler.setLevel(level);
+        }
+    }
+}
@@ -0,0 +1,99 @@
+package com.vroute.batch;
+
+import com.vroute.models.Environment;
+import com.vroute.models.Vehicle;
+import com.vroute.orchest.CheckpointCodec;
+import com.vroute.orchest.EventLogReplay;
+import com.vroute.orchest.Orchestrator;
+import com.vroute.orchest.SimulationStats;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.logging.Level;
+
+/**
+ * Replays a recorded run to a tick or a simulated time and reports the state
+ * there; with {@code --checkpoint} the state is also saved, so
+ * {@code HeadlessRunner --resume} can continue it with the solver.
+ *
+ * Usage: {@code LogReplayer <log> [--tick n | --time yyyy-MM-ddTHH:mm] [--checkpoint <file>] [--verbose]}
+ */
+public class LogReplayer {
+
+    public static void main(String[] args) {
+        if (args.length < 1) {
+            System.err.println("Usage: LogReplayer <log> [--tick n | --time yyyy-MM-ddTHH:mm] "
+                    + "[--checkpoint <file>] [--verbose]");
+            System.exit(1);
+        }
+        Path logFile = Paths.get(args[0]);
+        long tick = -1;
+        LocalDateTime time = null;
+        Path checkpoint = null;
+        boolean verbose = false;
+        try {
+            for (int i = 1; i < args.length; i++) {
+                if (args[i].equals("--tick") && i + 1 < args.length) {
+                    tick = Long.parseLong(args[++i]);
+                } else if (args[i].equals("--time") && i + 1 < args.length) {
+                    time = LocalDateTime.parse(args[++i]);
+                } else if (args[i].equals("--checkpoint") && i + 1 < args.length) {
+                    checkpoint = Paths.get(args[++i]);
+                } else if (args[i].equals("--verbose")) {
+                    verbose = true;
+                } else {
+                    throw new IllegalArgumentException("Unknown option " + args[i]);
+                }
+            }
+        } catch (DateTimeParseException | IllegalArgumentException e) {
+            System.err.println(e.getMessage());
+            System.exit(1);
+        }
+        if (!verbose) {
+            HeadlessRunner.setRootLogLevel(Level.WARNING);
+        }
+
+        try (EventLogReplay replay = new EventLogReplay(logFile)) {
+            long start = System.nanoTime();
+            if (time != null) {
+                replay.seekTime(time);
+            } else {
+                replay.seek(tick >= 0 ? tick : replay.getTickCount());
+            }
+            long replayNanos = System.nanoTime() - start;
+
+            Orchestrator orchestrator = replay.getOrchestrator();
+            if (checkpoint != null) {
+                CheckpointCodec.write(CheckpointCodec.encode(orchestrator), checkpoint);
+            }
+            System.out.println(formatReport(replay, replayNanos));
+            if (checkpoint != null) {
+                System.out.println("Checkpoint written to " + checkpoint);
+            }
+        } catch (IOException | RuntimeException e) {
+            System.err.println("Replay of " + logFile + " failed: " + e);
+            System.exit(2);
+        }
+    }
+
+    private static String formatReport(EventLogReplay replay, long replayNanos) {
+        Orchestrator orchestrator = replay.getOrchestrator();
+        Environment environment = orchestrator.getEnvironment();
+        // Same totals HeadlessRunner adds at the end of a run; added after the checkpoint is written
+        SimulationStats stats = orchestrator.getStats();
+        stats.endSimulation(orchestrator.getSimulationTime());
+        for (Vehicle vehicle : environment.getVehicles()) {
+            stats.recordVehicleOperation(vehicle.getId(), vehicle.getDistanceTraveledKm(), vehicle.getFuelBurnedGal(),
+                    Duration.ZERO);
+        }
+        StringBuilder sb = new StringBuilder();
+        sb.append(String.format("Replayed to tick %d of %d (%s) in %.1f ms%n", replay.getTick(),
+                replay.getTickCount(), orchestrator.getSimulationTime(), replayNanos / 1e6));
+        sb.append(stats);
+        return sb.toString();
+    }
+}
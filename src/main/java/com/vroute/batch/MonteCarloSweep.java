@@ -0,0 +1,121 @@
+package com.vroute.batch;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.logging.Handler;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Runs many replicas of a scenario in parallel to compare configurations
+ * under stochastic inputs. Each replica gets its own seed, environment and
+ * orchestrator; the parsed data files ({@link ScenarioData}) are loaded once
+ * and shared read-only.
+ *
+ * The seed of replica {@code i} depends only on the base seed and {@code i},
+ * so a sweep is reproducible regardless of the number of threads.
+ *
+ * Usage: {@code MonteCarloSweep <replicas> <scenario.properties>... [--threads n] [--seed s]}
+ */
+public class MonteCarloSweep {
+    private static final Logger logger = Logger.getLogger(MonteCarloSweep.class.getName());
+
+    private final ScenarioData data;
+    private final int threads;
+
+    public MonteCarloSweep(ScenarioData data, int threads) {
+        this.data = data;
+        this.threads = Math.max(1, threads);
+    }
+
+    public static void main(String[] args) throws IOException {
+        if (args.length < 2) {
+            System.err.println("Usage: MonteCarloSweep <replicas> <scenario.properties>... [--threads n] [--seed s]");
+            System.exit(1);
+        }
+        int replicas = Integer.parseInt(args[0]);
+        int threads = Runtime.getRuntime().availableProcessors();
+        long seed = 20250101L;
+        List<Path> scenarioFiles = new ArrayList<>();
+        for (int i = 1; i < args.length; i++) {
+            if (args[i].equals("--threads") && i + 1 < args.length) {
+                threads = Integer.parseInt(args[++i]);
+            } else if (args[i].equals("--seed") && i + 1 < args.length) {
+                seed = Long.parseLong(args[++i]);
+            } else {
+                scenarioFiles.add(Paths.get(args[i]));
+            }
+        }
+
+        Logger root = Logger.getLogger("");
+        root.setLevel(Level.WARNING);
+        for (Handler handler : root.getHandlers()) {
+            handler.setLevel(Level.WARNING);
+        }
+
+        // Same seeds for every scenario, so configurations are compared on the same incidents and samples
+        for (Path file : scenarioFiles) {
+            ScenarioData data = ScenarioData.load(ScenarioLoader.load(file));
+            SweepResult result = new MonteCarloSweep(data, threads).run(replicas, seed);
+            System.out.print(result);
+        }
+    }
+
+    /**
+     * Seeds of the first {@code replicas} runs of a sweep; shared with
+     * {@link SweepCoordinator} so both modes run the same replicas.
+     */
+    static long[] replicaSeeds(long baseSeed, int replicas) {
+        long[] seeds = new long[replicas];
+        SplittableRandom random = new SplittableRandom(baseSeed);
+        for (int i = 0; i < replicas; i++) {
+            seeds[i] = random.nextLong();
+        }
+        return seeds;
+    }
+
+    public SweepResult run(int replicas, long baseSeed) {
+        long[] seeds = replicaSeeds(baseSeed, replicas);
+
+        long start = System.nanoTime();
+        ExecutorService executor = Executors.newFixedThreadPool(Math.min(threads, Math.max(1, replicas)),
+                runnable -> {
+                    Thread thread = new Thread(runnable, "sweep-worker");
+                    thread.setDaemon(true);
+                    return thread;
+                });
+        List<ReplicaResult> results = new ArrayList<>(replicas);
+        try {
+            List<Future<ReplicaResult>> futures = new ArrayList<>(replicas);
+            for (long seed : seeds) {
+                futures.add(executor.submit(() -> runReplica(seed)));
+            }
+            for (Future<ReplicaResult> future : futures) {
+                results.add(future.get());
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Sweep interrupted", e);
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("Sweep replica failed", e.getCause());
+        } finally {
+            executor.shutdownNow();
+        }
+        return new SweepResult(data.getScenario(), results, (System.nanoTime() - start) / 1_000_000);
+    }
+
+    private ReplicaResult runReplica(long seed) throws IOException {
+        HeadlessRunner runner = new HeadlessRunner(data, seed);
+        ReplicaResult result = new ReplicaResult(seed, runner.run(), runner.getCollapseTime());
+        logger.info("Replica finished: " + result);
+        return result;
+    }
+}
@@ -0,0 +1,86 @@
+package com.vroute.batch;
+
+import com.vroute.orchest.SimulationStats;
+
+import java.time.LocalDateTime;
+
+/**
+ * Outcome of one run of a {@link MonteCarloSweep}.
+ */
+public final class ReplicaResult {
+    private final long seed;
+    private final int totalOrders;
+    private final int deliveredOrders;
+    private final int lateDeliveries;
+    private final double distanceKm;
+    private final double fuelGal;
+    private final LocalDateTime collapseTime;
+    private final long wallMillis;
+
+    ReplicaResult(long seed, SimulationStats stats, LocalDateTime collapseTime) {
+        this(seed, stats.getTotalOrders(), stats.getDeliveredOrders(), stats.getLateDeliveries(),
+                stats.getTotalDistanceTraveled(), stats.getTotalFuelConsumed(), collapseTime,
+                stats.getRealExecutionTimeMillis());
+    }
+
+    ReplicaResult(long seed, int totalOrders, int deliveredOrders, int lateDeliveries, double distanceKm,
+            double fuelGal, LocalDateTime collapseTime, long wallMillis) {
+        this.seed = seed;
+        this.totalOrders = totalOrders;
+        this.deliveredOrders = deliveredOrders;
+        this.lateDeliveries = lateDeliveries;
+        this.distanceKm = distanceKm;
+        this.fuelGal = fuelGal;
+        this.collapseTime = collapseTime;
+        this.wallMillis = wallMillis;
+    }
+
+    public long getSeed() {
+        return seed;
+    }
+
+    public int getTotalOrders() {
+        return totalOrders;
+    }
+
+    public int getDeliveredOrders() {
+        return deliveredOrders;
+    }
+
+    public int getLateDeliveries() {
+        return lateDeliveries;
+    }
+
+    /**
+     * Orders delivered on time over all orders that arrived, so undelivered
+     * orders count against the run (unlike
+     * {@link SimulationStats#getOnTimeDeliveryRate()}).
+     */
+    public double getOnTimeRate() {
+        return totalOrders > 0 ? (deliveredOrders - lateDeliveries) / (double) totalOrders : 0.0;
+    }
+
+    public double getDistanceKm() {
+        return distanceKm;
+    }
+
+    public double getFuelGal() {
+        return fuelGal;
+    }
+
+    /** Null if the run did not collapse or was not a collapse scenario. */
+    public LocalDateTime getCollapseTime() {
+        return collapseTime;
+    }
+
+    public long getWallMillis() {
+        return wallMillis;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("seed=%d, on-time=%.3f (%d/%d, %d late), distance=%.1f km, fuel=%.1f gal%s, wall=%d ms",
+                seed, getOnTimeRate(), deliveredOrders - lateDeliveries, totalOrders, lateDeliveries, distanceKm,
+                fuelGal, collapseTime != null ? ", collapse=" + collapseTime : "", wallMillis);
+    }
+}
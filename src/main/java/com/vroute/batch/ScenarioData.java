@@ -0,0 +1,132 @@
+package com.vroute.batch;
+
+import com.vroute.models.Blockage;
+import com.vroute.models.Environment;
+import com.vroute.models.Incident;
+import com.vroute.models.Maintenance;
+import com.vroute.models.Order;
+import com.vroute.models.Shift;
+import com.vroute.orchest.DataReader;
+import com.vroute.orchest.Event;
+import com.vroute.orchest.EventType;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.SplittableRandom;
+
+/**
+ * Parsed data files of a scenario, loaded once and shared read-only by every
+ * run of a sweep. Blockages (with their precomputed blocked cells) are
+ * immutable and shared as they are; orders, maintenance tasks and incidents
+ * carry run state, so {@link #createEvents} gives each run its own copies.
+ */
+public final class ScenarioData {
+    private final ScenarioDefinition scenario;
+    private final List<Order> orders;
+    private final List<Blockage> blockages;
+    private final List<Maintenance> maintenanceTasks;
+    private final List<Incident> incidentTemplates;
+
+    private ScenarioData(ScenarioDefinition scenario, List<Order> orders, List<Blockage> blockages,
+            List<Maintenance> maintenanceTasks, List<Incident> incidentTemplates) {
+        this.scenario = scenario;
+        this.orders = Collections.unmodifiableList(orders);
+        this.blockages = Collections.unmodifiableList(blockages);
+        this.maintenanceTasks = Collections.unmodifiableList(maintenanceTasks);
+        this.incidentTemplates = Collections.unmodifiableList(incidentTemplates);
+    }
+
+    public static ScenarioData load(ScenarioDefinition scenario) throws IOException {
+        DataReader reader = new DataReader();
+        LocalDateTime start = scenario.getStart();
+        int hours = scenario.getDays() * 24;
+
+        List<Order> orders = reader.loadOrders(existing(scenario.getOrdersFile()), start, hours, 0);
+        List<Blockage> blockages = scenario.getBlockagesFile() == null ? new ArrayList<>()
+                : reader.loadBlockages(existing(scenario.getBlockagesFile()), start, hours, 0);
+        List<Maintenance> maintenance = scenario.getMaintenanceFile() == null ? new ArrayList<>()
+                : reader.loadMaintenanceSchedule(existing(scenario.getMaintenanceFile()), start, scenario.getDays(), 0);
+        List<Incident> incidents = scenario.getIncidentsFile() == null ? new ArrayList<>()
+                : reader.loadIncidents(existing(scenario.getIncidentsFile()), 0);
+        return new ScenarioData(scenario, orders, blockages, maintenance, incidents);
+    }
+
+    public ScenarioDefinition getScenario() {
+        return scenario;
+    }
+
+    public int getOrderCount() {
+        return orders.size();
+    }
+
+    /**
+     * Events of one run: order arrivals, blockage and maintenance start/end,
+     * and vehicle breakdowns. Blockages and the sampled incidents are also
+     * added to {@code environment}, as the interactive launchers do.
+     *
+     * {@code seed} drives the random parts: the order sample (see
+     * {@link ScenarioDefinition#getOrderSampleRate()}) and, for each line of
+     * the incidents file, the day of the window and the minute of its shift
+     * at which the breakdown happens.
+     */
+    public List<Event> createEvents(Environment environment, long seed) {
+        SplittableRandom random = new SplittableRandom(seed);
+        List<Event> events = new ArrayList<>();
+
+        double sampleRate = scenario.getOrderSampleRate();
+        for (Order template : orders) {
+            if (sampleRate < 1.0 && random.nextDouble() >= sampleRate) {
+                continue;
+            }
+            Order order = template.clone();
+            events.add(new Event(EventType.ORDER_ARRIVAL, order.getArriveTime(), order.getId(), order));
+        }
+
+        for (Blockage blockage : blockages) {
+            String blockageId = "BLK-" + blockage.getStartTime().toLocalDate() + "-"
+                    + blockage.getStartTime().getHour() + "-" + blockage.getStartTime().getMinute();
+            events.add(new Event(EventType.BLOCKAGE_START, blockage.getStartTime(), blockageId, blockage));
+            events.add(new Event(EventType.BLOCKAGE_END, blockage.getEndTime(), blockageId, null));
+        }
+        environment.addBlockages(blockages);
+
+        for (Maintenance template : maintenanceTasks) {
+            Maintenance task = new Maintenance(template.getVehicleId(), template.getStartTime(),
+                    template.getEndTime(), template.getRepeatMonths());
+            events.add(new Event(EventType.MAINTENANCE_START, task.getStartTime(), task.getVehicleId(), task));
+            events.add(new Event(EventType.MAINTENANCE_END, task.getEndTime(), task.getVehicleId(), null));
+        }
+
+        LocalDateTime end = scenario.getEnd();
+        for (Incident template : incidentTemplates) {
+            Shift shift = template.getShift();
+            long shiftMinutes = Duration.between(shift.getStartTime(), shift.getEndTime()).toMinutes() + 1;
+            LocalDateTime occurrence = scenario.getStart().toLocalDate()
+                    .plusDays(random.nextInt(scenario.getDays()))
+                    .atTime(shift.getStartTime())
+                    .plusMinutes(random.nextLong(shiftMinutes));
+            if (occurrence.isBefore(scenario.getStart()) || !occurrence.isBefore(end)) {
+                continue;
+            }
+            Incident incident = new Incident(template.getVehicleId(), template.getType(), shift);
+            incident.setOccurrenceTime(occurrence);
+            environment.addIncident(incident);
+            events.add(new Event(EventType.VEHICLE_BREAKDOWN, occurrence, incident.getVehicleId(), incident));
+        }
+        return events;
+    }
+
+    // DataReader only logs unreadable files; a batch run should not silently run without its data
+    private static String existing(Path file) throws IOException {
+        if (!Files.isReadable(file)) {
+            throw new IOException("Scenario data file not found: " + file);
+        }
+        return file.toString();
+    }
+}
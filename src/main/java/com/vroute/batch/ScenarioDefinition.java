@@ -0,0 +1,201 @@
+package com.vroute.batch;
+
+import com.vroute.orchest.AlgorithmConfig;
+import com.vroute.orchest.EventLog;
+
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+
+/**
+ * A simulation scenario for headless runs: time window, data files and the
+ * algorithm configuration. Usually read with {@link ScenarioLoader#load}.
+ */
+public class ScenarioDefinition {
+
+    public enum Kind {
+        /** Run the whole window and report. */
+        WEEKLY,
+        /** Stop at the first pending order that misses its due time. */
+        COLLAPSE
+    }
+
+    private final String name;
+    private final LocalDateTime start;
+    private final int days;
+    private Kind kind;
+    private Path ordersFile;
+    private Path blockagesFile;
+    private Path maintenanceFile;
+    private Path incidentsFile;
+    private double orderSampleRate;
+    private AlgorithmConfig config;
+    private int ticksPerReplan;
+    private boolean eventDriven;
+    private int checkpointEveryHours;
+    private Path checkpointDirectory;
+    private Path eventLogFile;
+    private int eventLogKeyframeTicks = EventLog.DEFAULT_KEYFRAME_INTERVAL;
+
+    public ScenarioDefinition(String name, LocalDateTime start, int days) {
+        if (days <= 0) {
+            throw new IllegalArgumentException("Scenario must cover at least one day: " + days);
+        }
+        this.name = name;
+        this.kind = Kind.WEEKLY;
+        this.start = start;
+        this.days = days;
+        this.config = AlgorithmConfig.createDefault();
+        this.config.setSimulationMaxDays(days);
+        this.ticksPerReplan = 60;
+        this.eventDriven = true;
+        this.orderSampleRate = 1.0;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public Kind getKind() {
+        return kind;
+    }
+
+    public void setKind(Kind kind) {
+        this.kind = kind;
+    }
+
+    public LocalDateTime getStart() {
+        return start;
+    }
+
+    public LocalDateTime getEnd() {
+        return start.plusDays(days);
+    }
+
+    public int getDays() {
+        return days;
+    }
+
+    public Path getOrdersFile() {
+        return ordersFile;
+    }
+
+    public void setOrdersFile(Path ordersFile) {
+        this.ordersFile = ordersFile;
+    }
+
+    /** May be null: no blockages. */
+    public Path getBlockagesFile() {
+        return blockagesFile;
+    }
+
+    public void setBlockagesFile(Path blockagesFile) {
+        this.blockagesFile = blockagesFile;
+    }
+
+    /** May be null: no preventive maintenance. */
+    public Path getMaintenanceFile() {
+        return maintenanceFile;
+    }
+
+    public void setMaintenanceFile(Path maintenanceFile) {
+        this.maintenanceFile = maintenanceFile;
+    }
+
+    /** May be null: no vehicle incidents. */
+    public Path getIncidentsFile() {
+        return incidentsFile;
+    }
+
+    public void setIncidentsFile(Path incidentsFile) {
+        this.incidentsFile = incidentsFile;
+    }
+
+    /**
+     * Probability with which each order of the window is kept in a run; below
+     * 1 every seed sees a different sample of the demand.
+     */
+    public double getOrderSampleRate() {
+        return orderSampleRate;
+    }
+
+    public void setOrderSampleRate(double orderSampleRate) {
+        if (orderSampleRate <= 0 || orderSampleRate > 1) {
+            throw new IllegalArgumentException("Order sample rate must be in (0, 1]: " + orderSampleRate);
+        }
+        this.orderSampleRate = orderSampleRate;
+    }
+
+    public AlgorithmConfig getConfig() {
+        return config;
+    }
+
+    public void setConfig(AlgorithmConfig config) {
+        this.config = config;
+    }
+
+    public int getTicksPerReplan() {
+        return ticksPerReplan;
+    }
+
+    public void setTicksPerReplan(int ticksPerReplan) {
+        this.ticksPerReplan = ticksPerReplan;
+    }
+
+    /**
+     * True to advance with {@code Orchestrator.advanceToNextEvent}, false to
+     * process every simulation step.
+     */
+    public boolean isEventDriven() {
+        return eventDriven;
+    }
+
+    public void setEventDriven(boolean eventDriven) {
+        this.eventDriven = eventDriven;
+    }
+
+    /** Simulated hours between checkpoints written by the headless runner; 0 disables them. */
+    public int getCheckpointEveryHours() {
+        return checkpointEveryHours;
+    }
+
+    public void setCheckpointEveryHours(int checkpointEveryHours) {
+        if (checkpointEveryHours < 0) {
+            throw new IllegalArgumentException("Checkpoint interval must not be negative: " + checkpointEveryHours);
+        }
+        this.checkpointEveryHours = checkpointEveryHours;
+    }
+
+    public Path getCheckpointDirectory() {
+        return checkpointDirectory;
+    }
+
+    public void setCheckpointDirectory(Path checkpointDirectory) {
+        this.checkpointDirectory = checkpointDirectory;
+    }
+
+    /** Event log written by the headless runner for later replay, or null for none. */
+    public Path getEventLogFile() {
+        return eventLogFile;
+    }
+
+    public void setEventLogFile(Path eventLogFile) {
+        this.eventLogFile = eventLogFile;
+    }
+
+    /** Ticks between the event log's keyframes. */
+    public int getEventLogKeyframeTicks() {
+        return eventLogKeyframeTicks;
+    }
+
+    public void setEventLogKeyframeTicks(int eventLogKeyframeTicks) {
+        if (eventLogKeyframeTicks <= 0) {
+            throw new IllegalArgumentException("Keyframe interval must be positive: " + eventLogKeyframeTicks);
+        }
+        this.eventLogKeyframeTicks = eventLogKeyframeTicks;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%s [%s, %s + %d days, orders=%s]", name, kind, start, days, ordersFile);
+    }
+}
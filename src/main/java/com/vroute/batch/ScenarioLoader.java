@@ -0,0 +1,156 @@
+package com.vroute.batch;
+
+import com.vroute.models.Constants;
+import com.vroute.models.Depot;
+import com.vroute.models.Environment;
+import com.vroute.models.Vehicle;
+import com.vroute.orchest.AlgorithmConfig;
+import com.vroute.orchest.DataReader;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Properties;
+
+/**
+ * Reads scenario files and builds the starting environment for them; the
+ * data files are parsed by {@link ScenarioData}.
+ *
+ * A scenario file is a properties file; data paths are relative to it:
+ *
+ * <pre>
+ * scenario.name=week-2025-01
+ * scenario.kind=weekly            # or collapse
+ * scenario.start=2025-01-01T00:00
+ * scenario.days=7
+ * scenario.orders=data/pedidos.20250419/ventas202501.txt
+ * scenario.blockages=data/bloqueos.20250419/202501.bloqueos.txt
+ * scenario.maintenance=data/mantpreventivo.txt
+ * scenario.incidents=data/averias.txt
+ * scenario.orderSampleRate=1.0
+ * scenario.eventDriven=true
+ * scenario.ticksPerReplan=60
+ * scenario.checkpointEveryHours=24  # 0 = no checkpoints
+ * scenario.checkpointDir=checkpoints
+ * scenario.eventLog=logs/week.vrl  # replay with LogReplayer; unset = no log
+ * scenario.eventLogKeyframeTicks=500
+ * config.randomSeed=42
+ * config.simulationStepMinutes=1
+ * config.zoneDecompositionMinOrders=150
+ * config.localRepair=true
+ * config.orderInsertion=true
+ * solver.maxIterations=1500      # any key read by AlgorithmConfig.loadSolverParameters
+ * </pre>
+ */
+public final class ScenarioLoader {
+    public static final String KEY_NAME = "scenario.name";
+    public static final String KEY_KIND = "scenario.kind";
+    public static final String KEY_START = "scenario.start";
+    public static final String KEY_DAYS = "scenario.days";
+    public static final String KEY_ORDERS = "scenario.orders";
+    public static final String KEY_BLOCKAGES = "scenario.blockages";
+    public static final String KEY_MAINTENANCE = "scenario.maintenance";
+    public static final String KEY_INCIDENTS = "scenario.incidents";
+    public static final String KEY_ORDER_SAMPLE_RATE = "scenario.orderSampleRate";
+    public static final String KEY_EVENT_DRIVEN = "scenario.eventDriven";
+    public static final String KEY_TICKS_PER_REPLAN = "scenario.ticksPerReplan";
+    public static final String KEY_CHECKPOINT_EVERY_HOURS = "scenario.checkpointEveryHours";
+    public static final String KEY_CHECKPOINT_DIR = "scenario.checkpointDir";
+    public static final String KEY_EVENT_LOG = "scenario.eventLog";
+    public static final String KEY_EVENT_LOG_KEYFRAME_TICKS = "scenario.eventLogKeyframeTicks";
+    public static final String KEY_RANDOM_SEED = "config.randomSeed";
+    public static final String KEY_STEP_MINUTES = "config.simulationStepMinutes";
+    public static final String KEY_ZONE_MIN_ORDERS = "config.zoneDecompositionMinOrders";
+    public static final String KEY_LOCAL_REPAIR = "config.localRepair";
+    public static final String KEY_ORDER_INSERTION = "config.orderInsertion";
+
+    private ScenarioLoader() {
+    }
+
+    public static ScenarioDefinition load(Path file) throws IOException {
+        Properties properties = new Properties();
+        try (Reader reader = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+            properties.load(reader);
+        }
+        Path baseDirectory = file.toAbsolutePath().getParent();
+
+        String defaultName = file.getFileName().toString().replaceFirst("\\.properties$", "");
+        ScenarioDefinition scenario;
+        try {
+            scenario = new ScenarioDefinition(properties.getProperty(KEY_NAME, defaultName).trim(),
+                    LocalDateTime.parse(required(properties, KEY_START, file)),
+                    Integer.parseInt(properties.getProperty(KEY_DAYS, "7").trim()));
+            scenario.setKind(ScenarioDefinition.Kind.valueOf(
+                    properties.getProperty(KEY_KIND, "weekly").trim().toUpperCase()));
+            scenario.setEventDriven(Boolean.parseBoolean(properties.getProperty(KEY_EVENT_DRIVEN, "true").trim()));
+            scenario.setTicksPerReplan(Integer.parseInt(properties.getProperty(KEY_TICKS_PER_REPLAN, "60").trim()));
+            scenario.setOrderSampleRate(Double.parseDouble(properties.getProperty(KEY_ORDER_SAMPLE_RATE, "1").trim()));
+            scenario.setCheckpointEveryHours(Integer.parseInt(
+                    properties.getProperty(KEY_CHECKPOINT_EVERY_HOURS, "0").trim()));
+            scenario.setEventLogKeyframeTicks(Integer.parseInt(properties.getProperty(KEY_EVENT_LOG_KEYFRAME_TICKS,
+                    String.valueOf(scenario.getEventLogKeyframeTicks())).trim()));
+
+            AlgorithmConfig config = scenario.getConfig();
+            config.setRandomSeed(Long.parseLong(properties.getProperty(KEY_RANDOM_SEED,
+                    String.valueOf(config.getRandomSeed())).trim()));
+            config.setSimulationStepMinutes(Integer.parseInt(properties.getProperty(KEY_STEP_MINUTES,
+                    String.valueOf(config.getSimulationStepMinutes())).trim()));
+            config.setZoneDecompositionMinOrders(Integer.parseInt(properties.getProperty(KEY_ZONE_MIN_ORDERS,
+                    String.valueOf(config.getZoneDecompositionMinOrders())).trim()));
+            config.setLocalRepairEnabled(Boolean.parseBoolean(properties.getProperty(KEY_LOCAL_REPAIR,
+                    String.valueOf(config.isLocalRepairEnabled())).trim()));
+            config.setOrderInsertionEnabled(Boolean.parseBoolean(properties.getProperty(KEY_ORDER_INSERTION,
+                    String.valueOf(config.isOrderInsertionEnabled())).trim()));
+        } catch (DateTimeParseException | IllegalArgumentException e) {
+            throw new IOException("Invalid scenario " + file + ": " + e.getMessage(), e);
+        }
+        scenario.getConfig().loadSolverParameters(properties, file.toString());
+
+        scenario.setOrdersFile(baseDirectory.resolve(required(properties, KEY_ORDERS, file)));
+        scenario.setBlockagesFile(optionalPath(properties, KEY_BLOCKAGES, baseDirectory));
+        scenario.setMaintenanceFile(optionalPath(properties, KEY_MAINTENANCE, baseDirectory));
+        scenario.setIncidentsFile(optionalPath(properties, KEY_INCIDENTS, baseDirectory));
+        scenario.setCheckpointDirectory(baseDirectory.resolve(
+                properties.getProperty(KEY_CHECKPOINT_DIR, "checkpoints").trim()));
+        scenario.setEventLogFile(optionalPath(properties, KEY_EVENT_LOG, baseDirectory));
+        return scenario;
+    }
+
+    /**
+     * Environment at the scenario start with the standard fleet and depots,
+     * all tanks full.
+     */
+    public static Environment createEnvironment(ScenarioDefinition scenario) {
+        Depot mainDepot = new Depot(Constants.MAIN_PLANT_ID, Constants.CENTRAL_STORAGE_LOCATION, 100000, true);
+        mainDepot.refillGLP();
+        List<Depot> auxDepots = new ArrayList<>();
+        Depot northDepot = new Depot("NORTH_DEPOT", Constants.NORTH_INTERMEDIATE_STORAGE_LOCATION, 160, true);
+        northDepot.refillGLP();
+        auxDepots.add(northDepot);
+        Depot eastDepot = new Depot("EAST_DEPOT", Constants.EAST_INTERMEDIATE_STORAGE_LOCATION, 160, true);
+        eastDepot.refillGLP();
+        auxDepots.add(eastDepot);
+
+        List<Vehicle> vehicles = new DataReader().loadVehicles(null);
+        return new Environment(vehicles, mainDepot, auxDepots, scenario.getStart());
+    }
+
+    private static String required(Properties properties, String key, Path file) throws IOException {
+        String value = properties.getProperty(key);
+        if (value == null || value.trim().isEmpty()) {
+            throw new IOException("Missing " + key + " in scenario " + file);
+        }
+        return value.trim();
+    }
+
+    private static Path optionalPath(Properties properties, String key, Path baseDirectory) {
+        String value = properties.getProperty(key);
+        return value == null || value.trim().isEmpty() ? null : baseDirectory.resolve(value.trim());
+    }
+}
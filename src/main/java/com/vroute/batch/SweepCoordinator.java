@@ -0,0 +1,383 @@
+package com.vroute.batch;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.net.SocketException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Handler;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Splits Monte Carlo sweeps across {@link SweepWorker} processes connected
+ * over TCP, so replicas are not bound by the heap and GC of a single JVM.
+ *
+ * Workers pull one replica at a time, so faster workers take more of the
+ * sweep. When nothing is left to hand out, an idle worker also runs a copy of
+ * the oldest replica still in progress and the first result wins; since a
+ * replica is fully determined by its seed both copies agree. A replica whose
+ * worker disconnects or stops answering within the task timeout goes back to
+ * the queue, up to {@link #MAX_ATTEMPTS} times.
+ *
+ * Replica seeds are the ones {@link MonteCarloSweep} uses, so a distributed
+ * sweep gives the same results as a local one.
+ *
+ * Usage: {@code SweepCoordinator <replicas> <scenario.properties>... [--port p]
+ * [--workers n] [--seed s] [--task-timeout-minutes m]}. {@code --workers}
+ * starts that many local worker JVMs; remote workers can join with
+ * {@code SweepWorker <host> <port>}.
+ */
+public class SweepCoordinator {
+    private static final Logger logger = Logger.getLogger(SweepCoordinator.class.getName());
+
+    public static final int MAX_ATTEMPTS = 3;
+
+    private final List<ScenarioDefinition> scenarios = new ArrayList<>();
+    private final List<Task> tasks = new ArrayList<>();
+    private final int replicas;
+
+    // Guards the queue and the state of every task
+    private final Object lock = new Object();
+    private final Deque<Task> pending = new ArrayDeque<>();
+    private int unresolved;
+    private int connectedWorkers;
+
+    private long taskTimeoutMillis = TimeUnit.MINUTES.toMillis(60);
+
+    public SweepCoordinator(List<Path> scenarioFiles, int replicas, long baseSeed) throws IOException {
+        this.replicas = replicas;
+        long[] seeds = MonteCarloSweep.replicaSeeds(baseSeed, replicas);
+        for (Path file : scenarioFiles) {
+            int scenarioIndex = scenarios.size();
+            // Loaded here only to fail early and to label the results
+            scenarios.add(ScenarioLoader.load(file));
+            String path = file.toAbsolutePath().normalize().toString();
+            for (long seed : seeds) {
+                tasks.add(new Task(tasks.size(), scenarioIndex, path, seed));
+            }
+        }
+        pending.addAll(tasks);
+        unresolved = tasks.size();
+    }
+
+    public void setTaskTimeoutMillis(long taskTimeoutMillis) {
+        this.taskTimeoutMillis = taskTimeoutMillis;
+    }
+
+    public static void main(String[] args) throws IOException {
+        if (args.length < 2) {
+            System.err.println("Usage: SweepCoordinator <replicas> <scenario.properties>... [--port p] "
+                    + "[--workers n] [--seed s] [--task-timeout-minutes m]");
+            System.exit(1);
+        }
+        int replicas = Integer.parseInt(args[0]);
+        int port = 0;
+        int localWorkers = Runtime.getRuntime().availableProcessors();
+        long seed = 20250101L;
+        long timeoutMinutes = 60;
+        List<Path> scenarioFiles = new ArrayList<>();
+        for (int i = 1; i < args.length; i++) {
+            if (args[i].equals("--port") && i + 1 < args.length) {
+                port = Integer.parseInt(args[++i]);
+            } else if (args[i].equals("--workers") && i + 1 < args.length) {
+                localWorkers = Integer.parseInt(args[++i]);
+            } else if (args[i].equals("--seed") && i + 1 < args.length) {
+                seed = Long.parseLong(args[++i]);
+            } else if (args[i].equals("--task-timeout-minutes") && i + 1 < args.length) {
+                timeoutMinutes = Long.parseLong(args[++i]);
+            } else {
+                scenarioFiles.add(Paths.get(args[i]));
+            }
+        }
+
+        Logger root = Logger.getLogger("");
+        root.setLevel(Level.INFO);
+        for (Handler handler : root.getHandlers()) {
+            handler.setLevel(Level.INFO);
+        }
+
+        SweepCoordinator coordinator = new SweepCoordinator(scenarioFiles, replicas, seed);
+        coordinator.setTaskTimeoutMillis(TimeUnit.MINUTES.toMillis(timeoutMinutes));
+        for (SweepResult result : coordinator.run(port, localWorkers)) {
+            System.out.print(result);
+        }
+    }
+
+    /**
+     * Listens on {@code port} (0 for any free port), starts
+     * {@code localWorkers} worker processes and waits until every replica
+     * has a result or has failed {@link #MAX_ATTEMPTS} times.
+     *
+     * @return One result per scenario, with the replicas that succeeded
+     */
+    public List<SweepResult> run(int port, int localWorkers) throws IOException {
+        long start = System.nanoTime();
+        List<Process> processes = new ArrayList<>();
+        try (ServerSocket server = new ServerSocket(port)) {
+            logger.info("Coordinator listening on port " + server.getLocalPort() + " with " + tasks.size()
+                    + " replicas to run");
+            Thread acceptor = new Thread(() -> accept(server), "sweep-acceptor");
+            acceptor.setDaemon(true);
+            acceptor.start();
+
+            for (int i = 0; i < localWorkers; i++) {
+                processes.add(startLocalWorker(server.getLocalPort(), i));
+            }
+            awaitCompletion(processes);
+        } finally {
+            for (Process process : processes) {
+                stopLocalWorker(process);
+            }
+        }
+        return collectResults((System.nanoTime() - start) / 1_000_000);
+    }
+
+    private void accept(ServerSocket server) {
+        while (!server.isClosed()) {
+            try {
+                Socket socket = server.accept();
+                Thread handler = new Thread(() -> serve(socket), "sweep-connection");
+                handler.setDaemon(true);
+                handler.start();
+            } catch (IOException e) {
+                if (!server.isClosed()) {
+                    logger.log(Level.WARNING, "Accepting a worker failed", e);
+                }
+            }
+        }
+    }
+
+    private void awaitCompletion(List<Process> processes) throws IOException {
+        synchronized (lock) {
+            while (unresolved > 0) {
+                // With only local workers, stop waiting once all of them are gone
+                if (!processes.isEmpty() && connectedWorkers == 0 && processes.stream().noneMatch(Process::isAlive)) {
+                    throw new IOException("All local workers exited with " + unresolved + " replicas unresolved");
+                }
+                try {
+                    lock.wait(1000);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new IOException("Interrupted while waiting for workers", e);
+                }
+            }
+        }
+    }
+
+    /** Talks to one worker until the sweep is done or the worker is lost. */
+    private void serve(Socket socket) {
+        String worker = String.valueOf(socket.getRemoteSocketAddress());
+        Task current = null;
+        boolean registered = false;
+        try (socket;
+                DataInputStream in = new DataInputStream(new BufferedInputStream(socket.getInputStream()));
+                DataOutputStream out = new DataOutputStream(new BufferedOutputStream(socket.getOutputStream()))) {
+            socket.setSoTimeout((int) Math.min(Integer.MAX_VALUE, taskTimeoutMillis));
+            if (in.readByte() != SweepProtocol.HELLO || in.readInt() != SweepProtocol.MAGIC) {
+                throw new IOException("Not a sweep worker");
+            }
+            int version = in.readInt();
+            if (version != SweepProtocol.VERSION) {
+                throw new IOException("Unsupported protocol version " + version);
+            }
+            worker = in.readUTF() + " (" + worker + ")";
+            registerWorker(1);
+            registered = true;
+            logger.info("Worker " + worker + " connected");
+
+            while (true) {
+                current = nextTask();
+                if (current == null) {
+                    out.writeByte(SweepProtocol.DONE);
+                    out.flush();
+                    return;
+                }
+                out.writeByte(SweepProtocol.TASK);
+                out.writeInt(current.id);
+                out.writeUTF(current.scenarioFile);
+                out.writeLong(current.seed);
+                out.flush();
+
+                byte code = in.readByte();
+                int taskId = in.readInt();
+                if (taskId != current.id) {
+                    throw new IOException("Answer for task " + taskId + " while running " + current.id);
+                }
+                if (code == SweepProtocol.RESULT) {
+                    complete(current, SweepProtocol.readResult(in));
+                } else if (code == SweepProtocol.FAILURE) {
+                    release(current, worker + " failed: " + in.readUTF());
+                } else {
+                    throw new IOException("Unexpected message " + code);
+                }
+                current = null;
+            }
+        } catch (IOException e) {
+            if (current != null) {
+                release(current, worker + " lost: " + e);
+            } else if (!(e instanceof SocketException)) {
+                logger.log(Level.WARNING, "Worker " + worker + " dropped", e);
+            }
+        } finally {
+            if (registered) {
+                registerWorker(-1);
+            }
+        }
+    }
+
+    private void registerWorker(int delta) {
+        synchronized (lock) {
+            connectedWorkers += delta;
+            lock.notifyAll();
+        }
+    }
+
+    /**
+     * Next replica for an idle worker: a queued one if any, otherwise a copy
+     * of the oldest one still running elsewhere. Blocks while every
+     * unresolved replica already has a copy running; {@code null} once the
+     * sweep is done.
+     */
+    private Task nextTask() throws IOException {
+        synchronized (lock) {
+            while (unresolved > 0) {
+                Task task = pending.poll();
+                if (task == null) {
+                    task = oldestUnduplicated();
+                    if (task != null) {
+                        task.duplicated = true;
+                        logger.info("Running a backup copy of replica " + task.seed);
+                    }
+                }
+                if (task != null) {
+                    task.running++;
+                    return task;
+                }
+                try {
+                    lock.wait();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new IOException("Interrupted while waiting for a task", e);
+                }
+            }
+            return null;
+        }
+    }
+
+    private Task oldestUnduplicated() {
+        for (Task task : tasks) {
+            if (task.running > 0 && !task.duplicated && !task.isResolved()) {
+                return task;
+            }
+        }
+        return null;
+    }
+
+    private void complete(Task task, ReplicaResult result) {
+        synchronized (lock) {
+            task.running--;
+            if (!task.isResolved()) {
+                task.result = result;
+                unresolved--;
+                logger.info("Replica finished (" + (tasks.size() - unresolved) + "/" + tasks.size() + "): "
+                        + result);
+            }
+            lock.notifyAll();
+        }
+    }
+
+    /** The worker running {@code task} gave it up; requeue it unless another copy is still running. */
+    private void release(Task task, String reason) {
+        synchronized (lock) {
+            task.running--;
+            if (!task.isResolved()) {
+                task.attempts++;
+                logger.warning("Replica " + task.seed + " of " + task.scenarioFile + " interrupted, " + reason);
+                if (task.running > 0) {
+                    logger.info("Backup copy of replica " + task.seed + " is still running");
+                } else if (task.attempts >= MAX_ATTEMPTS) {
+                    task.failed = true;
+                    unresolved--;
+                    logger.severe("Replica " + task.seed + " of " + task.scenarioFile + " failed "
+                            + task.attempts + " times, giving up");
+                } else {
+                    task.duplicated = false;
+                    pending.addFirst(task);
+                }
+            }
+            lock.notifyAll();
+        }
+    }
+
+    private List<SweepResult> collectResults(long wallMillis) {
+        List<SweepResult> results = new ArrayList<>(scenarios.size());
+        synchronized (lock) {
+            for (int s = 0; s < scenarios.size(); s++) {
+                List<ReplicaResult> replicaResults = new ArrayList<>(replicas);
+                for (Task task : tasks) {
+                    if (task.scenarioIndex == s && task.result != null) {
+                        replicaResults.add(task.result);
+                    }
+                }
+                results.add(new SweepResult(scenarios.get(s), replicaResults, wallMillis));
+            }
+        }
+        return results;
+    }
+
+    private Process startLocalWorker(int port, int index) throws IOException {
+        String java = ProcessHandle.current().info().command()
+                .orElse(Paths.get(System.getProperty("java.home"), "bin", "java").toString());
+        ProcessBuilder builder = new ProcessBuilder(java, "-cp", System.getProperty("java.class.path"),
+                SweepWorker.class.getName(), "localhost", String.valueOf(port), "--name", "local-" + index);
+        builder.redirectOutput(ProcessBuilder.Redirect.DISCARD);
+        builder.redirectError(ProcessBuilder.Redirect.INHERIT);
+        return builder.start();
+    }
+
+    private static void stopLocalWorker(Process process) {
+        try {
+            // Workers exit on DONE; only leftovers of an aborted sweep need killing
+            if (!process.waitFor(5, TimeUnit.SECONDS)) {
+                process.destroyForcibly();
+            }
+        } catch (InterruptedException e) {
+            process.destroyForcibly();
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static final class Task {
+        private final int id;
+        private final int scenarioIndex;
+        private final String scenarioFile;
+        private final long seed;
+        private int running;
+        private int attempts;
+        private boolean duplicated;
+        private boolean failed;
+        private ReplicaResult result;
+
+        private Task(int id, int scenarioIndex, String scenarioFile, long seed) {
+            this.id = id;
+            this.scenarioIndex = scenarioIndex;
+            this.scenarioFile = scenarioFile;
+            this.seed = seed;
+        }
+
+        private boolean isResolved() {
+            return result != null || failed;
+        }
+    }
+}
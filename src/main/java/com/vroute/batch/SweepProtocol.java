@@ -0,0 +1,66 @@
+package com.vroute.batch;
+
+import com.vroute.models.SimClock;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+
+/**
+ * Wire format between {@link SweepCoordinator} and {@link SweepWorker}: one
+ * message code byte followed by its fields, written with Data streams.
+ *
+ * <pre>
+ * worker      -> coordinator  HELLO   magic, version, worker name
+ * coordinator -> worker       TASK    task id, scenario file, seed
+ * worker      -> coordinator  RESULT  task id, replica result
+ * worker      -> coordinator  FAILURE task id, message
+ * coordinator -> worker       DONE
+ * </pre>
+ *
+ * A worker has at most one task in flight and asks for the next one by
+ * answering the current one.
+ */
+final class SweepProtocol {
+    static final int MAGIC = 0x56525357; // "VRSW"
+    static final int VERSION = 1;
+
+    static final byte HELLO = 1;
+    static final byte TASK = 2;
+    static final byte RESULT = 3;
+    static final byte FAILURE = 4;
+    static final byte DONE = 5;
+
+    private static final long NO_COLLAPSE = Long.MIN_VALUE;
+
+    private SweepProtocol() {
+    }
+
+    static void writeResult(DataOutputStream out, int taskId, ReplicaResult result) throws IOException {
+        out.writeByte(RESULT);
+        out.writeInt(taskId);
+        out.writeLong(result.getSeed());
+        out.writeInt(result.getTotalOrders());
+        out.writeInt(result.getDeliveredOrders());
+        out.writeInt(result.getLateDeliveries());
+        out.writeDouble(result.getDistanceKm());
+        out.writeDouble(result.getFuelGal());
+        out.writeLong(result.getCollapseTime() != null ? SimClock.toEpochSecond(result.getCollapseTime())
+                : NO_COLLAPSE);
+        out.writeLong(result.getWallMillis());
+    }
+
+    /** Reads the fields of a RESULT message after its code and task id. */
+    static ReplicaResult readResult(DataInputStream in) throws IOException {
+        long seed = in.readLong();
+        int totalOrders = in.readInt();
+        int delivered = in.readInt();
+        int late = in.readInt();
+        double distance = in.readDouble();
+        double fuel = in.readDouble();
+        long collapse = in.readLong();
+        long wallMillis = in.readLong();
+        return new ReplicaResult(seed, totalOrders, delivered, late, distance, fuel,
+                collapse != NO_COLLAPSE ? SimClock.fromEpochSecond(collapse) : null, wallMillis);
+    }
+}
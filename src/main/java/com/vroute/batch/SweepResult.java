@@ -0,0 +1,81 @@
+package com.vroute.batch;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Replica outcomes of a sweep and their confidence intervals.
+ */
+public final class SweepResult {
+    private final ScenarioDefinition scenario;
+    private final List<ReplicaResult> replicas;
+    private final long wallMillis;
+
+    SweepResult(ScenarioDefinition scenario, List<ReplicaResult> replicas, long wallMillis) {
+        this.scenario = scenario;
+        this.replicas = Collections.unmodifiableList(replicas);
+        this.wallMillis = wallMillis;
+    }
+
+    public ScenarioDefinition getScenario() {
+        return scenario;
+    }
+
+    public List<ReplicaResult> getReplicas() {
+        return replicas;
+    }
+
+    public ConfidenceInterval getOnTimeRate() {
+        double[] values = new double[replicas.size()];
+        for (int i = 0; i < values.length; i++) {
+            values[i] = replicas.get(i).getOnTimeRate();
+        }
+        return ConfidenceInterval.of(values);
+    }
+
+    public ConfidenceInterval getFuelGal() {
+        double[] values = new double[replicas.size()];
+        for (int i = 0; i < values.length; i++) {
+            values[i] = replicas.get(i).getFuelGal();
+        }
+        return ConfidenceInterval.of(values);
+    }
+
+    public ConfidenceInterval getDistanceKm() {
+        double[] values = new double[replicas.size()];
+        for (int i = 0; i < values.length; i++) {
+            values[i] = replicas.get(i).getDistanceKm();
+        }
+        return ConfidenceInterval.of(values);
+    }
+
+    /** Runs that hit a collapse, for collapse scenarios. */
+    public int getCollapsedRuns() {
+        int collapsed = 0;
+        for (ReplicaResult replica : replicas) {
+            if (replica.getCollapseTime() != null) {
+                collapsed++;
+            }
+        }
+        return collapsed;
+    }
+
+    public long getWallMillis() {
+        return wallMillis;
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder();
+        sb.append("Sweep of ").append(scenario).append(": ").append(replicas.size()).append(" runs in ")
+                .append(String.format("%.1f s", wallMillis / 1000.0)).append('\n');
+        sb.append("  On-time rate:  ").append(getOnTimeRate()).append('\n');
+        sb.append("  Fuel (gal):    ").append(getFuelGal()).append('\n');
+        sb.append("  Distance (km): ").append(getDistanceKm()).append('\n');
+        if (scenario.getKind() == ScenarioDefinition.Kind.COLLAPSE) {
+            sb.append("  Collapsed:     ").append(getCollapsedRuns()).append(" of ").append(replicas.size())
+                    .append('\n');
+        }
+        return sb.toString();
+    }
+}
@@ -0,0 +1,155 @@
+package com.vroute.batch;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.net.ConnectException;
+import java.net.InetAddress;
+import java.net.Socket;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.logging.Handler;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Worker process of a distributed sweep. Connects to a
+ * {@link SweepCoordinator}, runs the replicas it is handed one at a time and
+ * sends back their results until the coordinator says it is done.
+ *
+ * Scenario files are opened by path, so a worker on another host needs the
+ * scenario and data files at the same paths as the coordinator.
+ *
+ * Usage: {@code SweepWorker <host> <port> [--name n]}
+ */
+public class SweepWorker {
+    private static final Logger logger = Logger.getLogger(SweepWorker.class.getName());
+
+    private static final int CONNECT_ATTEMPTS = 30;
+    private static final long CONNECT_RETRY_MILLIS = 1000;
+
+    private final String host;
+    private final int port;
+    private final String name;
+    // Parsed data files per scenario, reused across the replicas of a sweep
+    private final Map<String, ScenarioData> scenarios = new HashMap<>();
+
+    public SweepWorker(String host, int port, String name) {
+        this.host = host;
+        this.port = port;
+        this.name = name;
+    }
+
+    public static void main(String[] args) {
+        if (args.length < 2) {
+            System.err.println("Usage: SweepWorker <host> <port> [--name n]");
+            System.exit(1);
+        }
+        String name = defaultName();
+        for (int i = 2; i < args.length; i++) {
+            if (args[i].equals("--name") && i + 1 < args.length) {
+                name = args[++i];
+            }
+        }
+
+        Logger root = Logger.getLogger("");
+        root.setLevel(Level.WARNING);
+        for (Handler handler : root.getHandlers()) {
+            handler.setLevel(Level.WARNING);
+        }
+
+        try {
+            int completed = new SweepWorker(args[0], Integer.parseInt(args[1]), name).run();
+            logger.info("Worker " + name + " finished after " + completed + " replicas");
+        } catch (IOException e) {
+            logger.log(Level.SEVERE, "Worker " + name + " lost the coordinator", e);
+            System.exit(2);
+        }
+    }
+
+    /**
+     * Serves tasks until the coordinator sends DONE.
+     *
+     * @return Number of replicas run
+     */
+    public int run() throws IOException {
+        int completed = 0;
+        try (Socket socket = connect();
+                DataInputStream in = new DataInputStream(new BufferedInputStream(socket.getInputStream()));
+                DataOutputStream out = new DataOutputStream(new BufferedOutputStream(socket.getOutputStream()))) {
+            out.writeByte(SweepProtocol.HELLO);
+            out.writeInt(SweepProtocol.MAGIC);
+            out.writeInt(SweepProtocol.VERSION);
+            out.writeUTF(name);
+            out.flush();
+
+            while (true) {
+                byte code = in.readByte();
+                if (code == SweepProtocol.DONE) {
+                    return completed;
+                }
+                if (code != SweepProtocol.TASK) {
+                    throw new IOException("Unexpected message " + code + " from coordinator");
+                }
+                int taskId = in.readInt();
+                String scenarioFile = in.readUTF();
+                long seed = in.readLong();
+                try {
+                    ReplicaResult result = runReplica(scenarioFile, seed);
+                    SweepProtocol.writeResult(out, taskId, result);
+                    completed++;
+                } catch (IOException | RuntimeException e) {
+                    logger.log(Level.WARNING, "Replica " + seed + " of " + scenarioFile + " failed", e);
+                    out.writeByte(SweepProtocol.FAILURE);
+                    out.writeInt(taskId);
+                    out.writeUTF(String.valueOf(e));
+                }
+                out.flush();
+            }
+        }
+    }
+
+    private ReplicaResult runReplica(String scenarioFile, long seed) throws IOException {
+        ScenarioData data = scenarios.get(scenarioFile);
+        if (data == null) {
+            Path file = Paths.get(scenarioFile);
+            data = ScenarioData.load(ScenarioLoader.load(file));
+            scenarios.put(scenarioFile, data);
+        }
+        HeadlessRunner runner = new HeadlessRunner(data, seed);
+        return new ReplicaResult(seed, runner.run(), runner.getCollapseTime());
+    }
+
+    // A worker may be started before its coordinator is listening
+    private Socket connect() throws IOException {
+        for (int attempt = 1;; attempt++) {
+            try {
+                return new Socket(host, port);
+            } catch (ConnectException e) {
+                if (attempt >= CONNECT_ATTEMPTS) {
+                    throw e;
+                }
+                try {
+                    Thread.sleep(CONNECT_RETRY_MILLIS);
+                } catch (InterruptedException ie) {
+                    Thread.currentThread().interrupt();
+                    throw e;
+                }
+            }
+        }
+    }
+
+    private static String defaultName() {
+        String host;
+        try {
+            host = InetAddress.getLocalHost().getHostName();
+        } catch (IOException e) {
+            host = "localhost";
+        }
+        return host + ":" + ProcessHandle.current().pid();
+    }
+}
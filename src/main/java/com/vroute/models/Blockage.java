@@ -10,12 +10,17 @@ import java.util.Set;
 public class Blockage {
     private final LocalDateTime startTime;
     private final LocalDateTime endTime;
+    // Same bounds as epoch seconds, for the checks done on every path expansion
+    private final long startSecond;
+    private final long endSecond;
     private final List<Position> lines;
     private final Set<Position> blockagePoints;
 
     public Blockage(LocalDateTime startTime, LocalDateTime endTime, List<Position> blockagePoints) {
         this.startTime = startTime;
         this.endTime = endTime;
+        this.startSecond = SimClock.toEpochSecond(startTime);
+        this.endSecond = SimClock.toEpochSecond(endTime);
         this.lines = new ArrayList<>(blockagePoints);
         this.blockagePoints = precomputarPuntos(blockagePoints);
     }
@@ -60,12 +65,28 @@ public class Blockage {
         return blockagePoints;
     }
 
+    public long getStartSecond() {
+        return startSecond;
+    }
+
+    public long getEndSecond() {
+        return endSecond;
+    }
+
     public boolean isActiveAt(LocalDateTime dateTime) {
-        return !dateTime.isBefore(startTime) && !dateTime.isAfter(endTime);
+        return isActiveAt(SimClock.toEpochSecond(dateTime));
+    }
+
+    public boolean isActiveAt(long epochSecond) {
+        return epochSecond >= startSecond && epochSecond <= endSecond;
     }
 
     public boolean posicionEstaBloqueada(Position posicion, LocalDateTime momento) {
-        return isActiveAt(momento) && blockagePoints.contains(posicion);
+        return posicionEstaBloqueada(posicion, SimClock.toEpochSecond(momento));
+    }
+
+    public boolean posicionEstaBloqueada(Position posicion, long epochSecond) {
+        return isActiveAt(epochSecond) && blockagePoints.contains(posicion);
     }
 
     @Override
@@ -3,8 +3,14 @@ package com.vroute.models;
 import java.time.LocalDateTime;
 import java.util.ArrayList;
 import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
-import java.util.stream.Collectors;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
 
 public class Environment {
     private final List<Vehicle> vehicles;
@@ -17,6 +23,34 @@ public class Environment {
     private final List<Incident> incidentRegistry;
     private final List<Maintenance> maintenanceTasks;
 
+    // Incremented whenever the blockage list changes, so cached paths can be invalidated
+    private long blockageVersion;
+
+    // Indexes by id; orderQueue stays the source of truth for iteration order
+    private final Map<String, Order> ordersById = new HashMap<>();
+    private final Map<String, Vehicle> vehiclesById = new HashMap<>();
+    private final Map<String, Depot> depotsById = new HashMap<>();
+
+    // Orders not yet delivered, in arrival order. pendingVersion is incremented
+    // whenever the set changes, so callers can cache data derived from it.
+    private final Map<String, Order> pendingOrders = new LinkedHashMap<>();
+    private long pendingVersion;
+    private volatile List<Order> pendingOrdersSnapshot;
+
+    // Delivered orders still in orderQueue, dropped on the next state update
+    private final List<Order> deliveredOrders = new ArrayList<>();
+
+    // Maintenance tasks by vehicle, and how many are open for each vehicle now
+    private final Map<String, List<Maintenance>> maintenanceByVehicle = new HashMap<>();
+    private final Map<String, Integer> openMaintenance = new HashMap<>();
+    // Incidents that have occurred and are unresolved, by vehicle, in occurrence order
+    private final Map<String, List<Incident>> occurredIncidents = new HashMap<>();
+
+    // Time-driven changes in the order they fall due; the state update applies
+    // the due ones, so its cost follows the changes rather than the entities
+    private final PriorityQueue<ScheduledChange> schedule = new PriorityQueue<>();
+    private long scheduledChanges;
+
     public Environment(List<Vehicle> vehicles, Depot mainDepot, List<Depot> auxDepots,
             LocalDateTime referenceDateTime) {
         this.currentTime = referenceDateTime;
@@ -27,6 +61,14 @@ public class Environment {
         this.activeBlockages = new ArrayList<>();
         this.incidentRegistry = new ArrayList<>();
         this.maintenanceTasks = new ArrayList<>();
+
+        for (Vehicle vehicle : this.vehicles) {
+            vehiclesById.put(vehicle.getId(), vehicle);
+        }
+        depotsById.put(mainDepot.getId(), mainDepot);
+        for (Depot depot : this.auxDepots) {
+            depotsById.putIfAbsent(depot.getId(), depot);
+        }
     }
 
     public List<Vehicle> getVehicles() {
@@ -61,89 +103,200 @@ public class Environment {
         return mainDepot;
     }
 
+    /**
+     * Moves the clock to {@code newTime} and applies the changes due by then.
+     * The schedule drops changes once applied, so the clock cannot go back.
+     */
     public void setCurrentTime(LocalDateTime newTime) {
-        this.currentTime = newTime;
+        if (newTime.isBefore(currentTime)) {
+            throw new IllegalArgumentException("Cannot move the environment time back from " + currentTime
+                    + " to " + newTime);
+        }
+        if (newTime.isAfter(currentTime)) {
+            this.currentTime = newTime;
+            updateEnvironmentState();
+        }
     }
 
     public void addOrder(Order order) {
         orderQueue.add(order);
+        indexOrder(order);
     }
 
     public void addOrders(List<Order> orders) {
         orderQueue.addAll(orders);
+        for (Order order : orders) {
+            indexOrder(order);
+        }
+    }
+
+    private void indexOrder(Order order) {
+        ordersById.put(order.getId(), order);
+        if (!order.isDelivered()) {
+            pendingOrders.put(order.getId(), order);
+            pendingChanged();
+        } else {
+            deliveredOrders.add(order);
+        }
     }
 
+    /**
+     * Pending orders in arrival order. The returned list is shared and
+     * unmodifiable; it is rebuilt only after the pending set changes.
+     */
     public List<Order> getPendingOrders() {
-        return orderQueue.stream()
-                .filter(order -> !order.isDelivered())
-                .collect(Collectors.toList());
+        List<Order> snapshot = pendingOrdersSnapshot;
+        if (snapshot == null) {
+            snapshot = Collections.unmodifiableList(new ArrayList<>(pendingOrders.values()));
+            pendingOrdersSnapshot = snapshot;
+        }
+        return snapshot;
+    }
+
+    /**
+     * Read-only view of the pending orders indexed by id.
+     */
+    public Map<String, Order> getPendingOrdersById() {
+        return Collections.unmodifiableMap(pendingOrders);
+    }
+
+    /**
+     * Version of the pending-order set. It changes whenever an order is added
+     * or becomes delivered, so data derived from {@link #getPendingOrders()}
+     * can be reused while the version stays the same.
+     */
+    public long getPendingVersion() {
+        return pendingVersion;
+    }
+
+    /**
+     * Must be called after GLP is delivered to an order of this environment,
+     * so the pending set drops the order as soon as it is complete.
+     */
+    public void onOrderServed(Order order) {
+        if (order.isDelivered() && pendingOrders.remove(order.getId()) != null) {
+            pendingChanged();
+            deliveredOrders.add(order);
+        }
+    }
+
+    private void pendingChanged() {
+        pendingVersion++;
+        pendingOrdersSnapshot = null;
     }
 
     public List<Order> getOverdueOrders() {
-        return orderQueue.stream()
-                .filter(order -> !order.isDelivered() && order.isOverdue(currentTime))
-                .collect(Collectors.toList());
+        List<Order> overdue = new ArrayList<>();
+        for (Order order : pendingOrders.values()) {
+            if (order.isOverdue(currentTime)) {
+                overdue.add(order);
+            }
+        }
+        return overdue;
     }
 
     public void addVehicle(Vehicle vehicle) {
         vehicles.add(vehicle);
+        vehiclesById.put(vehicle.getId(), vehicle);
     }
 
     public void addAuxDepot(Depot depot) {
         auxDepots.add(depot);
+        depotsById.putIfAbsent(depot.getId(), depot);
     }
 
     public void addBlockage(Blockage blockage) {
         activeBlockages.add(blockage);
+        scheduleBlockage(blockage);
+        blockageVersion++;
     }
 
     public void addBlockages(List<Blockage> blockages) {
         activeBlockages.addAll(blockages);
+        for (Blockage blockage : blockages) {
+            scheduleBlockage(blockage);
+        }
+        blockageVersion++;
+    }
+
+    private void scheduleBlockage(Blockage blockage) {
+        scheduleChange(ChangeKind.BLOCKAGE_START, blockage.getStartTime(), false, blockage);
+        scheduleChange(ChangeKind.BLOCKAGE_END, blockage.getEndTime(), true, blockage);
+    }
+
+    public long getBlockageVersion() {
+        return blockageVersion;
     }
 
     public List<Blockage> getActiveBlockagesAt(LocalDateTime dateTime) {
-        return activeBlockages.stream()
-                .filter(b -> b.isActiveAt(dateTime))
-                .collect(Collectors.toList());
+        long epochSecond = SimClock.toEpochSecond(dateTime);
+        List<Blockage> active = new ArrayList<>();
+        for (Blockage blockage : activeBlockages) {
+            if (blockage.isActiveAt(epochSecond)) {
+                active.add(blockage);
+            }
+        }
+        return active;
     }
 
+    /**
+     * Registers an incident. Its occurrence time must already be set; one
+     * without it never becomes active.
+     */
     public void addIncident(Incident incident) {
         incidentRegistry.add(incident);
+        if (incident.getOccurrenceTime() != null) {
+            if (incident.getOccurrenceTime().isAfter(currentTime)) {
+                scheduleChange(ChangeKind.INCIDENT_OCCURS, incident.getOccurrenceTime(), false, incident);
+            } else {
+                // Already occurred, e.g. a breakdown registered on its own tick
+                markOccurred(incident);
+            }
+            scheduleChange(ChangeKind.INCIDENT_AVAILABLE, incident.calculateAvailabilityTime(), false, incident);
+        }
     }
 
     public void addIncidents(List<Incident> incidents) {
-        incidentRegistry.addAll(incidents);
+        for (Incident incident : incidents) {
+            addIncident(incident);
+        }
     }
 
+    /**
+     * Unresolved incidents of the vehicle that have occurred by the current
+     * time, oldest first.
+     */
     public List<Incident> getActiveIncidentsForVehicle(String vehicleId) {
-        return incidentRegistry.stream()
-                .filter(incident -> incident.getVehicleId().equals(vehicleId) &&
-                        !incident.isResolved() &&
-                        incident.getOccurrenceTime() != null &&
-                        !currentTime.isBefore(incident.getOccurrenceTime()))
-                .collect(Collectors.toList());
+        List<Incident> active = new ArrayList<>();
+        for (Incident incident : occurredIncidents.getOrDefault(vehicleId, Collections.emptyList())) {
+            // Incidents can also be resolved from outside, e.g. through the API
+            if (!incident.isResolved()) {
+                active.add(incident);
+            }
+        }
+        return active;
     }
 
     public void addMaintenanceTask(Maintenance task) {
         maintenanceTasks.add(task);
+        maintenanceByVehicle.computeIfAbsent(task.getVehicleId(), id -> new ArrayList<>()).add(task);
+        scheduleChange(ChangeKind.MAINTENANCE_START, task.getStartTime(), false, task);
+        scheduleChange(ChangeKind.MAINTENANCE_END, task.getEndTime(), true, task);
     }
 
     public void addMaintenanceTasks(List<Maintenance> tasks) {
-        maintenanceTasks.addAll(tasks);
+        for (Maintenance task : tasks) {
+            addMaintenanceTask(task);
+        }
     }
 
     public boolean hasScheduledMaintenance(String vehicleId, LocalDateTime dateTime) {
-        for (Maintenance task : maintenanceTasks) {
-            if (task.getVehicleId().equals(vehicleId) && task.isActiveAt(dateTime)) {
-                return true;
-            }
-        }
-        return false;
+        return getMaintenanceTaskForVehicle(vehicleId, dateTime) != null;
     }
 
     public Maintenance getMaintenanceTaskForVehicle(String vehicleId, LocalDateTime dateTime) {
-        for (Maintenance task : maintenanceTasks) {
-            if (task.getVehicleId().equals(vehicleId) && task.isActiveAt(dateTime)) {
+        for (Maintenance task : maintenanceByVehicle.getOrDefault(vehicleId, Collections.emptyList())) {
+            if (task.isActiveAt(dateTime)) {
                 return task;
             }
         }
@@ -182,24 +335,34 @@ public class Environment {
         // You can add more daily reset logic here as needed
     }
 
+    /**
+     * Applies the changes that fell due and sets each vehicle's status from
+     * its open maintenance and most recent active incident. Vehicles are the
+     * only thing visited every tick; orders, blockages, incidents and
+     * maintenance are touched only when they change.
+     */
     private void updateEnvironmentState() {
+        applyDueChanges();
+
         for (Vehicle vehicle : vehicles) {
-            if (hasScheduledMaintenance(vehicle.getId(), currentTime)) {
+            if (openMaintenance.containsKey(vehicle.getId())) {
                 vehicle.setStatus(VehicleStatus.MAINTENANCE);
                 continue;
             }
 
-            List<Incident> activeIncidents = getActiveIncidentsForVehicle(vehicle.getId());
-            if (!activeIncidents.isEmpty()) {
+            List<Incident> activeIncidents = occurredIncidents.get(vehicle.getId());
+            if (activeIncidents != null) {
+                activeIncidents.removeIf(Incident::isResolved);
+            }
+            if (activeIncidents != null && !activeIncidents.isEmpty()) {
                 Incident mostRecent = activeIncidents.get(activeIncidents.size() - 1);
-                if (!mostRecent.isResolved()) {
-                    LocalDateTime availabilityTime = mostRecent.calculateAvailabilityTime();
-                    if (currentTime.isBefore(availabilityTime)) {
-                        vehicle.setStatus(VehicleStatus.UNAVAILABLE);
-                    } else {
-                        mostRecent.setResolved();
-                        vehicle.setStatus(VehicleStatus.AVAILABLE);
-                    }
+                LocalDateTime availabilityTime = mostRecent.calculateAvailabilityTime();
+                if (currentTime.isBefore(availabilityTime)) {
+                    vehicle.setStatus(VehicleStatus.UNAVAILABLE);
+                } else {
+                    mostRecent.setResolved();
+                    activeIncidents.remove(activeIncidents.size() - 1);
+                    vehicle.setStatus(VehicleStatus.AVAILABLE);
                 }
             }
 
@@ -210,16 +373,133 @@ public class Environment {
         }
 
         // remove delivered orders
-        orderQueue.removeIf(Order::isDelivered);
+        if (!deliveredOrders.isEmpty()) {
+            orderQueue.removeIf(Order::isDelivered);
+            for (Order order : deliveredOrders) {
+                ordersById.remove(order.getId(), order);
+            }
+            deliveredOrders.clear();
+        }
+    }
 
+    private void scheduleChange(ChangeKind kind, LocalDateTime time, boolean onceAfter, Object subject) {
+        schedule.add(new ScheduledChange(kind, time, onceAfter, scheduledChanges++, subject));
+    }
+
+    /**
+     * Applies the scheduled changes due at the current time. Only the state
+     * update runs it, and the clock only moves forward.
+     */
+    private void applyDueChanges() {
+        Set<Blockage> expired = null;
+        ScheduledChange change;
+        while ((change = schedule.peek()) != null && change.isDueAt(currentTime)) {
+            schedule.poll();
+            switch (change.kind) {
+                case MAINTENANCE_START:
+                    openMaintenance.merge(((Maintenance) change.subject).getVehicleId(), 1, Integer::sum);
+                    break;
+                case MAINTENANCE_END:
+                    openMaintenance.computeIfPresent(((Maintenance) change.subject).getVehicleId(),
+                            (id, open) -> open > 1 ? open - 1 : null);
+                    break;
+                case INCIDENT_OCCURS:
+                    markOccurred((Incident) change.subject);
+                    break;
+                case BLOCKAGE_START:
+                case INCIDENT_AVAILABLE:
+                    // Nothing to apply here; they only mark instants for getNextChangeSecond
+                    break;
+                case BLOCKAGE_END:
+                    if (expired == null) {
+                        expired = Collections.newSetFromMap(new IdentityHashMap<>());
+                    }
+                    expired.add((Blockage) change.subject);
+                    break;
+            }
+        }
         // remove past blockages
-        activeBlockages.removeIf(blockage -> blockage.getEndTime().isBefore(currentTime));
+        if (expired != null && activeBlockages.removeIf(expired::contains)) {
+            blockageVersion++;
+        }
+    }
+
+    private void markOccurred(Incident incident) {
+        if (!incident.isResolved()) {
+            occurredIncidents.computeIfAbsent(incident.getVehicleId(), id -> new ArrayList<>()).add(incident);
+        }
+    }
+
+    /**
+     * First epoch second after the current time at which a scheduled change
+     * falls due: a blockage, maintenance window or incident starting or
+     * ending. Long.MAX_VALUE if nothing is scheduled.
+     */
+    public long getNextChangeSecond() {
+        ScheduledChange next = schedule.peek();
+        if (next != null && next.isDueAt(currentTime)) {
+            // Changes added since the last state update wait for the next one;
+            // look past them without applying anything
+            next = null;
+            for (ScheduledChange change : schedule) {
+                if (!change.isDueAt(currentTime) && (next == null || change.compareTo(next) < 0)) {
+                    next = change;
+                }
+            }
+        }
+        if (next == null) {
+            return Long.MAX_VALUE;
+        }
+        long second = SimClock.toEpochSecond(next.time);
+        return next.onceAfter || next.time.getNano() > 0 ? second + 1 : second;
+    }
+
+    private enum ChangeKind {
+        BLOCKAGE_START, BLOCKAGE_END, MAINTENANCE_START, MAINTENANCE_END, INCIDENT_OCCURS, INCIDENT_AVAILABLE
+    }
+
+    /**
+     * A change the clock triggers at {@code time}, or once it is past
+     * {@code time} for the ones whose window includes its end instant.
+     */
+    private static final class ScheduledChange implements Comparable<ScheduledChange> {
+        private static final Comparator<ScheduledChange> ORDER = Comparator
+                .comparing((ScheduledChange change) -> change.time)
+                .thenComparing(change -> change.onceAfter)
+                .thenComparingLong(change -> change.sequence);
+
+        final ChangeKind kind;
+        final LocalDateTime time;
+        final boolean onceAfter;
+        final long sequence;
+        final Object subject;
+
+        ScheduledChange(ChangeKind kind, LocalDateTime time, boolean onceAfter, long sequence, Object subject) {
+            this.kind = kind;
+            this.time = time;
+            this.onceAfter = onceAfter;
+            this.sequence = sequence;
+            this.subject = subject;
+        }
+
+        boolean isDueAt(LocalDateTime now) {
+            return onceAfter ? now.isAfter(time) : !now.isBefore(time);
+        }
+
+        @Override
+        public int compareTo(ScheduledChange other) {
+            return ORDER.compare(this, other);
+        }
     }
 
     public List<Vehicle> getAvailableVehicles() {
-        return vehicles.stream()
-                .filter(vehicle -> vehicle.getStatus() != VehicleStatus.UNAVAILABLE)
-                .collect(Collectors.toList());
+        List<Vehicle> available = new ArrayList<>(vehicles.size());
+        for (Vehicle vehicle : vehicles) {
+            if (vehicle.getStatus() != VehicleStatus.UNAVAILABLE) {
+                available.add(vehicle);
+            }
+        }
+        return available;
     }
 
     /**
@@ -229,10 +509,7 @@ public class Environment {
      * @return The order if found, null otherwise
      */
     public Order findOrderById(String orderId) {
-        return orderQueue.stream()
-                .filter(order -> order.getId().equals(orderId))
-                .findFirst()
-                .orElse(null);
+        return ordersById.get(orderId);
     }
 
     /**
@@ -242,16 +519,7 @@ public class Environment {
      * @return The depot if found, null otherwise
      */
     public Depot findDepotById(String depotId) {
-        // Check main depot first
-        if (mainDepot.getId().equals(depotId)) {
-            return mainDepot;
-        }
-
-        // Check auxiliary depots
-        return auxDepots.stream()
-                .filter(depot -> depot.getId().equals(depotId))
-                .findFirst()
-                .orElse(null);
+        return depotsById.get(depotId);
     }
 
     /**
@@ -261,10 +529,7 @@ public class Environment {
      * @return The vehicle if found, null otherwise
      */
     public Vehicle findVehicleById(String vehicleId) {
-        return vehicles.stream()
-                .filter(vehicle -> vehicle.getId().equals(vehicleId))
-                .findFirst()
-                .orElse(null);
+        return vehiclesById.get(vehicleId);
     }
 
     @Override
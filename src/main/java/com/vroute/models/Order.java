@@ -5,6 +5,9 @@ import java.time.LocalDateTime;
 import java.util.List;
 
 public class Order implements Stop {
+    // Margin added to the due date given to the constructor
+    public static final int DUE_MARGIN_HOURS = 4;
+
     // unmutable attributes
     private final String id;
     private final LocalDateTime arriveTime;
@@ -19,7 +22,7 @@ public class Order implements Stop {
     public Order(String id, LocalDateTime arriveDate, LocalDateTime dueDate, int glpRequestM3, Position position) {
         this.id = id;
         this.arriveTime = arriveDate;
-        this.dueTime = dueDate.plusHours(4);
+        this.dueTime = dueDate.plusHours(DUE_MARGIN_HOURS);
         this.glpRequestM3 = glpRequestM3;
         this.position = position;
 
@@ -106,10 +109,12 @@ public class Order implements Stop {
     }
 
     public Order clone() {
+        // The public constructor adds the due-time margin; pass it back out so
+        // the clone keeps the same due time
         Order clonedOrder = new Order(
                 this.id,
                 this.arriveTime,
-                this.dueTime,
+                this.dueTime.minusHours(DUE_MARGIN_HOURS),
                 this.glpRequestM3,
                 this.position);
 
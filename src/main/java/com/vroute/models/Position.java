@@ -34,6 +34,18 @@ public class Position {
 
     public Position clone() { return new Position(x, y);}
 
+    /**
+     * Packs both coordinates into one int, for compact paths; coordinates
+     * must fit in a {@code short}.
+     */
+    public int toCell() {
+        return (x << 16) | (y & 0xFFFF);
+    }
+
+    public static Position fromCell(int cell) {
+        return new Position(cell >> 16, (short) cell);
+    }
+
     public double distanceTo(Position other) {
         return Math.abs(this.x - other.x) + Math.abs(this.y - other.y);
     }
@@ -0,0 +1,39 @@
+package com.vroute.models;
+
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+
+/**
+ * Primitive simulation time. Hot paths (pathfinding, evaluation, blockage
+ * and action timing) work with seconds or minutes since the epoch, read as
+ * UTC; {@link LocalDateTime} is only used at the API, UI and log boundaries.
+ */
+public final class SimClock {
+    public static final long SECONDS_PER_MINUTE = 60;
+    public static final long SECONDS_PER_HOUR = 3600;
+
+    private SimClock() {
+    }
+
+    public static long toEpochSecond(LocalDateTime time) {
+        return time.toEpochSecond(ZoneOffset.UTC);
+    }
+
+    /** Whole minutes since the epoch, rounded down. */
+    public static long toEpochMinute(LocalDateTime time) {
+        return Math.floorDiv(toEpochSecond(time), SECONDS_PER_MINUTE);
+    }
+
+    public static LocalDateTime fromEpochSecond(long epochSecond) {
+        return LocalDateTime.ofEpochSecond(epochSecond, 0, ZoneOffset.UTC);
+    }
+
+    public static LocalDateTime fromEpochMinute(long epochMinute) {
+        return fromEpochSecond(epochMinute * SECONDS_PER_MINUTE);
+    }
+
+    /** Seconds needed to drive {@code distanceKm} at {@code speedKmh}, truncated. */
+    public static long travelSeconds(double distanceKm, double speedKmh) {
+        return (long) (distanceKm / speedKmh * SECONDS_PER_HOUR);
+    }
+}
@@ -15,6 +15,10 @@ public class Vehicle {
     private double currentFuelGal;
     private VehicleStatus status;
 
+    // Odometer: distance driven and fuel burned over the whole simulation
+    private double distanceTraveledKm;
+    private double fuelBurnedGal;
+
     public Vehicle(String id, VehicleType type, Position currentPosition) {
         this.id = id;
         this.type = type;
@@ -68,6 +72,14 @@ public class Vehicle {
         this.status = status;
     }
 
+    public void setCurrentGlpM3(int glpM3) {
+        this.currentGlpM3 = Math.max(0, Math.min(this.glpCapacityM3, glpM3));
+    }
+
+    public void setCurrentFuelGal(double fuelGal) {
+        this.currentFuelGal = Math.max(0, Math.min(this.fuelCapacityGal, fuelGal));
+    }
+
     // Operations
     public void consumeFuel(double distanceKm) {
         double combinedWeight = this.type.convertGlpM3ToTon(this.currentGlpM3) + this.type.getTareWeightTon();
@@ -75,6 +87,29 @@ public class Vehicle {
         this.currentFuelGal = Math.max(0, this.currentFuelGal - fuelConsumedGallons);
     }
 
+    /**
+     * Adds a driven stretch to the odometer; the fuel is computed with the
+     * current load, like {@link #consumeFuel}.
+     */
+    public void recordTravel(double distanceKm) {
+        this.distanceTraveledKm += distanceKm;
+        this.fuelBurnedGal += calculateFuelNeeded(distanceKm);
+    }
+
+    public double getDistanceTraveledKm() {
+        return distanceTraveledKm;
+    }
+
+    public double getFuelBurnedGal() {
+        return fuelBurnedGal;
+    }
+
+    /** Sets the odometer of a vehicle restored from a checkpoint. */
+    public void restoreOdometer(double distanceTraveledKm, double fuelBurnedGal) {
+        this.distanceTraveledKm = distanceTraveledKm;
+        this.fuelBurnedGal = fuelBurnedGal;
+    }
+
     public double calculateFuelNeeded(double distanceKm) {
         double combinedWeight = this.type.convertGlpM3ToTon(this.currentGlpM3)
                 + this.type.getTareWeightTon();
@@ -109,6 +144,8 @@ public class Vehicle {
         clonedVehicle.currentGlpM3 = this.currentGlpM3;
         clonedVehicle.currentFuelGal = this.currentFuelGal;
         clonedVehicle.status = this.status;
+        clonedVehicle.distanceTraveledKm = this.distanceTraveledKm;
+        clonedVehicle.fuelBurnedGal = this.fuelBurnedGal;
         return clonedVehicle;
     }
 
@@ -3,6 +3,7 @@ package com.vroute.operation;
 import java.time.Duration;
 import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
 import java.util.List;
 
 import com.vroute.models.Constants;
@@ -10,6 +11,7 @@ import com.vroute.models.Depot;
 import com.vroute.models.Environment;
 import com.vroute.models.Order;
 import com.vroute.models.Position;
+import com.vroute.models.SimClock;
 import com.vroute.models.Vehicle;
 import com.vroute.models.VehicleStatus;
 
@@ -18,6 +20,9 @@ public class Action {
     private final ActionType type;
     private final LocalDateTime expectedStartTime;
     private final LocalDateTime expectedEndTime;
+    // Same instants as epoch seconds, compared on every simulation tick
+    private final long startSecond;
+    private final long endSecond;
     private final Position destination;
 
     // Serving specific attributes
@@ -27,16 +32,36 @@ public class Action {
 
     // Driving specific attributes
     private final double fuelChangeGal;
-    private final List<Position> path;
+    // DRIVE path as packed cells (Position.toCell) and the km from its first node to each node
+    private final int[] pathCells;
+    private final int[] pathKm;
+    // Last path node already added to the vehicle's odometer
+    private int recordedPathIndex;
+    // Set by the first execute; refuel, reload and delivery are applied only then
+    private boolean started;
 
     public Action(ActionType type, List<Position> path, Position endPosition,
             LocalDateTime expectedStartTime, LocalDateTime expectedEndTime, Order order, int glpChangeM3,
             double fuelChangeGal) {
         this.type = type;
-        this.path = path;
+        if (path != null) {
+            this.pathCells = new int[path.size()];
+            this.pathKm = new int[path.size()];
+            for (int i = 0; i < path.size(); i++) {
+                pathCells[i] = path.get(i).toCell();
+                if (i > 0) {
+                    pathKm[i] = pathKm[i - 1] + (int) path.get(i - 1).distanceTo(path.get(i));
+                }
+            }
+        } else {
+            this.pathCells = null;
+            this.pathKm = null;
+        }
         this.destination = endPosition;
         this.expectedStartTime = expectedStartTime;
         this.expectedEndTime = expectedEndTime;
+        this.startSecond = SimClock.toEpochSecond(expectedStartTime);
+        this.endSecond = SimClock.toEpochSecond(expectedEndTime);
         this.order = order;
         this.orderId = (order != null) ? order.getId() : null;
         this.glpChangeM3 = glpChangeM3;
@@ -48,7 +73,7 @@ public class Action {
     }
 
     public Duration getDuration() {
-        return Duration.between(expectedStartTime, expectedEndTime);
+        return Duration.ofSeconds(endSecond - startSecond);
     }
 
     public LocalDateTime getExpectedStartTime() {
@@ -59,6 +84,16 @@ public class Action {
         return expectedEndTime;
     }
 
+    /** Expected start as epoch seconds (see {@link SimClock}). */
+    public long getStartSecond() {
+        return startSecond;
+    }
+
+    /** Expected end as epoch seconds (see {@link SimClock}). */
+    public long getEndSecond() {
+        return endSecond;
+    }
+
     public Position getDestination() {
         return destination;
     }
@@ -79,33 +114,82 @@ public class Action {
         return fuelChangeGal;
     }
 
+    /** Positions of a DRIVE path, built on each call; null for other actions. */
     public List<Position> getPath() {
+        if (pathCells == null) {
+            return null;
+        }
+        List<Position> path = new ArrayList<>(pathCells.length);
+        for (int cell : pathCells) {
+            path.add(Position.fromCell(cell));
+        }
         return path;
     }
 
+    /** Nodes in the DRIVE path, 0 for other actions. */
+    public int getPathLength() {
+        return pathCells != null ? pathCells.length : 0;
+    }
+
+    /** Length of the whole DRIVE path in km. */
+    public double getPathDistanceKm() {
+        return pathKm != null && pathKm.length > 0 ? pathKm[pathKm.length - 1] : 0.0;
+    }
+
+    /** Last path node of a DRIVE already added to the vehicle's odometer. */
+    public int getRecordedPathIndex() {
+        return recordedPathIndex;
+    }
+
+    /** Restores the odometer progress of an action read back from a checkpoint. */
+    public void setRecordedPathIndex(int recordedPathIndex) {
+        this.recordedPathIndex = recordedPathIndex;
+    }
+
+    /** True once the action has been executed; its one-off effects are applied. */
+    public boolean isStarted() {
+        return started;
+    }
+
+    /** Restores the state of an action read back from a checkpoint. */
+    public void setStarted(boolean started) {
+        this.started = started;
+    }
+
+    /**
+     * Brings the vehicle to where this action has it at {@code currentTime}.
+     * A DRIVE moves it along the path and can run on every tick; REFUEL,
+     * RELOAD and SERVE change tank, load and order on the first call only.
+     */
     public void execute(Vehicle vehicle, Environment environment,
             LocalDateTime currentTime) {
-        if (currentTime.isBefore(expectedStartTime)) {
+        long nowSecond = SimClock.toEpochSecond(currentTime);
+        if (nowSecond < startSecond) {
             return;
         }
+        boolean firstRun = !started;
+        started = true;
 
-        double progressRatio = calculateProgressRatio(currentTime);
+        double progressRatio = calculateProgressRatio(nowSecond);
 
         // System.out.println(
         // String.format("Executing action: %s | Progress: %.2f%% | Time: %s",
         // this, progressRatio * 100, currentTime));
         switch (type) {
             case DRIVE:
-                if (path != null && path.size() > 1) {
-                    int pathProgress = Math.min(path.size() - 1, (int) Math.floor(progressRatio * (path.size() - 1)));
+                if (pathCells != null && pathCells.length > 1) {
+                    int lastNode = pathCells.length - 1;
+                    int pathProgress = Math.min(lastNode, (int) Math.floor(progressRatio * lastNode));
 
                     if (pathProgress >= 0) {
-                        Position currentPosition = path.get(pathProgress);
-                        vehicle.setCurrentPosition(currentPosition);
-                        double partialDistance = calculatePartialPathDistance(0, pathProgress);
-                        double fuelConsumed = (partialDistance / calculatePartialPathDistance(0, path.size() - 1))
-                                * Math.abs(fuelChangeGal);
-                        vehicle.consumeFuel(fuelConsumed);
+                        // Only the stretch since the previous tick goes to the odometer and the tank
+                        if (pathProgress > recordedPathIndex) {
+                            double travelledKm = calculatePartialPathDistance(recordedPathIndex, pathProgress);
+                            vehicle.recordTravel(travelledKm);
+                            vehicle.consumeFuel(travelledKm);
+                            recordedPathIndex = pathProgress;
+                        }
+                        vehicle.setCurrentPosition(Position.fromCell(pathCells[pathProgress]));
                     }
                 }
 
@@ -113,11 +197,16 @@ public class Action {
                 break;
             case REFUEL:
                 vehicle.setStatus(VehicleStatus.REFUELING);
-                vehicle.refuel();
+                if (firstRun) {
+                    vehicle.refuel();
+                }
                 break;
 
             case RELOAD:
                 vehicle.setStatus(VehicleStatus.RELOADING);
+                if (!firstRun) {
+                    break;
+                }
                 vehicle.refill(Math.abs(glpChangeM3));
                 // Update depot inventory - find depot by position
                 Depot depot = findDepotByPosition(environment, destination);
@@ -128,11 +217,15 @@ public class Action {
 
             case SERVE:
                 vehicle.setStatus(VehicleStatus.SERVING);
+                if (!firstRun) {
+                    break;
+                }
                 // Find the actual order in the environment using its ID
                 if (orderId != null) {
                     Order environmentOrder = environment.findOrderById(orderId);
                     if (environmentOrder != null) {
                         vehicle.serveOrder(environmentOrder, Math.abs(glpChangeM3), currentTime);
+                        environment.onOrderServed(environmentOrder);
                     } else {
                         // Fallback to the original order if not found in environment
                         vehicle.serveOrder(order, Math.abs(glpChangeM3), currentTime);
@@ -164,44 +257,36 @@ public class Action {
      * @return Distancia en kilómetros
      */
     private double calculatePartialPathDistance(int startNodeIndex, int endNodeIndex) {
-        if (path == null || startNodeIndex < 0 || endNodeIndex >= path.size() || startNodeIndex >= endNodeIndex) {
+        if (pathKm == null || startNodeIndex < 0 || endNodeIndex >= pathKm.length || startNodeIndex >= endNodeIndex) {
             return 0.0;
         }
-
-        double distance = 0.0;
-        for (int i = startNodeIndex; i < endNodeIndex; i++) {
-            Position current = path.get(i);
-            Position next = path.get(i + 1);
-            distance += current.distanceTo(next);
-        }
-
-        return distance;
+        return pathKm[endNodeIndex] - pathKm[startNodeIndex];
     }
 
     /**
      * Calcula la proporción de progreso de una acción en un momento específico.
      * 
-     * @param currentTime El tiempo actual
+     * @param nowSecond El tiempo actual en segundos desde epoch
      * @return Un valor entre 0.0 (no iniciado) y 1.0 (completado)
      */
-    private double calculateProgressRatio(LocalDateTime currentTime) {
+    private double calculateProgressRatio(long nowSecond) {
         // Si la acción no ha comenzado todavía
-        if (currentTime.isBefore(expectedStartTime)) {
+        if (nowSecond < startSecond) {
             return 0.0;
         }
 
         // Si la acción ya ha terminado
-        if (!currentTime.isBefore(expectedEndTime)) {
+        if (nowSecond >= endSecond) {
             return 1.0;
         }
 
-        // Calcular progreso parcial
-        double totalDurationMinutes = getDuration().toMinutes();
+        // Calcular progreso parcial, en minutos completos como antes
+        double totalDurationMinutes = (endSecond - startSecond) / SimClock.SECONDS_PER_MINUTE;
         if (totalDurationMinutes <= 0) {
             return 1.0; // Para evitar división por cero
         }
 
-        double elapsedMinutes = Duration.between(expectedStartTime, currentTime).toMinutes();
+        double elapsedMinutes = (nowSecond - startSecond) / SimClock.SECONDS_PER_MINUTE;
         return Math.min(1.0, elapsedMinutes / totalDurationMinutes);
     }
 
@@ -238,9 +323,9 @@ public class Action {
                 DateTimeFormatter.ofPattern("dd-MM-yyyy HH:mm").format(expectedEndTime)));
         switch (type) {
             case DRIVE:
-                String pathLength = (path != null) ? String.format("| %d nodes", path.size()) : "";
-                String distanceKm = (path != null && path.size() > 1)
-                        ? String.format("| %04d km", (path.size() - 1) * Constants.NODE_DISTANCE)
+                String pathLength = (pathCells != null) ? String.format("| %d nodes", pathCells.length) : "";
+                String distanceKm = (pathCells != null && pathCells.length > 1)
+                        ? String.format("| %04d km", (pathCells.length - 1) * Constants.NODE_DISTANCE)
                         : "";
                 String fuelInfo = (fuelChangeGal != 0) ? String.format("| Fuel: %.2f gal", Math.abs(fuelChangeGal))
                         : "";
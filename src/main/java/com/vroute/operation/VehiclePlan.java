@@ -5,8 +5,10 @@ import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
 
+import com.vroute.models.Environment;
 import com.vroute.models.Order;
 import com.vroute.models.Position;
+import com.vroute.models.SimClock;
 import com.vroute.models.Vehicle;
 import com.vroute.models.VehicleStatus;
 
@@ -18,6 +20,8 @@ public class VehiclePlan {
     private final double totalDistanceKm;
     private final double totalGlpDeliveredM3;
     private final double totalFuelConsumedGal;
+    // Index of the first action not yet finished; the ones before it are never executed again
+    private int executionCursor;
 
     public VehiclePlan(Vehicle vehicle, List<Action> actions, LocalDateTime startTime) {
         this.vehicle = vehicle;
@@ -35,11 +39,7 @@ public class VehiclePlan {
                 glpDelivered += Math.abs(action.getGlpChangeM3());
             }
             if (action.getType() == ActionType.DRIVE) {
-                Position pathStart = action.getPath().getFirst();
-                for (Position pos : action.getPath()) {
-                    distKm += pathStart.distanceTo(pos);
-                    pathStart = pos;
-                }
+                distKm += action.getPathDistanceKm();
                 fuelConsumed += Math.abs(action.getFuelChangeGal());
             }
         }
@@ -199,6 +199,43 @@ public class VehiclePlan {
         return null;
     }
 
+    /**
+     * Executes the actions started before {@code currentTime}, from the
+     * first unfinished one on. An action that has reached its end is
+     * executed one last time and then left behind the cursor, so a tick only
+     * visits the current and newly started actions.
+     *
+     * @param vehicle The live vehicle; the plan may hold the copy the solver
+     *                planned with
+     */
+    public void execute(Vehicle vehicle, Environment environment, LocalDateTime currentTime) {
+        long nowSecond = SimClock.toEpochSecond(currentTime);
+        for (int i = executionCursor; i < actions.size(); i++) {
+            Action action = actions.get(i);
+            if (action.getStartSecond() >= nowSecond) {
+                break;
+            }
+            action.execute(vehicle, environment, currentTime);
+            if (i == executionCursor && action.getEndSecond() <= nowSecond) {
+                executionCursor++;
+            }
+        }
+    }
+
+    /** Index of the first action not yet finished. */
+    public int getExecutionCursor() {
+        return executionCursor;
+    }
+
+    /** Restores the progress of a plan read back from a checkpoint. */
+    public void setExecutionCursor(int executionCursor) {
+        if (executionCursor < 0 || executionCursor > actions.size()) {
+            throw new IllegalArgumentException("Cursor " + executionCursor + " outside the plan's "
+                    + actions.size() + " actions");
+        }
+        this.executionCursor = executionCursor;
+    }
+
     public int getOrderCount() {
         return servedOrders.size();
     }
@@ -1,14 +1,38 @@
 package com.vroute.orchest;
 
+import com.vroute.assignation.SolverParameters;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Properties;
+
 /**
  * Holds configuration parameters for the routing and planning algorithms.
  */
 public class AlgorithmConfig {
 
+    // Keys of the solver parameter files written by com.vroute.tuning.TuningMain
+    public static final String KEY_MAX_ITERATIONS = "solver.maxIterations";
+    public static final String KEY_TABU_LIST_SIZE = "solver.tabuListSize";
+    public static final String KEY_NEIGHBORS = "solver.neighborsPerIteration";
+    public static final String KEY_INITIAL_TEMPERATURE = "solver.initialTemperature";
+    public static final String KEY_TEMPERATURE_DECAY = "solver.temperatureDecay";
+    public static final String KEY_EXACT_TOP_K = "solver.exactTopK";
+
     // Algorithm execution parameters
     private int algorithmJumpValue; // Sa - Salto del algoritmo
     private int consumptionJumpValue; // Sc - Salto del consumo
     private int executionTimeSeconds; // Ta - Tiempo de ejecución del algoritmo
+    private int zoneDecompositionMinOrders; // Pending orders from which the problem is split by depot zone (0 = never)
+    private long randomSeed; // Seed for the solver RNG; each replan derives its own seed from it (0 = new seed per run)
+    private SolverParameters solverParameters; // Search parameters of the metaheuristic
+    private String replanRecordDirectory; // Directory where each replan input is recorded (null = disabled)
+    private boolean localRepairEnabled; // Reassign a lost vehicle's deliveries by cheapest insertion instead of a full replan
+    private boolean orderInsertionEnabled; // Insert arriving orders into the live plans on the tick they arrive
 
     // Business rules parameters
     private int minimumDeliveryTimeHours; // Minimum time required for deliveries (default 4h)
@@ -32,6 +56,11 @@ public class AlgorithmConfig {
         config.setAlgorithmJumpValue(120); // 2 hours interval for replanning
         config.setConsumptionJumpValue(10); // Default Sc
         config.setExecutionTimeSeconds(30); // Default Ta
+        config.setZoneDecompositionMinOrders(200); // Split by depot zone on large replans
+        config.setRandomSeed(0); // Non-reproducible by default; the seeds used are logged
+        config.setSolverParameters(SolverParameters.defaults());
+        config.setLocalRepairEnabled(true);
+        config.setOrderInsertionEnabled(true);
         
         // Business defaults
         config.setMinimumDeliveryTimeHours(4); // Default 4 hours for delivery
@@ -48,6 +77,29 @@ public class AlgorithmConfig {
         return config;
     }
 
+    /**
+     * Independent copy, e.g. to give each run of a sweep its own seed.
+     */
+    public AlgorithmConfig copy() {
+        AlgorithmConfig copy = new AlgorithmConfig();
+        copy.algorithmJumpValue = algorithmJumpValue;
+        copy.consumptionJumpValue = consumptionJumpValue;
+        copy.executionTimeSeconds = executionTimeSeconds;
+        copy.zoneDecompositionMinOrders = zoneDecompositionMinOrders;
+        copy.randomSeed = randomSeed;
+        copy.solverParameters = solverParameters;
+        copy.replanRecordDirectory = replanRecordDirectory;
+        copy.localRepairEnabled = localRepairEnabled;
+        copy.orderInsertionEnabled = orderInsertionEnabled;
+        copy.minimumDeliveryTimeHours = minimumDeliveryTimeHours;
+        copy.simulationStepMinutes = simulationStepMinutes;
+        copy.simulationMaxDays = simulationMaxDays;
+        copy.lateDeliveryPenaltyFactor = lateDeliveryPenaltyFactor;
+        copy.fuelConsumptionWeight = fuelConsumptionWeight;
+        copy.distanceWeight = distanceWeight;
+        return copy;
+    }
+
     // Getters and setters
     public int getAlgorithmJumpValue() {
         return algorithmJumpValue;
@@ -73,6 +125,111 @@ public class AlgorithmConfig {
         this.executionTimeSeconds = executionTimeSeconds;
     }
 
+    public int getZoneDecompositionMinOrders() {
+        return zoneDecompositionMinOrders;
+    }
+
+    public void setZoneDecompositionMinOrders(int zoneDecompositionMinOrders) {
+        this.zoneDecompositionMinOrders = zoneDecompositionMinOrders;
+    }
+
+    public long getRandomSeed() {
+        return randomSeed;
+    }
+
+    public void setRandomSeed(long randomSeed) {
+        this.randomSeed = randomSeed;
+    }
+
+    public String getReplanRecordDirectory() {
+        return replanRecordDirectory;
+    }
+
+    public void setReplanRecordDirectory(String replanRecordDirectory) {
+        this.replanRecordDirectory = replanRecordDirectory;
+    }
+
+    public boolean isLocalRepairEnabled() {
+        return localRepairEnabled;
+    }
+
+    public void setLocalRepairEnabled(boolean localRepairEnabled) {
+        this.localRepairEnabled = localRepairEnabled;
+    }
+
+    public boolean isOrderInsertionEnabled() {
+        return orderInsertionEnabled;
+    }
+
+    public void setOrderInsertionEnabled(boolean orderInsertionEnabled) {
+        this.orderInsertionEnabled = orderInsertionEnabled;
+    }
+
+    public SolverParameters toSolverParameters() {
+        return solverParameters != null ? solverParameters : SolverParameters.defaults();
+    }
+
+    public void setSolverParameters(SolverParameters solverParameters) {
+        this.solverParameters = solverParameters;
+    }
+
+    /**
+     * Loads tuned solver parameters from a properties file. Missing keys keep
+     * their current value.
+     */
+    public void loadSolverParameters(Path file) throws IOException {
+        Properties properties = new Properties();
+        try (Reader reader = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+            properties.load(reader);
+        }
+        loadSolverParameters(properties, file.toString());
+    }
+
+    /**
+     * Same as {@link #loadSolverParameters(Path)} for properties already read,
+     * e.g. the {@code solver.*} keys of a scenario file.
+     *
+     * @param source Name used in the error message
+     */
+    public void loadSolverParameters(Properties properties, String source) throws IOException {
+        SolverParameters current = toSolverParameters();
+        try {
+            setSolverParameters(new SolverParameters(
+                    Integer.parseInt(properties.getProperty(KEY_MAX_ITERATIONS,
+                            String.valueOf(current.getMaxIterations())).trim()),
+                    Integer.parseInt(properties.getProperty(KEY_TABU_LIST_SIZE,
+                            String.valueOf(current.getTabuListSize())).trim()),
+                    Integer.parseInt(properties.getProperty(KEY_NEIGHBORS,
+                            String.valueOf(current.getNeighborsPerIteration())).trim()),
+                    Double.parseDouble(properties.getProperty(KEY_INITIAL_TEMPERATURE,
+                            String.valueOf(current.getInitialTemperature())).trim()),
+                    Double.parseDouble(properties.getProperty(KEY_TEMPERATURE_DECAY,
+                            String.valueOf(current.getTemperatureDecay())).trim()),
+                    Integer.parseInt(properties.getProperty(KEY_EXACT_TOP_K,
+                            String.valueOf(current.getExactTopK())).trim())));
+        } catch (IllegalArgumentException e) {
+            throw new IOException("Invalid solver parameters in " + source + ": " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Writes solver parameters in the format read by
+     * {@link #loadSolverParameters(Path)}.
+     */
+    public static void saveSolverParameters(SolverParameters parameters, Path file, String comment)
+            throws IOException {
+        Properties properties = new Properties();
+        properties.setProperty(KEY_MAX_ITERATIONS, String.valueOf(parameters.getMaxIterations()));
+        properties.setProperty(KEY_TABU_LIST_SIZE, String.valueOf(parameters.getTabuListSize()));
+        properties.setProperty(KEY_NEIGHBORS, String.valueOf(parameters.getNeighborsPerIteration()));
+        properties.setProperty(KEY_INITIAL_TEMPERATURE, String.valueOf(parameters.getInitialTemperature()));
+        properties.setProperty(KEY_TEMPERATURE_DECAY, String.valueOf(parameters.getTemperatureDecay()));
+        properties.setProperty(KEY_EXACT_TOP_K, String.valueOf(parameters.getExactTopK()));
+        try (Writer writer = Files.newBufferedWriter(file, StandardCharsets.UTF_8)) {
+            properties.store(writer, comment);
+        }
+    }
+
     public int getMinimumDeliveryTimeHours() {
         return minimumDeliveryTimeHours;
     }
@@ -0,0 +1,736 @@
+package com.vroute.orchest;
+
+import com.vroute.assignation.SolverParameters;
+import com.vroute.models.Blockage;
+import com.vroute.models.Depot;
+import com.vroute.models.Environment;
+import com.vroute.models.Incident;
+import com.vroute.models.IncidentType;
+import com.vroute.models.Maintenance;
+import com.vroute.models.Order;
+import com.vroute.models.Position;
+import com.vroute.models.ServeRecord;
+import com.vroute.models.Shift;
+import com.vroute.models.SimClock;
+import com.vroute.models.Vehicle;
+import com.vroute.models.VehicleStatus;
+import com.vroute.models.VehicleType;
+import com.vroute.operation.Action;
+import com.vroute.operation.ActionType;
+import com.vroute.operation.VehiclePlan;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Binary checkpoint of a simulation between two ticks: configuration,
+ * environment, orchestrator clock and replan counters, solver seed sequence,
+ * stats, queued events and vehicle plans. {@link #decode} rebuilds an
+ * orchestrator that continues the run as if it had never stopped.
+ *
+ * Objects reachable from several places (an order in the environment and in
+ * a plan, an incident in the registry and in its breakdown event) are written
+ * once and then referenced by index, so the restored objects are shared the
+ * same way. Paths are stored as one-byte steps. Files are gzipped;
+ * {@link CheckpointWriter} writes them off the simulation thread.
+ */
+public final class CheckpointCodec {
+    private static final int MAGIC = 0x56524331; // "VRC1"
+    // 2: plans carry their execution cursor
+    private static final int FORMAT_VERSION = 2;
+
+    private static final int NULL_REF = -1;
+
+    private static final byte DATA_NONE = 0;
+    private static final byte DATA_ORDER = 1;
+    private static final byte DATA_BLOCKAGE = 2;
+    private static final byte DATA_MAINTENANCE = 3;
+    private static final byte DATA_INCIDENT = 4;
+
+    // Marks a path step that does not fit in a byte; the full position follows
+    private static final byte PATH_ESCAPE = Byte.MIN_VALUE;
+
+    private CheckpointCodec() {
+    }
+
+    /**
+     * Serializes the current state of {@code orchestrator}. Must be called on
+     * the simulation thread, between ticks.
+     */
+    public static byte[] encode(Orchestrator orchestrator) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(64 * 1024);
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            new Encoder(out).write(orchestrator);
+        }
+        return bytes.toByteArray();
+    }
+
+    /** Rebuilds an orchestrator, with its own environment, from {@link #encode} output. */
+    public static Orchestrator decode(byte[] checkpoint) throws IOException {
+        try (DataInputStream in = new DataInputStream(new ByteArrayInputStream(checkpoint))) {
+            return new Decoder(in).read();
+        }
+    }
+
+    /**
+     * Writes an encoded checkpoint gzipped to {@code file}, through a
+     * temporary file so a crash never leaves a truncated checkpoint behind.
+     */
+    public static void write(byte[] checkpoint, Path file) throws IOException {
+        Path parent = file.toAbsolutePath().getParent();
+        if (parent != null) {
+            Files.createDirectories(parent);
+        }
+        Path temp = file.resolveSibling(file.getFileName() + ".tmp");
+        try (OutputStream out = new GZIPOutputStream(Files.newOutputStream(temp), 64 * 1024)) {
+            out.write(checkpoint);
+        }
+        try {
+            Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (AtomicMoveNotSupportedException e) {
+            Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+
+    public static Orchestrator read(Path file) throws IOException {
+        byte[] checkpoint;
+        try (InputStream in = new GZIPInputStream(Files.newInputStream(file), 64 * 1024)) {
+            checkpoint = in.readAllBytes();
+        }
+        try {
+            return decode(checkpoint);
+        } catch (IOException | RuntimeException e) {
+            throw new IOException("Cannot read checkpoint " + file + ": " + e.getMessage(), e);
+        }
+    }
+
+    /** Writes one event with its data; used by {@link EventLog}. */
+    static void writeEvent(DataOutputStream out, Event event) throws IOException {
+        new Encoder(out).writeEvent(event);
+    }
+
+    static Event readEvent(DataInputStream in) throws IOException {
+        return new Decoder(in).readEvent();
+    }
+
+    /** Writes one plan; used by {@link EventLog}. */
+    static void writePlan(DataOutputStream out, VehiclePlan plan) throws IOException {
+        new Encoder(out).writePlan(plan);
+    }
+
+    /**
+     * Reads a plan written by {@link #writePlan} for a simulation already
+     * running in {@code environment}: the vehicle and the orders it serves
+     * are that environment's objects when they exist there.
+     */
+    static VehiclePlan readPlan(DataInputStream in, Environment environment) throws IOException {
+        Decoder decoder = new Decoder(in);
+        decoder.target = environment;
+        return decoder.readPlan();
+    }
+
+    // Times keep their nanoseconds: maintenance windows end at 23:59:59.999999999
+    static void writeTime(DataOutputStream out, LocalDateTime time) throws IOException {
+        out.writeLong(SimClock.toEpochSecond(time));
+        out.writeInt(time.getNano());
+    }
+
+    static LocalDateTime readTime(DataInputStream in) throws IOException {
+        long epochSecond = in.readLong();
+        return SimClock.fromEpochSecond(epochSecond).withNano(in.readInt());
+    }
+
+    static void writeNullableTime(DataOutputStream out, LocalDateTime time) throws IOException {
+        out.writeBoolean(time != null);
+        if (time != null) {
+            writeTime(out, time);
+        }
+    }
+
+    static LocalDateTime readNullableTime(DataInputStream in) throws IOException {
+        return in.readBoolean() ? readTime(in) : null;
+    }
+
+    private static final class Encoder {
+        private final DataOutputStream out;
+        private final Map<Object, Integer> refs = new IdentityHashMap<>();
+
+        private Encoder(DataOutputStream out) {
+            this.out = out;
+        }
+
+        private void write(Orchestrator orchestrator) throws IOException {
+            out.writeInt(MAGIC);
+            out.writeShort(FORMAT_VERSION);
+            writeConfig(orchestrator.getConfig());
+            writeEnvironment(orchestrator.getEnvironment());
+            orchestrator.writeCheckpointState(out);
+
+            List<Event> events = orchestrator.getPendingEvents();
+            out.writeInt(events.size());
+            for (Event event : events) {
+                writeEvent(event);
+            }
+
+            Map<Vehicle, VehiclePlan> plans = orchestrator.getVehiclePlans();
+            out.writeInt(plans.size());
+            for (Map.Entry<Vehicle, VehiclePlan> entry : plans.entrySet()) {
+                writeVehicle(entry.getKey());
+                writePlan(entry.getValue());
+            }
+        }
+
+        /**
+         * Writes the reference index of {@code object}.
+         *
+         * @return true if this is its first occurrence and its fields must follow
+         */
+        private boolean writeRef(Object object) throws IOException {
+            if (object == null) {
+                out.writeInt(NULL_REF);
+                return false;
+            }
+            Integer index = refs.get(object);
+            if (index != null) {
+                out.writeInt(index);
+                return false;
+            }
+            out.writeInt(refs.size());
+            refs.put(object, refs.size());
+            return true;
+        }
+
+        private void writeConfig(AlgorithmConfig config) throws IOException {
+            out.writeInt(config.getAlgorithmJumpValue());
+            out.writeInt(config.getConsumptionJumpValue());
+            out.writeInt(config.getExecutionTimeSeconds());
+            out.writeInt(config.getZoneDecompositionMinOrders());
+            out.writeLong(config.getRandomSeed());
+            SolverParameters parameters = config.toSolverParameters();
+            out.writeInt(parameters.getMaxIterations());
+            out.writeInt(parameters.getTabuListSize());
+            out.writeInt(parameters.getNeighborsPerIteration());
+            out.writeDouble(parameters.getInitialTemperature());
+            out.writeDouble(parameters.getTemperatureDecay());
+            out.writeInt(parameters.getExactTopK());
+            writeNullableString(config.getReplanRecordDirectory());
+            out.writeBoolean(config.isLocalRepairEnabled());
+            out.writeBoolean(config.isOrderInsertionEnabled());
+            out.writeInt(config.getMinimumDeliveryTimeHours());
+            out.writeInt(config.getSimulationStepMinutes());
+            out.writeInt(config.getSimulationMaxDays());
+            out.writeDouble(config.getLateDeliveryPenaltyFactor());
+            out.writeDouble(config.getFuelConsumptionWeight());
+            out.writeDouble(config.getDistanceWeight());
+        }
+
+        private void writeEnvironment(Environment environment) throws IOException {
+            writeTime(out, environment.getCurrentTime());
+            List<Vehicle> vehicles = environment.getVehicles();
+            out.writeInt(vehicles.size());
+            for (Vehicle vehicle : vehicles) {
+                writeVehicle(vehicle);
+            }
+            writeDepot(environment.getMainDepot());
+            List<Depot> auxDepots = environment.getAuxDepots();
+            out.writeInt(auxDepots.size());
+            for (Depot depot : auxDepots) {
+                writeDepot(depot);
+            }
+            List<Order> orders = environment.getOrderQueue();
+            out.writeInt(orders.size());
+            for (Order order : orders) {
+                writeOrder(order);
+            }
+            List<Blockage> blockages = environment.getActiveBlockages();
+            out.writeInt(blockages.size());
+            for (Blockage blockage : blockages) {
+                writeBlockage(blockage);
+            }
+            List<Incident> incidents = environment.getIncidentRegistry();
+            out.writeInt(incidents.size());
+            for (Incident incident : incidents) {
+                writeIncident(incident);
+            }
+            List<Maintenance> tasks = environment.getMaintenanceTasks();
+            out.writeInt(tasks.size());
+            for (Maintenance task : tasks) {
+                writeMaintenance(task);
+            }
+        }
+
+        private void writeEvent(Event event) throws IOException {
+            out.writeByte(event.getType().ordinal());
+            writeTime(out, event.getTime());
+            writeNullableString(event.getEntityId());
+            Object data = event.getData();
+            if (data == null) {
+                out.writeByte(DATA_NONE);
+            } else if (data instanceof Order) {
+                out.writeByte(DATA_ORDER);
+                writeOrder((Order) data);
+            } else if (data instanceof Blockage) {
+                out.writeByte(DATA_BLOCKAGE);
+                writeBlockage((Blockage) data);
+            } else if (data instanceof Maintenance) {
+                out.writeByte(DATA_MAINTENANCE);
+                writeMaintenance((Maintenance) data);
+            } else if (data instanceof Incident) {
+                out.writeByte(DATA_INCIDENT);
+                writeIncident((Incident) data);
+            } else {
+                throw new IOException("Cannot checkpoint event data of type " + data.getClass().getName());
+            }
+        }
+
+        private void writePlan(VehiclePlan plan) throws IOException {
+            writeVehicle(plan.getVehicle());
+            writeNullableTime(out, plan.getStartTime());
+            List<Action> actions = plan.getActions();
+            out.writeInt(actions.size());
+            for (Action action : actions) {
+                out.writeByte(action.getType().ordinal());
+                writePath(action.getPath());
+                writeNullablePosition(action.getDestination());
+                writeTime(out, action.getExpectedStartTime());
+                writeTime(out, action.getExpectedEndTime());
+                writeOrder(action.getOrder());
+                out.writeInt(action.getGlpChangeM3());
+                out.writeDouble(action.getFuelChangeGal());
+                out.writeInt(action.getRecordedPathIndex());
+                out.writeBoolean(action.isStarted());
+            }
+            out.writeInt(plan.getExecutionCursor());
+        }
+
+        private void writeVehicle(Vehicle vehicle) throws IOException {
+            if (!writeRef(vehicle)) {
+                return;
+            }
+            out.writeUTF(vehicle.getId());
+            out.writeByte(vehicle.getType().ordinal());
+            writePosition(vehicle.getCurrentPosition());
+            out.writeInt(vehicle.getCurrentGlpM3());
+            out.writeDouble(vehicle.getCurrentFuelGal());
+            out.writeByte(vehicle.getStatus().ordinal());
+            out.writeDouble(vehicle.getDistanceTraveledKm());
+            out.writeDouble(vehicle.getFuelBurnedGal());
+        }
+
+        private void writeOrder(Order order) throws IOException {
+            if (!writeRef(order)) {
+                return;
+            }
+            out.writeUTF(order.getId());
+            writeTime(out, order.getArriveTime());
+            writeTime(out, order.getDueTime());
+            out.writeInt(order.getGlpRequestM3());
+            writePosition(order.getPosition());
+            List<ServeRecord> records = order.getRecords();
+            out.writeInt(records.size());
+            for (ServeRecord record : records) {
+                out.writeUTF(record.getVehicleId());
+                out.writeInt(record.getServedGlpM3());
+                writeTime(out, record.getServeTime());
+            }
+        }
+
+        private void writeBlockage(Blockage blockage) throws IOException {
+            if (!writeRef(blockage)) {
+                return;
+            }
+            writeTime(out, blockage.getStartTime());
+            writeTime(out, blockage.getEndTime());
+            List<Position> lines = blockage.getLines();
+            out.writeInt(lines.size());
+            for (Position point : lines) {
+                writePosition(point);
+            }
+        }
+
+        private void writeIncident(Incident incident) throws IOException {
+            if (!writeRef(incident)) {
+                return;
+            }
+            out.writeUTF(incident.getVehicleId());
+            out.writeByte(incident.getType().ordinal());
+            out.writeByte(incident.getShift().ordinal());
+            writeNullableTime(out, incident.getOccurrenceTime());
+            writeNullablePosition(incident.getLocation());
+            out.writeBoolean(incident.isResolved());
+            out.writeDouble(incident.getTransferableGlp());
+        }
+
+        private void writeMaintenance(Maintenance task) throws IOException {
+            if (!writeRef(task)) {
+                return;
+            }
+            out.writeUTF(task.getVehicleId());
+            writeTime(out, task.getStartTime());
+            writeTime(out, task.getEndTime());
+            out.writeInt(task.getRepeatMonths());
+            out.writeBoolean(task.isCompleted());
+        }
+
+        private void writeDepot(Depot depot) throws IOException {
+            out.writeUTF(depot.getId());
+            writePosition(depot.getPosition());
+            out.writeInt(depot.getGlpCapacityM3());
+            out.writeInt(depot.getCurrentGlpM3());
+            out.writeBoolean(depot.canRefuel());
+        }
+
+        private void writePath(List<Position> path) throws IOException {
+            if (path == null) {
+                out.writeInt(-1);
+                return;
+            }
+            out.writeInt(path.size());
+            Position previous = null;
+            for (Position point : path) {
+                if (previous == null) {
+                    writePosition(point);
+                } else {
+                    int dx = point.getX() - previous.getX();
+                    int dy = point.getY() - previous.getY();
+                    if (dx > PATH_ESCAPE && dx <= Byte.MAX_VALUE && dy > PATH_ESCAPE && dy <= Byte.MAX_VALUE) {
+                        out.writeByte(dx);
+                        out.writeByte(dy);
+                    } else {
+                        out.writeByte(PATH_ESCAPE);
+                        writePosition(point);
+                    }
+                }
+                previous = point;
+            }
+        }
+
+        private void writePosition(Position position) throws IOException {
+            out.writeShort(position.getX());
+            out.writeShort(position.getY());
+        }
+
+        private void writeNullablePosition(Position position) throws IOException {
+            out.writeBoolean(position != null);
+            if (position != null) {
+                writePosition(position);
+            }
+        }
+
+        private void writeNullableString(String value) throws IOException {
+            out.writeBoolean(value != null);
+            if (value != null) {
+                out.writeUTF(value);
+            }
+        }
+    }
+
+    private static final class Decoder {
+        private final DataInputStream in;
+        private final List<Object> refs = new ArrayList<>();
+        // Running environment whose vehicles and orders replace the decoded copies, if any
+        private Environment target;
+
+        private Decoder(DataInputStream in) {
+            this.in = in;
+        }
+
+        private Orchestrator read() throws IOException {
+            if (in.readInt() != MAGIC) {
+                throw new IOException("Not a simulation checkpoint");
+            }
+            int version = in.readUnsignedShort();
+            if (version != FORMAT_VERSION) {
+                throw new IOException("Unsupported checkpoint version " + version);
+            }
+            AlgorithmConfig config = readConfig();
+            Environment environment = readEnvironment();
+            Orchestrator orchestrator = new Orchestrator(environment);
+            orchestrator.setConfig(config);
+            orchestrator.readCheckpointState(in);
+
+            int eventCount = in.readInt();
+            List<Event> events = new ArrayList<>(eventCount);
+            for (int i = 0; i < eventCount; i++) {
+                events.add(readEvent());
+            }
+            orchestrator.addEvents(events);
+
+            int planCount = in.readInt();
+            for (int i = 0; i < planCount; i++) {
+                Vehicle vehicle = readVehicle();
+                orchestrator.restorePlan(vehicle, readPlan());
+            }
+            return orchestrator;
+        }
+
+        private interface FieldReader<T> {
+            T read() throws IOException;
+        }
+
+        /** Reads a reference written by {@code Encoder.writeRef}, and the object itself on its first occurrence. */
+        private <T> T readRef(Class<T> type, FieldReader<T> fields) throws IOException {
+            int index = in.readInt();
+            if (index == NULL_REF) {
+                return null;
+            }
+            if (index < refs.size()) {
+                return type.cast(refs.get(index));
+            }
+            if (index != refs.size()) {
+                throw new IOException("Corrupt checkpoint: reference " + index + " out of order");
+            }
+            refs.add(null);
+            T object = fields.read();
+            refs.set(index, object);
+            return object;
+        }
+
+        private AlgorithmConfig readConfig() throws IOException {
+            AlgorithmConfig config = AlgorithmConfig.createDefault();
+            config.setAlgorithmJumpValue(in.readInt());
+            config.setConsumptionJumpValue(in.readInt());
+            config.setExecutionTimeSeconds(in.readInt());
+            config.setZoneDecompositionMinOrders(in.readInt());
+            config.setRandomSeed(in.readLong());
+            config.setSolverParameters(new SolverParameters(in.readInt(), in.readInt(), in.readInt(), in.readDouble(),
+                    in.readDouble(), in.readInt()));
+            config.setReplanRecordDirectory(readNullableString());
+            config.setLocalRepairEnabled(in.readBoolean());
+            config.setOrderInsertionEnabled(in.readBoolean());
+            config.setMinimumDeliveryTimeHours(in.readInt());
+            config.setSimulationStepMinutes(in.readInt());
+            config.setSimulationMaxDays(in.readInt());
+            config.setLateDeliveryPenaltyFactor(in.readDouble());
+            config.setFuelConsumptionWeight(in.readDouble());
+            config.setDistanceWeight(in.readDouble());
+            return config;
+        }
+
+        private Environment readEnvironment() throws IOException {
+            LocalDateTime time = readTime(in);
+            int vehicleCount = in.readInt();
+            List<Vehicle> vehicles = new ArrayList<>(vehicleCount);
+            for (int i = 0; i < vehicleCount; i++) {
+                vehicles.add(readVehicle());
+            }
+            Depot mainDepot = readDepot();
+            int auxCount = in.readInt();
+            List<Depot> auxDepots = new ArrayList<>(auxCount);
+            for (int i = 0; i < auxCount; i++) {
+                auxDepots.add(readDepot());
+            }
+            Environment environment = new Environment(vehicles, mainDepot, auxDepots, time);
+
+            int orderCount = in.readInt();
+            List<Order> orders = new ArrayList<>(orderCount);
+            for (int i = 0; i < orderCount; i++) {
+                orders.add(readOrder());
+            }
+            environment.addOrders(orders);
+            int blockageCount = in.readInt();
+            List<Blockage> blockages = new ArrayList<>(blockageCount);
+            for (int i = 0; i < blockageCount; i++) {
+                blockages.add(readBlockage());
+            }
+            environment.addBlockages(blockages);
+            int incidentCount = in.readInt();
+            List<Incident> incidents = new ArrayList<>(incidentCount);
+            for (int i = 0; i < incidentCount; i++) {
+                incidents.add(readIncident());
+            }
+            environment.addIncidents(incidents);
+            int taskCount = in.readInt();
+            List<Maintenance> tasks = new ArrayList<>(taskCount);
+            for (int i = 0; i < taskCount; i++) {
+                tasks.add(readMaintenance());
+            }
+            environment.addMaintenanceTasks(tasks);
+            return environment;
+        }
+
+        private Event readEvent() throws IOException {
+            EventType type = EventType.values()[in.readUnsignedByte()];
+            LocalDateTime time = readTime(in);
+            String entityId = readNullableString();
+            byte dataType = in.readByte();
+            Object data;
+            switch (dataType) {
+                case DATA_NONE:
+                    data = null;
+                    break;
+                case DATA_ORDER:
+                    data = readOrder();
+                    break;
+                case DATA_BLOCKAGE:
+                    data = readBlockage();
+                    break;
+                case DATA_MAINTENANCE:
+                    data = readMaintenance();
+                    break;
+                case DATA_INCIDENT:
+                    data = readIncident();
+                    break;
+                default:
+                    throw new IOException("Unknown event data type " + dataType);
+            }
+            return new Event(type, time, entityId, data);
+        }
+
+        private VehiclePlan readPlan() throws IOException {
+            Vehicle vehicle = readVehicle();
+            LocalDateTime startTime = readNullableTime(in);
+            int actionCount = in.readInt();
+            List<Action> actions = new ArrayList<>(actionCount);
+            for (int i = 0; i < actionCount; i++) {
+                ActionType type = ActionType.values()[in.readUnsignedByte()];
+                List<Position> path = readPath();
+                Position destination = readNullablePosition();
+                LocalDateTime start = readTime(in);
+                LocalDateTime end = readTime(in);
+                Order order = readOrder();
+                int glpChange = in.readInt();
+                double fuelChange = in.readDouble();
+                Action action = new Action(type, path, destination, start, end, order, glpChange, fuelChange);
+                action.setRecordedPathIndex(in.readInt());
+                action.setStarted(in.readBoolean());
+                actions.add(action);
+            }
+            VehiclePlan plan = new VehiclePlan(vehicle, actions, startTime);
+            plan.setExecutionCursor(in.readInt());
+            return plan;
+        }
+
+        private Vehicle readVehicle() throws IOException {
+            return readRef(Vehicle.class, () -> {
+                Vehicle vehicle = new Vehicle(in.readUTF(), VehicleType.values()[in.readUnsignedByte()],
+                        readPosition());
+                vehicle.setCurrentGlpM3(in.readInt());
+                vehicle.setCurrentFuelGal(in.readDouble());
+                vehicle.setStatus(VehicleStatus.values()[in.readUnsignedByte()]);
+                double distance = in.readDouble();
+                vehicle.restoreOdometer(distance, in.readDouble());
+                Vehicle existing = target != null ? target.findVehicleById(vehicle.getId()) : null;
+                return existing != null ? existing : vehicle;
+            });
+        }
+
+        private Order readOrder() throws IOException {
+            return readRef(Order.class, () -> {
+                String id = in.readUTF();
+                LocalDateTime arrive = readTime(in);
+                LocalDateTime due = readTime(in);
+                int request = in.readInt();
+                Order order = new Order(id, arrive, due.minusHours(Order.DUE_MARGIN_HOURS), request, readPosition());
+                int records = in.readInt();
+                for (int i = 0; i < records; i++) {
+                    String vehicleId = in.readUTF();
+                    int served = in.readInt();
+                    // Replaying the deliveries also restores the remaining volume
+                    order.recordDelivery(served, vehicleId, readTime(in));
+                }
+                Order existing = target != null ? target.findOrderById(id) : null;
+                return existing != null ? existing : order;
+            });
+        }
+
+        private Blockage readBlockage() throws IOException {
+            return readRef(Blockage.class, () -> {
+                LocalDateTime start = readTime(in);
+                LocalDateTime end = readTime(in);
+                int points = in.readInt();
+                List<Position> lines = new ArrayList<>(points);
+                for (int i = 0; i < points; i++) {
+                    lines.add(readPosition());
+                }
+                return new Blockage(start, end, lines);
+            });
+        }
+
+        private Incident readIncident() throws IOException {
+            return readRef(Incident.class, () -> {
+                Incident incident = new Incident(in.readUTF(), IncidentType.values()[in.readUnsignedByte()],
+                        Shift.values()[in.readUnsignedByte()]);
+                incident.setOccurrenceTime(readNullableTime(in));
+                incident.setLocation(readNullablePosition());
+                if (in.readBoolean()) {
+                    incident.setResolved();
+                }
+                incident.setTransferableGlp(in.readDouble());
+                return incident;
+            });
+        }
+
+        private Maintenance readMaintenance() throws IOException {
+            return readRef(Maintenance.class, () -> {
+                String vehicleId = in.readUTF();
+                LocalDateTime start = readTime(in);
+                LocalDateTime end = readTime(in);
+                Maintenance task = new Maintenance(vehicleId, start, end, in.readInt());
+                task.setCompleted(in.readBoolean());
+                return task;
+            });
+        }
+
+        private Depot readDepot() throws IOException {
+            String id = in.readUTF();
+            Position position = readPosition();
+            int capacity = in.readInt();
+            int current = in.readInt();
+            Depot depot = new Depot(id, position, capacity, in.readBoolean());
+            depot.refillGLP();
+            depot.serveGLP(capacity - current);
+            return depot;
+        }
+
+        private List<Position> readPath() throws IOException {
+            int size = in.readInt();
+            if (size < 0) {
+                return null;
+            }
+            List<Position> path = new ArrayList<>(size);
+            Position previous = null;
+            for (int i = 0; i < size; i++) {
+                Position point;
+                if (previous == null) {
+                    point = readPosition();
+                } else {
+                    byte dx = in.readByte();
+                    point = dx == PATH_ESCAPE ? readPosition()
+                            : new Position(previous.getX() + dx, previous.getY() + in.readByte());
+                }
+                path.add(point);
+                previous = point;
+            }
+            return path;
+        }
+
+        private Position readPosition() throws IOException {
+            return new Position(in.readShort(), in.readShort());
+        }
+
+        private Position readNullablePosition() throws IOException {
+            return in.readBoolean() ? readPosition() : null;
+        }
+
+        private String readNullableString() throws IOException {
+            return in.readBoolean() ? in.readUTF() : null;
+        }
+    }
+}
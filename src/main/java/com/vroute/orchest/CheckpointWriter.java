@@ -0,0 +1,61 @@
+package com.vroute.orchest;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Logger;
+
+/**
+ * Writes checkpoints without holding up the simulation. The state is encoded
+ * into memory on the calling thread, so the snapshot is consistent; gzip and
+ * disk I/O run on a single background thread, in submission order.
+ */
+public class CheckpointWriter implements AutoCloseable {
+    private static final Logger logger = Logger.getLogger(CheckpointWriter.class.getName());
+
+    private final ExecutorService executor = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "checkpoint-writer");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    /**
+     * Snapshots {@code orchestrator} now and writes it to {@code file} in the
+     * background. The snapshot time is added to the orchestrator's I/O time.
+     *
+     * @return Completes with {@code file} once written, or exceptionally if
+     *         the write failed
+     */
+    public CompletableFuture<Path> submit(Orchestrator orchestrator, Path file) throws IOException {
+        long start = System.nanoTime();
+        byte[] snapshot = CheckpointCodec.encode(orchestrator);
+        orchestrator.getStats().addIoWallNanos(System.nanoTime() - start);
+        return CompletableFuture.supplyAsync(() -> {
+            try {
+                CheckpointCodec.write(snapshot, file);
+                logger.info("Checkpoint of " + snapshot.length + " bytes written to " + file);
+                return file;
+            } catch (IOException e) {
+                logger.warning("Could not write checkpoint " + file + ": " + e.getMessage());
+                throw new UncheckedIOException(e);
+            }
+        }, executor);
+    }
+
+    /** Waits for the pending writes to finish. */
+    @Override
+    public void close() {
+        executor.shutdown();
+        try {
+            if (!executor.awaitTermination(1, TimeUnit.MINUTES)) {
+                logger.warning("Checkpoint writes still pending after one minute");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -11,6 +11,7 @@ public class Event implements Comparable<Event> {
     private final LocalDateTime time;
     private final String entityId;  // ID of related entity (vehicle, order, blockage, etc.)
     private final Object data;      // Additional event data
+    private volatile boolean cancelled;
 
     public Event(EventType type, LocalDateTime time, String entityId, Object data) {
         this.type = type;
@@ -44,6 +45,17 @@ public class Event implements Comparable<Event> {
         return (T) data;
     }
 
+    public boolean isCancelled() {
+        return cancelled;
+    }
+
+    /**
+     * Use {@link EventQueue#cancel} or {@link Orchestrator#cancelEvent}.
+     */
+    void cancel() {
+        this.cancelled = true;
+    }
+
     @Override
     public int compareTo(Event other) {
         return this.time.compareTo(other.time);
@@ -0,0 +1,307 @@
+package com.vroute.orchest;
+
+import com.vroute.models.Environment;
+import com.vroute.models.SimClock;
+import com.vroute.models.Vehicle;
+import com.vroute.operation.VehiclePlan;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.logging.Logger;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+
+/**
+ * Append-only log of a simulation run: every event processed, every planning
+ * decision (local repair, order insertion, full replan) with the plans it
+ * installed or removed, and the steps each tick advanced, plus a keyframe
+ * checkpoint every {@code keyframeEveryTicks} ticks. {@link EventLogReplay}
+ * rebuilds the state at any tick from it without running the solver.
+ *
+ * Records are {@code type, payload length, payload}, so a reader can skip
+ * the ones it does not need. Keyframes are deflated {@link CheckpointCodec}
+ * snapshots taken before the tick they are numbered with. A write failure is
+ * logged once and stops the recording; the simulation carries on.
+ */
+public class EventLog implements AutoCloseable {
+    private static final Logger logger = Logger.getLogger(EventLog.class.getName());
+
+    static final int MAGIC = 0x56524C31; // "VRL1"
+    // Follows the checkpoint format, which keyframes and plans are written in
+    static final int FORMAT_VERSION = 2;
+
+    static final byte KEYFRAME = 1;
+    static final byte EVENT = 2;
+    static final byte DECISION = 3;
+    static final byte TICK = 4;
+
+    // Decision kinds, the first byte of a decision record
+    static final byte REPAIR = 1;
+    static final byte INSERTION = 2;
+    static final byte REPLAN = 3;
+
+    public static final int DEFAULT_KEYFRAME_INTERVAL = 500;
+
+    private final Path file;
+    private final int keyframeEveryTicks;
+    private final DataOutputStream out;
+    // Each record is assembled here first so its length can be written ahead of it
+    private final ByteArrayOutputStream recordBytes = new ByteArrayOutputStream(4096);
+    private final DataOutputStream record = new DataOutputStream(recordBytes);
+    // Reused for every keyframe; the deflating stream is finished, never
+    // closed, since closing it would close record as well
+    private final Deflater deflater = new Deflater();
+    private long ticks;
+    private boolean failed;
+
+    public EventLog(Path file) throws IOException {
+        this(file, DEFAULT_KEYFRAME_INTERVAL);
+    }
+
+    public EventLog(Path file, int keyframeEveryTicks) throws IOException {
+        if (keyframeEveryTicks <= 0) {
+            throw new IllegalArgumentException("Keyframe interval must be positive: " + keyframeEveryTicks);
+        }
+        this.file = file;
+        this.keyframeEveryTicks = keyframeEveryTicks;
+        Path parent = file.toAbsolutePath().getParent();
+        if (parent != null) {
+            Files.createDirectories(parent);
+        }
+        this.out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(file), 64 * 1024));
+        out.writeInt(MAGIC);
+        out.writeShort(FORMAT_VERSION);
+    }
+
+    /** Ticks recorded so far. */
+    public long getTicks() {
+        return ticks;
+    }
+
+    /** Called at the start of each tick; writes a keyframe on the interval. */
+    void beforeTick(Orchestrator orchestrator) {
+        if (failed || ticks % keyframeEveryTicks != 0) {
+            return;
+        }
+        try {
+            long start = System.nanoTime();
+            byte[] snapshot = CheckpointCodec.encode(orchestrator);
+            record.writeLong(ticks);
+            record.writeLong(SimClock.toEpochSecond(orchestrator.getSimulationTime()));
+            deflater.reset();
+            DeflaterOutputStream compressed = new DeflaterOutputStream(record, deflater);
+            compressed.write(snapshot);
+            compressed.finish();
+            flushRecord(KEYFRAME);
+            orchestrator.getStats().addIoWallNanos(System.nanoTime() - start);
+        } catch (IOException e) {
+            fail(e);
+        }
+    }
+
+    void recordEvent(Event event) {
+        if (failed) {
+            return;
+        }
+        try {
+            CheckpointCodec.writeEvent(record, event);
+            flushRecord(EVENT);
+        } catch (IOException e) {
+            fail(e);
+        }
+    }
+
+    /** A local repair after a vehicle left service. */
+    void recordRepair(boolean repaired, long nanos, Map<Vehicle, VehiclePlan> before,
+            Map<Vehicle, VehiclePlan> after) {
+        if (failed) {
+            return;
+        }
+        try {
+            record.writeByte(REPAIR);
+            record.writeBoolean(repaired);
+            record.writeLong(nanos);
+            writePlanChanges(before, after);
+            flushRecord(DECISION);
+        } catch (IOException e) {
+            fail(e);
+        }
+    }
+
+    /** The insertion of the orders that arrived this tick. */
+    void recordInsertion(int committed, long nanos, Map<Vehicle, VehiclePlan> before,
+            Map<Vehicle, VehiclePlan> after) {
+        if (failed) {
+            return;
+        }
+        try {
+            record.writeByte(INSERTION);
+            record.writeInt(committed);
+            record.writeLong(nanos);
+            writePlanChanges(before, after);
+            flushRecord(DECISION);
+        } catch (IOException e) {
+            fail(e);
+        }
+    }
+
+    /** A full replan, with the solver seed sequence position it left. */
+    void recordReplan(long nanos, boolean seeded, long baseSeed, long seedsDrawn,
+            Map<Vehicle, VehiclePlan> before, Map<Vehicle, VehiclePlan> after) {
+        if (failed) {
+            return;
+        }
+        try {
+            record.writeByte(REPLAN);
+            record.writeLong(nanos);
+            record.writeBoolean(seeded);
+            record.writeLong(baseSeed);
+            record.writeLong(seedsDrawn);
+            writePlanChanges(before, after);
+            flushRecord(DECISION);
+        } catch (IOException e) {
+            fail(e);
+        }
+    }
+
+    // Only the plans the decision replaced; a removed plan is written as absent
+    private void writePlanChanges(Map<Vehicle, VehiclePlan> before, Map<Vehicle, VehiclePlan> after)
+            throws IOException {
+        Map<Vehicle, VehiclePlan> changes = new LinkedHashMap<>();
+        for (Map.Entry<Vehicle, VehiclePlan> entry : after.entrySet()) {
+            if (before.get(entry.getKey()) != entry.getValue()) {
+                changes.put(entry.getKey(), entry.getValue());
+            }
+        }
+        for (Vehicle vehicle : before.keySet()) {
+            if (!after.containsKey(vehicle)) {
+                changes.put(vehicle, null);
+            }
+        }
+        record.writeInt(changes.size());
+        for (Map.Entry<Vehicle, VehiclePlan> change : changes.entrySet()) {
+            record.writeUTF(change.getKey().getId());
+            record.writeBoolean(change.getValue() != null);
+            if (change.getValue() != null) {
+                CheckpointCodec.writePlan(record, change.getValue());
+            }
+        }
+    }
+
+    /** Closes the current tick with the steps the clock advanced after it. */
+    void recordTick(int steps) {
+        ticks++;
+        if (failed) {
+            return;
+        }
+        try {
+            record.writeInt(steps);
+            flushRecord(TICK);
+        } catch (IOException e) {
+            fail(e);
+        }
+    }
+
+    /**
+     * Decodes a decision record payload; its plans use the vehicles and
+     * orders of {@code environment}.
+     */
+    static Decision readDecision(byte[] payload, Environment environment) {
+        try {
+            DataInputStream in = new DataInputStream(new ByteArrayInputStream(payload));
+            Decision decision = new Decision(in.readByte());
+            switch (decision.kind) {
+                case REPAIR:
+                    decision.repaired = in.readBoolean();
+                    decision.nanos = in.readLong();
+                    break;
+                case INSERTION:
+                    decision.committed = in.readInt();
+                    decision.nanos = in.readLong();
+                    break;
+                case REPLAN:
+                    decision.nanos = in.readLong();
+                    decision.seeded = in.readBoolean();
+                    decision.baseSeed = in.readLong();
+                    decision.seedsDrawn = in.readLong();
+                    break;
+                default:
+                    throw new IOException("Unknown decision " + decision.kind);
+            }
+            int changes = in.readInt();
+            for (int i = 0; i < changes; i++) {
+                String vehicleId = in.readUTF();
+                Vehicle vehicle = environment.findVehicleById(vehicleId);
+                if (vehicle == null) {
+                    throw new IOException("Unknown vehicle " + vehicleId);
+                }
+                decision.planChanges.put(vehicle,
+                        in.readBoolean() ? CheckpointCodec.readPlan(in, environment) : null);
+            }
+            return decision;
+        } catch (IOException e) {
+            throw new UncheckedIOException("Corrupt event log decision: " + e.getMessage(), e);
+        }
+    }
+
+    /** A planning decision read back from the log; a null plan removes the vehicle's plan. */
+    static final class Decision {
+        final byte kind;
+        final Map<Vehicle, VehiclePlan> planChanges = new LinkedHashMap<>();
+        boolean repaired;
+        int committed;
+        long nanos;
+        boolean seeded;
+        long baseSeed;
+        long seedsDrawn;
+
+        private Decision(byte kind) {
+            this.kind = kind;
+        }
+    }
+
+    /** Closes the current tick with the steps it advanced and the replan counters it left. */
+    void recordTick(int steps, int tickCounter, boolean needsReplanning) {
+        ticks++;
+        if (failed) {
+            return;
+        }
+        try {
+            record.writeInt(steps);
+            record.writeInt(tickCounter);
+            record.writeBoolean(needsReplanning);
+            flushRecord(TICK);
+        } catch (IOException e) {
+            fail(e);
+        }
+    }
+
+    private void flushRecord(byte type) throws IOException {
+        record.flush();
+        out.writeByte(type);
+        out.writeInt(recordBytes.size());
+        recordBytes.writeTo(out);
+        recordBytes.reset();
+    }
+
+    private void fail(IOException e) {
+        failed = true;
+        recordBytes.reset();
+        logger.warning("Event log " + file + " stopped at tick " + ticks + ": " + e.getMessage());
+    }
+
+    @Override
+    public void close() throws IOException {
+        deflater.end();
+        out.close();
+    }
+}
@@ -0,0 +1,223 @@
+package com.vroute.orchest;
+
+import com.vroute.models.SimClock;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayInputStream;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.logging.Logger;
+import java.util.zip.InflaterInputStream;
+
+/**
+ * Rebuilds the state of a recorded run from its {@link EventLog}. A seek
+ * restores the closest keyframe at or before the target tick, then replays
+ * the ticks after it: logged events are processed and logged decisions are
+ * applied as they were taken, so no solver, repair or insertion search runs.
+ *
+ * A log cut short by a crash is read up to its last complete tick.
+ */
+public class EventLogReplay implements AutoCloseable {
+    private static final Logger logger = Logger.getLogger(EventLogReplay.class.getName());
+
+    private static final int HEADER_BYTES = 6;
+    private static final int RECORD_HEADER_BYTES = 5;
+
+    private final Path file;
+    private final FileChannel channel;
+    private final List<Keyframe> keyframes = new ArrayList<>();
+    private final long tickCount;
+
+    private Orchestrator orchestrator;
+    private long tick;
+    private DataInputStream in;
+
+    private static final class Keyframe {
+        final long tick;
+        final long epochSecond;
+        final long offset;
+
+        Keyframe(long tick, long epochSecond, long offset) {
+            this.tick = tick;
+            this.epochSecond = epochSecond;
+            this.offset = offset;
+        }
+    }
+
+    public EventLogReplay(Path file) throws IOException {
+        this.file = file;
+        this.channel = FileChannel.open(file, StandardOpenOption.READ);
+        try {
+            this.tickCount = index();
+        } catch (IOException e) {
+            channel.close();
+            throw e;
+        }
+        if (keyframes.isEmpty()) {
+            channel.close();
+            throw new IOException("Event log " + file + " has no keyframe");
+        }
+        logger.info("Event log " + file + ": " + tickCount + " ticks, " + keyframes.size() + " keyframes");
+    }
+
+    /** Reads the record headers once, noting the keyframes and counting the complete ticks. */
+    private long index() throws IOException {
+        long size = channel.size();
+        DataInputStream records = openAt(0);
+        if (size < HEADER_BYTES || records.readInt() != EventLog.MAGIC) {
+            throw new IOException("Not an event log: " + file);
+        }
+        int version = records.readUnsignedShort();
+        if (version != EventLog.FORMAT_VERSION) {
+            throw new IOException("Unsupported event log version " + version);
+        }
+        long ticks = 0;
+        long offset = HEADER_BYTES;
+        while (offset + RECORD_HEADER_BYTES <= size) {
+            byte type = records.readByte();
+            int length = records.readInt();
+            if (length < 0 || offset + RECORD_HEADER_BYTES + length > size) {
+                break;
+            }
+            if (type == EventLog.KEYFRAME) {
+                keyframes.add(new Keyframe(records.readLong(), records.readLong(), offset));
+                records.skipNBytes(length - 2L * Long.BYTES);
+            } else {
+                records.skipNBytes(length);
+                if (type == EventLog.TICK) {
+                    ticks++;
+                }
+            }
+            offset += RECORD_HEADER_BYTES + length;
+        }
+        if (offset != size) {
+            logger.warning("Event log " + file + " ends with an incomplete record; replaying " + ticks + " ticks");
+        }
+        return ticks;
+    }
+
+    private DataInputStream openAt(long offset) throws IOException {
+        channel.position(offset);
+        return new DataInputStream(new BufferedInputStream(Channels.newInputStream(channel), 64 * 1024));
+    }
+
+    /** Complete ticks in the log. */
+    public long getTickCount() {
+        return tickCount;
+    }
+
+    /** Ticks replayed so far; the state is the one before tick {@code getTick()} ran. */
+    public long getTick() {
+        return tick;
+    }
+
+    /** The replayed simulation, or null before the first seek. */
+    public Orchestrator getOrchestrator() {
+        return orchestrator;
+    }
+
+    /**
+     * Brings the state to the start of tick {@code target}, that is, after
+     * {@code target} ticks have run.
+     */
+    public void seek(long target) throws IOException {
+        if (target < 0 || target > tickCount) {
+            throw new IllegalArgumentException("Tick " + target + " outside the log's 0.." + tickCount);
+        }
+        Keyframe keyframe = keyframes.get(0);
+        for (Keyframe candidate : keyframes) {
+            if (candidate.tick <= target) {
+                keyframe = candidate;
+            }
+        }
+        // Restoring is only worth it when replaying forward from here would be longer
+        if (orchestrator == null || target < tick || keyframe.tick > tick) {
+            restore(keyframe);
+        }
+        while (tick < target) {
+            step();
+        }
+    }
+
+    /** Brings the state to the first tick that starts at or after {@code time}, or to the end of the log. */
+    public void seekTime(LocalDateTime time) throws IOException {
+        long second = SimClock.toEpochSecond(time);
+        Keyframe keyframe = keyframes.get(0);
+        for (Keyframe candidate : keyframes) {
+            if (candidate.epochSecond <= second) {
+                keyframe = candidate;
+            }
+        }
+        if (orchestrator == null || orchestrator.getSimulationTime().isAfter(time) || keyframe.tick > tick) {
+            restore(keyframe);
+        }
+        while (tick < tickCount && orchestrator.getSimulationTime().isBefore(time)) {
+            step();
+        }
+    }
+
+    /**
+     * Replays the next tick.
+     *
+     * @return false if the log has no more ticks
+     */
+    public boolean step() throws IOException {
+        if (orchestrator == null) {
+            seek(0);
+        }
+        if (tick >= tickCount) {
+            return false;
+        }
+        RecordedTick recorded = new RecordedTick();
+        while (true) {
+            byte type = in.readByte();
+            byte[] payload = new byte[in.readInt()];
+            in.readFully(payload);
+            if (type == EventLog.EVENT) {
+                recorded.events.add(CheckpointCodec.readEvent(new DataInputStream(new ByteArrayInputStream(payload))));
+            } else if (type == EventLog.DECISION) {
+                recorded.decisions.add(payload);
+            } else if (type == EventLog.TICK) {
+                recorded.steps = new DataInputStream(new ByteArrayInputStream(payload)).readInt();
+                break;
+            }
+        }
+        orchestrator.replayTick(recorded);
+        if (!recorded.decisions.isEmpty()) {
+            throw new IllegalStateException("Event log out of step with the replay at tick " + tick + ": "
+                    + recorded.decisions.size() + " decisions not taken");
+        }
+        tick++;
+        return true;
+    }
+
+    private void restore(Keyframe keyframe) throws IOException {
+        in = openAt(keyframe.offset);
+        in.readByte();
+        byte[] payload = new byte[in.readInt()];
+        in.readFully(payload);
+        // Tick and time, already in the index, precede the snapshot
+        InputStream snapshot = new InflaterInputStream(
+                new ByteArrayInputStream(payload, 2 * Long.BYTES, payload.length - 2 * Long.BYTES));
+        try {
+            orchestrator = CheckpointCodec.decode(snapshot.readAllBytes());
+        } catch (EOFException e) {
+            throw new IOException("Corrupt keyframe at tick " + keyframe.tick + " in " + file, e);
+        }
+        tick = keyframe.tick;
+    }
+
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+}
@@ -0,0 +1,115 @@
+package com.vroute.orchest;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.PriorityQueue;
+
+/**
+ * Pending simulation events in a binary heap ordered by time. Events with
+ * the same time come out in the order they were added. Cancelled events stay
+ * in the heap and are dropped when they reach the head.
+ *
+ * Methods are synchronized so events can be added or cancelled from other
+ * threads (the API) while the simulation thread drains the queue.
+ */
+public class EventQueue {
+    private PriorityQueue<Entry> heap = new PriorityQueue<>();
+    private long nextSequence;
+
+    public synchronized void add(Event event) {
+        heap.add(new Entry(event, nextSequence++));
+    }
+
+    /**
+     * Adds a batch of events. Into an empty queue (the initial load) the heap
+     * is built in linear time instead of one insertion per event.
+     */
+    public synchronized void addAll(Collection<Event> events) {
+        List<Entry> entries = new ArrayList<>(events.size());
+        for (Event event : events) {
+            entries.add(new Entry(event, nextSequence++));
+        }
+        if (heap.isEmpty()) {
+            heap = new PriorityQueue<>(entries);
+        } else {
+            heap.addAll(entries);
+        }
+    }
+
+    /**
+     * Marks {@code event} as cancelled; it is discarded instead of processed.
+     *
+     * @return false if it was already cancelled
+     */
+    public synchronized boolean cancel(Event event) {
+        if (event.isCancelled()) {
+            return false;
+        }
+        event.cancel();
+        return true;
+    }
+
+    /** Earliest event that is not cancelled, or null if there is none. */
+    public synchronized Event peek() {
+        dropCancelledHead();
+        Entry head = heap.peek();
+        return head != null ? head.event : null;
+    }
+
+    /**
+     * Removes and returns the earliest event if it happens strictly before
+     * {@code time}, or null otherwise.
+     */
+    public synchronized Event pollBefore(LocalDateTime time) {
+        dropCancelledHead();
+        Entry head = heap.peek();
+        if (head == null || !head.event.getTime().isBefore(time)) {
+            return null;
+        }
+        heap.poll();
+        return head.event;
+    }
+
+    /** Events not yet processed or cancelled, in the order they will be polled. */
+    public synchronized List<Event> snapshot() {
+        List<Entry> entries = new ArrayList<>(heap);
+        Collections.sort(entries);
+        List<Event> events = new ArrayList<>(entries.size());
+        for (Entry entry : entries) {
+            if (!entry.event.isCancelled()) {
+                events.add(entry.event);
+            }
+        }
+        return events;
+    }
+
+    public synchronized boolean isEmpty() {
+        dropCancelledHead();
+        return heap.isEmpty();
+    }
+
+    private void dropCancelledHead() {
+        while (!heap.isEmpty() && heap.peek().event.isCancelled()) {
+            heap.poll();
+        }
+    }
+
+    private static final class Entry implements Comparable<Entry> {
+        private final Event event;
+        private final long sequence;
+
+        private Entry(Event event, long sequence) {
+            this.event = event;
+            this.sequence = sequence;
+        }
+
+        @Override
+        public int compareTo(Entry other) {
+            int byTime = event.compareTo(other.event);
+            return byTime != 0 ? byTime : Long.compare(sequence, other.sequence);
+        }
+    }
+}
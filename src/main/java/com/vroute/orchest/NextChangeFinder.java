@@ -0,0 +1,55 @@
+package com.vroute.orchest;
+
+import com.vroute.models.SimClock;
+
+import java.time.LocalDateTime;
+
+/**
+ * Finds how many simulation steps can be skipped before something in the
+ * simulation changes state. Instants are epoch seconds and the result stays
+ * on the step grid, so an event-driven run visits a subset of the ticks a
+ * tick-by-tick run would.
+ *
+ * Candidates are offered with {@link #atOrAfter} when the change is seen once
+ * the clock reaches the instant, and with {@link #after} when the code under
+ * the tick compares with a strict {@code isBefore}.
+ */
+final class NextChangeFinder {
+    private final long nowSecond;
+    private final long stepSeconds;
+    private long steps;
+
+    /**
+     * @param maxSteps Upper bound returned when no candidate is closer
+     */
+    NextChangeFinder(LocalDateTime now, int stepMinutes, long maxSteps) {
+        this.nowSecond = SimClock.toEpochSecond(now);
+        this.stepSeconds = Math.max(1, stepMinutes) * SimClock.SECONDS_PER_MINUTE;
+        this.steps = Math.max(1, maxSteps);
+    }
+
+    /** A change that becomes visible when the clock is at or past {@code second}. */
+    void atOrAfter(long second) {
+        if (second > nowSecond) {
+            within(Math.floorDiv(second - nowSecond + stepSeconds - 1, stepSeconds));
+        }
+    }
+
+    /** A change that becomes visible once the clock is strictly past {@code second}. */
+    void after(long second) {
+        if (second >= nowSecond) {
+            within(Math.floorDiv(second - nowSecond, stepSeconds) + 1);
+        }
+    }
+
+    /** A change known to happen a whole number of steps from now. */
+    void within(long candidateSteps) {
+        if (candidateSteps >= 1 && candidateSteps < steps) {
+            steps = candidateSteps;
+        }
+    }
+
+    long getSteps() {
+        return steps;
+    }
+}
@@ -1,13 +1,19 @@
 package com.vroute.orchest;
 
+import com.vroute.assignation.Assignator;
 import com.vroute.assignation.DeliveryInstruction;
 import com.vroute.assignation.MetaheuristicAssignator;
 import com.vroute.assignation.Solution;
+import com.vroute.assignation.ZoneDecompositionAssignator;
 import com.vroute.models.*;
 import com.vroute.operation.Action;
 import com.vroute.operation.VehiclePlan;
 import com.vroute.operation.VehiclePlanCreator;
 
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.file.Paths;
 import java.time.LocalDateTime;
 import java.util.*;
 import java.util.logging.Logger;
@@ -20,33 +26,75 @@ public class Orchestrator {
     private LocalDateTime simulationTime;
     private boolean simulationRunning;
 
-    private List<Event> eventQueue;
+    private final EventQueue eventQueue;
 
     private AlgorithmConfig config;
     private SimulationStats stats;
 
+    // Source of per-replan solver seeds, created from config on first replan;
+    // base and draw count are kept so a checkpoint can restore the sequence
+    private SplittableRandom replanSeeds;
+    private long replanBaseSeed;
+    private long replanSeedsDrawn;
+
+    // Writes each replan input when config.getReplanRecordDirectory() is set
+    private ReplanRecorder replanRecorder;
+    private boolean replanRecorderFailed;
+
+    private final PlanRepairer planRepairer;
+
+    // Orders that arrived this tick, inserted into the live plans after the events are processed
+    private final List<Order> arrivedOrders = new ArrayList<>();
+
     private boolean needsReplanning;
 
     // Tick counter for replanning
     private int tickCounter;
     private int ticksPerReplan;
 
+    // Steps the clock moved on the previous advance; 1 unless advanceToNextEvent skipped idle steps
+    private int stepsSinceLastTick = 1;
+
+    // Pending-order version when delivered orders were last counted
+    private long deliveredCheckVersion = -1;
+
+    // Records events and planning decisions when set
+    private EventLog eventLog;
+    // Tick being replayed from an event log; its decisions replace the planning
+    private RecordedTick replaying;
+
     public Orchestrator(Environment environment) {
         this.environment = environment;
         this.vehiclePlans = new HashMap<>();
         this.simulationTime = environment.getCurrentTime();
         this.simulationRunning = false;
-        this.eventQueue = new ArrayList<>();
+        this.eventQueue = new EventQueue();
         this.config = AlgorithmConfig.createDefault();
         this.stats = new SimulationStats();
         this.needsReplanning = false;
         this.tickCounter = 0;
         this.ticksPerReplan = 60;
+        this.planRepairer = new PlanRepairer(environment);
     }
 
     public void addEvents(List<Event> events) {
         this.eventQueue.addAll(events);
-        this.eventQueue.sort(Comparator.comparing(Event::getTime));
+    }
+
+    /**
+     * Schedules one event; safe to call while the simulation is running.
+     */
+    public void addEvent(Event event) {
+        this.eventQueue.add(event);
+    }
+
+    /**
+     * Cancels a scheduled event so it is skipped when its time comes.
+     *
+     * @return false if it was already cancelled
+     */
+    public boolean cancelEvent(Event event) {
+        return this.eventQueue.cancel(event);
     }
 
     public void startSimulation() {
@@ -71,14 +119,50 @@ public class Orchestrator {
      * Main method that advances the simulation by one tick
      */
     public boolean advanceTick() {
+        return advance(false);
+    }
+
+    /**
+     * Runs one tick like {@link #advanceTick()}, then moves the clock straight
+     * to the next step at which something can change: a queued event, the
+     * start or end of a planned action, a blockage, maintenance or incident
+     * boundary, midnight (depot refill) or the periodic replan. Vehicles in
+     * the middle of an action are only interpolated at the instants visited.
+     */
+    public boolean advanceToNextEvent() {
+        return advance(true);
+    }
+
+    /**
+     * Runs one recorded tick: the logged events and decisions stand in for
+     * the event queue, local repair, order insertion and the solver.
+     */
+    boolean replayTick(RecordedTick tick) {
+        replaying = tick;
+        try {
+            return advance(false);
+        } finally {
+            replaying = null;
+        }
+    }
+
+    private boolean advance(boolean skipIdleSteps) {
+        long tickStart = System.nanoTime();
+        long planningBefore = stats.getPlanningWallNanos();
+        long ioBefore = stats.getIoWallNanos();
+        if (eventLog != null) {
+            eventLog.beforeTick(this);
+        }
+
         // Update environment state and process events
         updateEnvironment();
         
         // Execute current vehicle plans
         executeVehiclePlans();
+        recordDeliveredOrders();
         
-        // Increment tick counter
-        tickCounter++;
+        // Increment tick counter by the steps elapsed since the previous tick
+        tickCounter += stepsSinceLastTick;
         
         // Log environment state periodically
         if (tickCounter % ticksPerReplan == 0) {
@@ -90,14 +174,44 @@ public class Orchestrator {
         
         // Perform replanning if needed and there are vehicles available
         if ((needsReplanning || tickBasedReplanning) && !environment.getAvailableVehicles().isEmpty()) {
-            replanVehicles();
+            long replanStart = System.nanoTime();
+            long replanIoBefore = stats.getIoWallNanos();
+            Map<Vehicle, VehiclePlan> plansBefore = eventLog != null ? new HashMap<>(vehiclePlans) : null;
+            EventLog.Decision replayed = null;
+            if (replaying != null) {
+                replayed = replaying.nextDecision(EventLog.REPLAN, this);
+                applyPlanChanges(replayed.planChanges);
+                restoreReplanSeeds(replayed.seeded, replayed.baseSeed, replayed.seedsDrawn);
+            } else {
+                replanVehicles();
+            }
             needsReplanning = false;
             tickCounter = 0; // Reset tick counter after replanning
-            stats.incrementTotalReplans(); // Update stats
+            long replanNanos = replayed != null ? replayed.nanos
+                    : System.nanoTime() - replanStart - (stats.getIoWallNanos() - replanIoBefore);
+            stats.recordReplanNanos(replanNanos);
+            if (eventLog != null) {
+                eventLog.recordReplan(replanNanos, replanSeeds != null, replanBaseSeed, replanSeedsDrawn,
+                        plansBefore, vehiclePlans);
+            }
         }
         
         // Advance simulation time
-        advanceSimulation();
+        if (replaying != null) {
+            stepsSinceLastTick = replaying.steps;
+        } else {
+            stepsSinceLastTick = skipIdleSteps ? stepsToNextChange() : 1;
+        }
+        stats.recordTick(stepsSinceLastTick);
+        if (eventLog != null) {
+            eventLog.recordTick(stepsSinceLastTick);
+        }
+        advanceSimulation(stepsSinceLastTick);
+
+        // A replayed tick adds the recorded planning times without spending them
+        long planningNanos = replaying != null ? 0 : stats.getPlanningWallNanos() - planningBefore;
+        stats.addSimulationWallNanos(System.nanoTime() - tickStart - planningNanos
+                - (stats.getIoWallNanos() - ioBefore));
 
         return simulationRunning && simulationTime.isBefore(environment.getCurrentTime().plusDays(config.getSimulationMaxDays()));
     }
@@ -111,11 +225,60 @@ public class Orchestrator {
         
         // Process all events that have occurred up to the current time
         processEvents();
+
+        commitArrivedOrders();
+    }
+
+    /**
+     * Inserts the orders that arrived this tick into the live plans, unless a
+     * full replan runs on this tick anyway. The periodic full replan still
+     * re-optimises all plans.
+     */
+    private void commitArrivedOrders() {
+        if (arrivedOrders.isEmpty()) {
+            return;
+        }
+        boolean fullReplanThisTick = needsReplanning || tickCounter + stepsSinceLastTick >= ticksPerReplan;
+        if (config.isOrderInsertionEnabled() && !fullReplanThisTick) {
+            long start = System.nanoTime();
+            Map<Vehicle, VehiclePlan> plansBefore = eventLog != null ? new HashMap<>(vehiclePlans) : null;
+            int committed;
+            long elapsed;
+            if (replaying != null) {
+                EventLog.Decision insertion = replaying.nextDecision(EventLog.INSERTION, this);
+                applyPlanChanges(insertion.planChanges);
+                committed = insertion.committed;
+                elapsed = insertion.nanos;
+            } else {
+                committed = planRepairer.insertOrders(arrivedOrders, vehiclePlans, simulationTime);
+                elapsed = System.nanoTime() - start;
+            }
+            stats.recordOrderInsertion(elapsed, committed);
+            if (eventLog != null) {
+                eventLog.recordInsertion(committed, elapsed, plansBefore, vehiclePlans);
+            }
+            logger.info(String.format("Committed %d of %d arriving orders in %.2f ms", committed,
+                    arrivedOrders.size(), elapsed / 1e6));
+        }
+        arrivedOrders.clear();
     }
 
     private void processEvents() {
-        while (!eventQueue.isEmpty() && eventQueue.get(0).getTime().isBefore(simulationTime)) {
-            Event event = eventQueue.remove(0);
+        if (replaying != null) {
+            // The log has the events the run processed, including any added while it ran
+            while (eventQueue.pollBefore(simulationTime) != null) {
+                // Superseded by the logged events
+            }
+            for (Event recorded : replaying.events) {
+                processEvent(recorded);
+            }
+            return;
+        }
+        Event event;
+        while ((event = eventQueue.pollBefore(simulationTime)) != null) {
+            if (eventLog != null) {
+                eventLog.recordEvent(event);
+            }
             processEvent(event);
         }
     }
@@ -128,6 +291,7 @@ public class Orchestrator {
                 if (event.getEntityId() != null && event.getData() != null) {
                     Order order = event.getData();
                     environment.addOrder(order);
+                    arrivedOrders.add(order);
                     logger.info("Added new order to environment: " + order.getId());
                     stats.recordNewOrder();
                     needsReplanning = false;
@@ -159,10 +323,11 @@ public class Orchestrator {
                             vehicle.setStatus(VehicleStatus.UNAVAILABLE);
                             logger.info("Vehicle breakdown: " + vehicleId);
                             
-                            // Remove any plans for this vehicle
-                            vehiclePlans.remove(vehicle);
+                            // Remove the plan and hand its deliveries to other vehicles
+                            VehiclePlan lostPlan = vehiclePlans.remove(vehicle);
                             
-                            needsReplanning = true;
+                            // A repair can only add a replan, not cancel one an earlier event asked for
+                            needsReplanning |= !repairLocally(vehicle, lostPlan);
                             stats.recordVehicleBreakdown(vehicleId);
                             break;
                         }
@@ -176,19 +341,21 @@ public class Orchestrator {
                     environment.addMaintenanceTask(task);
                     
                     // Update vehicle status to MAINTENANCE
+                    boolean repaired = true;
                     for (Vehicle vehicle : environment.getVehicles()) {
                         if (vehicle.getId().equals(event.getEntityId())) {
                             vehicle.setStatus(VehicleStatus.MAINTENANCE);
                             
-                            // Remove any plans for this vehicle
-                            vehiclePlans.remove(vehicle);
+                            // Remove the plan and hand its deliveries to other vehicles
+                            VehiclePlan lostPlan = vehiclePlans.remove(vehicle);
+                            repaired = repairLocally(vehicle, lostPlan);
                             break;
                         }
                     }
                     
                     logger.info("Maintenance started for vehicle: " + event.getEntityId());
                     stats.recordMaintenanceEvent();
-                    needsReplanning = true;
+                    needsReplanning |= !repaired;
                 }
                 break;
 
@@ -231,6 +398,38 @@ public class Orchestrator {
         }
     }
 
+    /**
+     * Reinserts the unstarted deliveries of a vehicle that left service into
+     * the other vehicles' plans.
+     *
+     * @return true if no full replan is needed
+     */
+    private boolean repairLocally(Vehicle lostVehicle, VehiclePlan lostPlan) {
+        if (!config.isLocalRepairEnabled()) {
+            return false;
+        }
+        long start = System.nanoTime();
+        Map<Vehicle, VehiclePlan> plansBefore = eventLog != null ? new HashMap<>(vehiclePlans) : null;
+        boolean repaired;
+        long elapsed;
+        if (replaying != null) {
+            EventLog.Decision repair = replaying.nextDecision(EventLog.REPAIR, this);
+            applyPlanChanges(repair.planChanges);
+            repaired = repair.repaired;
+            elapsed = repair.nanos;
+        } else {
+            repaired = planRepairer.reassignDeliveries(lostVehicle, lostPlan, vehiclePlans, simulationTime);
+            elapsed = System.nanoTime() - start;
+        }
+        stats.recordLocalRepair(elapsed);
+        if (eventLog != null) {
+            eventLog.recordRepair(repaired, elapsed, plansBefore, vehiclePlans);
+        }
+        logger.info(String.format("Local repair for vehicle %s %s in %.2f ms", lostVehicle.getId(),
+                repaired ? "applied" : "failed, full replan scheduled", elapsed / 1e6));
+        return repaired;
+    }
+
     private void executeVehiclePlans() {
         for (Map.Entry<Vehicle, VehiclePlan> entry : vehiclePlans.entrySet()) {
             Vehicle vehicle = entry.getKey();
@@ -241,14 +440,28 @@ public class Orchestrator {
                 continue;
             }
 
-            for (Action action : plan.getActions()) {
-                if (action.getExpectedStartTime().isBefore(simulationTime)) {
-                    action.execute(vehicle, environment, simulationTime);
-                    logger.fine("Executed action: " + action + " for vehicle: " + vehicle.getId());
-                } else {
-                    logger.fine("Skipping action: " + action + " for vehicle: " + vehicle.getId()
-                            + " as it is scheduled for future time.");
-                }
+            plan.execute(vehicle, environment, simulationTime);
+            logger.fine(() -> "Executed plan of vehicle " + vehicle.getId() + " up to action "
+                    + plan.getExecutionCursor() + " of " + plan.getActions().size());
+        }
+    }
+
+    /**
+     * Counts the orders completed on this tick as delivered, late if the
+     * completing delivery was after the due time. Runs before the clock
+     * advance, which drops delivered orders from the environment.
+     */
+    private void recordDeliveredOrders() {
+        long version = environment.getPendingVersion();
+        if (version == deliveredCheckVersion) {
+            return;
+        }
+        deliveredCheckVersion = version;
+        for (Order order : environment.getOrderQueue()) {
+            List<ServeRecord> records = order.getRecords();
+            if (order.isDelivered() && !records.isEmpty()) {
+                LocalDateTime completed = records.get(records.size() - 1).getServeTime();
+                stats.recordDeliveredOrder(completed.isAfter(order.getDueTime()));
             }
         }
     }
@@ -318,7 +531,8 @@ public class Orchestrator {
         }
 
         // Proceed with assignation when we have both orders and vehicles
-        MetaheuristicAssignator assignator = new MetaheuristicAssignator(environment);
+        recordReplan();
+        Assignator assignator = createAssignator(pendingOrders.size());
         Solution solution = assignator.solve(environment);
 
         // Set of vehicles with assigned plans
@@ -366,13 +580,209 @@ public class Orchestrator {
     }
 
     /**
-     * Advances the simulation time by the configured step amount
+     * Large replans are split by depot zone and solved in parallel; small ones
+     * are solved as a single problem.
+     */
+    private Assignator createAssignator(int pendingOrderCount) {
+        long seed = nextReplanSeed();
+        logger.info("Replan seed: " + seed);
+        int threshold = config.getZoneDecompositionMinOrders();
+        if (threshold > 0 && pendingOrderCount >= threshold) {
+            logger.info("Using zone decomposition for " + pendingOrderCount + " pending orders");
+            return new ZoneDecompositionAssignator(Runtime.getRuntime().availableProcessors(), seed,
+                    config.toSolverParameters());
+        }
+        return new MetaheuristicAssignator(environment, seed, config.toSolverParameters());
+    }
+
+    private void recordReplan() {
+        String directory = config.getReplanRecordDirectory();
+        if (directory == null || directory.isEmpty() || replanRecorderFailed) {
+            return;
+        }
+        if (replanRecorder == null) {
+            try {
+                replanRecorder = new ReplanRecorder(Paths.get(directory));
+                logger.info("Recording replan inputs to " + directory);
+            } catch (IOException e) {
+                logger.warning("Replan recording disabled, cannot use " + directory + ": " + e.getMessage());
+                replanRecorderFailed = true;
+                return;
+            }
+        }
+        long start = System.nanoTime();
+        replanRecorder.record(environment);
+        stats.addIoWallNanos(System.nanoTime() - start);
+    }
+
+    /**
+     * With a fixed config seed the sequence of replan seeds is the same on
+     * every run; otherwise a random base seed is picked and logged.
      */
-    private void advanceSimulation() {
-        int simulationStep = config.getSimulationStepMinutes();
-        simulationTime = simulationTime.plusMinutes(simulationStep);
-        environment.advanceTime(simulationStep);
-        logger.fine("Advanced simulation to " + simulationTime);
+    private long nextReplanSeed() {
+        if (replanSeeds == null) {
+            replanBaseSeed = config.getRandomSeed() != 0 ? config.getRandomSeed() : new SplittableRandom().nextLong();
+            logger.info("Solver base seed: " + replanBaseSeed);
+            replanSeeds = new SplittableRandom(replanBaseSeed);
+        }
+        replanSeedsDrawn++;
+        return replanSeeds.nextLong();
+    }
+
+    public AlgorithmConfig getConfig() {
+        return config;
+    }
+
+    /**
+     * Replaces the configuration; takes effect from the next tick or replan.
+     */
+    public void setConfig(AlgorithmConfig config) {
+        this.config = Objects.requireNonNull(config);
+    }
+
+    public SimulationStats getStats() {
+        return stats;
+    }
+
+    public Environment getEnvironment() {
+        return environment;
+    }
+
+    /**
+     * Records every following tick to {@code log}, or stops recording when
+     * null. The caller closes the log.
+     */
+    public void setEventLog(EventLog log) {
+        this.eventLog = log;
+    }
+
+    /** Queued events, in processing order, for {@link CheckpointCodec}. */
+    List<Event> getPendingEvents() {
+        return eventQueue.snapshot();
+    }
+
+    /** Installs a plan read back from a checkpoint. */
+    void restorePlan(Vehicle vehicle, VehiclePlan plan) {
+        vehiclePlans.put(vehicle, plan);
+    }
+
+    /**
+     * Writes the clock, replan counters, solver seed sequence and stats; the
+     * environment, events and plans are written by {@link CheckpointCodec}.
+     */
+    void writeCheckpointState(DataOutputStream out) throws IOException {
+        CheckpointCodec.writeTime(out, simulationTime);
+        out.writeBoolean(simulationRunning);
+        out.writeBoolean(needsReplanning);
+        out.writeInt(tickCounter);
+        out.writeInt(ticksPerReplan);
+        out.writeInt(stepsSinceLastTick);
+        out.writeBoolean(replanSeeds != null);
+        out.writeLong(replanBaseSeed);
+        out.writeLong(replanSeedsDrawn);
+        stats.writeTo(out);
+    }
+
+    /** Reads the state written by {@link #writeCheckpointState}. */
+    void readCheckpointState(DataInputStream in) throws IOException {
+        simulationTime = CheckpointCodec.readTime(in);
+        simulationRunning = in.readBoolean();
+        needsReplanning = in.readBoolean();
+        tickCounter = in.readInt();
+        ticksPerReplan = in.readInt();
+        stepsSinceLastTick = in.readInt();
+        boolean seeded = in.readBoolean();
+        long baseSeed = in.readLong();
+        long seedsDrawn = in.readLong();
+        replanSeeds = null;
+        restoreReplanSeeds(seeded, baseSeed, seedsDrawn);
+        stats = SimulationStats.readFrom(in);
+    }
+
+    /**
+     * Moves the replan seed sequence to the given position, drawing only the
+     * seeds past the current one when the base is unchanged.
+     */
+    private void restoreReplanSeeds(boolean seeded, long baseSeed, long seedsDrawn) {
+        if (!seeded) {
+            replanSeeds = null;
+            replanBaseSeed = baseSeed;
+            replanSeedsDrawn = seedsDrawn;
+            return;
+        }
+        if (replanSeeds == null || replanBaseSeed != baseSeed || replanSeedsDrawn > seedsDrawn) {
+            replanSeeds = new SplittableRandom(baseSeed);
+            replanBaseSeed = baseSeed;
+            replanSeedsDrawn = 0;
+        }
+        // Replay the draws so the next replan gets the seed it would have had
+        for (; replanSeedsDrawn < seedsDrawn; replanSeedsDrawn++) {
+            replanSeeds.nextLong();
+        }
+    }
+
+    private void applyPlanChanges(Map<Vehicle, VehiclePlan> changes) {
+        for (Map.Entry<Vehicle, VehiclePlan> change : changes.entrySet()) {
+            if (change.getValue() != null) {
+                vehiclePlans.put(change.getKey(), change.getValue());
+            } else {
+                vehiclePlans.remove(change.getKey());
+            }
+        }
+    }
+
+    public LocalDateTime getSimulationTime() {
+        return simulationTime;
+    }
+
+    /**
+     * Advances the simulation time by the given number of configured steps
+     */
+    private void advanceSimulation(int steps) {
+        int minutes = config.getSimulationStepMinutes() * steps;
+        simulationTime = simulationTime.plusMinutes(minutes);
+        environment.advanceTime(minutes);
+        logger.fine(() -> "Advanced simulation to " + simulationTime);
+    }
+
+    /**
+     * Steps until the next instant at which the state seen by a tick can
+     * differ from the current one. Midnight is always a candidate so the
+     * environment's daily depot refill still runs.
+     */
+    private int stepsToNextChange() {
+        LocalDateTime midnight = simulationTime.toLocalDate().plusDays(1).atStartOfDay();
+        NextChangeFinder next = new NextChangeFinder(simulationTime, config.getSimulationStepMinutes(), Long.MAX_VALUE);
+        next.atOrAfter(SimClock.toEpochSecond(midnight));
+
+        if (tickCounter < ticksPerReplan) {
+            next.within(ticksPerReplan - tickCounter);
+        }
+        Event nextEvent = eventQueue.peek();
+        if (nextEvent != null) {
+            next.after(SimClock.toEpochSecond(nextEvent.getTime()));
+        }
+
+        for (Map.Entry<Vehicle, VehiclePlan> entry : vehiclePlans.entrySet()) {
+            if (entry.getKey().getStatus() == VehicleStatus.UNAVAILABLE || entry.getValue() == null) {
+                continue;
+            }
+            // Actions behind the cursor have ended and cannot change anything
+            List<Action> actions = entry.getValue().getActions();
+            for (int i = entry.getValue().getExecutionCursor(); i < actions.size(); i++) {
+                next.after(actions.get(i).getStartSecond());
+                next.atOrAfter(actions.get(i).getEndSecond());
+            }
+        }
+
+        // An order turns overdue once the clock is strictly past its due time
+        for (Order order : environment.getPendingOrders()) {
+            next.after(SimClock.toEpochSecond(order.getDueTime()));
+        }
+
+        // Blockage, maintenance and incident boundaries, from the environment's schedule
+        next.atOrAfter(environment.getNextChangeSecond());
+        return (int) next.getSteps();
     }
 
     public Map<Vehicle, VehiclePlan> getVehiclePlans() {
@@ -384,7 +794,6 @@ public class Orchestrator {
         LocalDateTime endTime = this.simulationTime.plusDays(config.getSimulationMaxDays());
         Event endEvent = new Event(EventType.SIMULATION_END, endTime);
         this.eventQueue.add(endEvent);
-        this.eventQueue.sort(Comparator.comparing(Event::getTime));
         
         // Make sure environment time is synced with simulation time
         environment.setCurrentTime(this.simulationTime);
@@ -0,0 +1,215 @@
+package com.vroute.orchest;
+
+import com.vroute.assignation.CheapestInsertion;
+import com.vroute.assignation.DeliveryInstruction;
+import com.vroute.models.Environment;
+import com.vroute.models.Order;
+import com.vroute.models.Vehicle;
+import com.vroute.models.VehicleStatus;
+import com.vroute.operation.Action;
+import com.vroute.operation.ActionType;
+import com.vroute.operation.VehiclePlan;
+import com.vroute.operation.VehiclePlanCreator;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.logging.Logger;
+
+/**
+ * Repairs the live vehicle plans without a full solve: the deliveries of a
+ * vehicle that drops out, or of newly arrived orders, are inserted into the
+ * remaining deliveries of the vehicles with cheapest insertion, and only the
+ * vehicles whose deliveries changed get a new plan from
+ * {@link VehiclePlanCreator}.
+ */
+class PlanRepairer {
+    private static final Logger logger = Logger.getLogger(PlanRepairer.class.getName());
+
+    private final Environment environment;
+
+    PlanRepairer(Environment environment) {
+        this.environment = environment;
+    }
+
+    /**
+     * Moves the deliveries of {@code lostPlan} that have not started yet to
+     * other vehicles and updates {@code plans} in place. Nothing is changed
+     * unless every delivery finds a vehicle and every changed plan can be
+     * built.
+     *
+     * @return true if the repair was applied; false if a full replan is needed
+     */
+    boolean reassignDeliveries(Vehicle lostVehicle, VehiclePlan lostPlan, Map<Vehicle, VehiclePlan> plans,
+            LocalDateTime now) {
+        List<DeliveryInstruction> orphaned = remainingInstructions(lostPlan, now);
+        if (orphaned.isEmpty()) {
+            return true;
+        }
+        orphaned.sort(Comparator.comparing(DeliveryInstruction::getDueDate));
+
+        Map<Vehicle, List<DeliveryInstruction>> routes = candidateRoutes(lostVehicle, plans, now);
+        Map<Vehicle, List<DeliveryInstruction>> changed = new LinkedHashMap<>();
+        for (DeliveryInstruction instruction : orphaned) {
+            CheapestInsertion.Insertion insertion = CheapestInsertion.findBest(environment, routes, instruction);
+            if (insertion == null) {
+                logger.info("No vehicle can take " + instruction.getGlpAmountToDeliver() + " m3 for order "
+                        + instruction.getOrderId() + " without a full replan");
+                return false;
+            }
+            List<DeliveryInstruction> route = routes.get(insertion.getVehicle());
+            insertion.apply(route, instruction);
+            changed.put(insertion.getVehicle(), route);
+        }
+
+        Map<Vehicle, VehiclePlan> rebuilt = rebuildPlans(changed);
+        if (rebuilt == null) {
+            return false;
+        }
+        plans.putAll(rebuilt);
+        logger.info(String.format("Reassigned %d deliveries of vehicle %s to %d vehicles",
+                orphaned.size(), lostVehicle.getId(), rebuilt.size()));
+        return true;
+    }
+
+    /**
+     * Commits newly arrived orders to the live plans right away. Each order is
+     * inserted whole if some vehicle can take it, otherwise in pieces no
+     * larger than the vehicle capacities. An order is committed only if the
+     * plans of all the vehicles it was placed on can be rebuilt; orders that
+     * cannot be placed stay pending for the next periodic replan.
+     *
+     * @return number of orders fully committed to a plan
+     */
+    int insertOrders(List<Order> orders, Map<Vehicle, VehiclePlan> plans, LocalDateTime now) {
+        Map<Vehicle, List<DeliveryInstruction>> routes = candidateRoutes(null, plans, now);
+        if (routes.isEmpty()) {
+            return 0;
+        }
+        int[] pieceSizes = routes.keySet().stream().mapToInt(Vehicle::getGlpCapacityM3).distinct()
+                .boxed().sorted(Comparator.reverseOrder()).mapToInt(Integer::intValue).toArray();
+
+        Set<Vehicle> rebuiltVehicles = new HashSet<>();
+        int committed = 0;
+        for (Order order : orders) {
+            if (order.isDelivered()) {
+                continue;
+            }
+            // Work on copies so an order that only fits partly leaves the routes untouched
+            Map<Vehicle, List<DeliveryInstruction>> attempt = new HashMap<>();
+            int remaining = order.getRemainingGlpM3();
+            while (remaining > 0) {
+                int amount = remaining;
+                DeliveryInstruction piece = new DeliveryInstruction(order, amount);
+                CheapestInsertion.Insertion insertion = CheapestInsertion.findBest(environment, overlay(routes, attempt), piece);
+                for (int i = 0; insertion == null && i < pieceSizes.length; i++) {
+                    if (pieceSizes[i] < remaining) {
+                        amount = pieceSizes[i];
+                        piece = new DeliveryInstruction(order, amount);
+                        insertion = CheapestInsertion.findBest(environment, overlay(routes, attempt), piece);
+                    }
+                }
+                if (insertion == null) {
+                    break;
+                }
+                List<DeliveryInstruction> route = attempt.computeIfAbsent(insertion.getVehicle(),
+                        vehicle -> new ArrayList<>(routes.get(vehicle)));
+                insertion.apply(route, piece);
+                remaining -= amount;
+            }
+            if (remaining > 0) {
+                logger.info("Order " + order.getId() + " left for the next replan: no room for "
+                        + remaining + " m3");
+                continue;
+            }
+            // All vehicles the order touches get their new plan, or none of them does
+            Map<Vehicle, VehiclePlan> rebuilt = rebuildPlans(attempt);
+            if (rebuilt == null) {
+                logger.info("Order " + order.getId() + " left for the next replan: a plan could not be rebuilt");
+                continue;
+            }
+            routes.putAll(attempt);
+            plans.putAll(rebuilt);
+            rebuiltVehicles.addAll(rebuilt.keySet());
+            committed++;
+        }
+        logger.fine(String.format("Arriving orders committed to %d rebuilt vehicle plans", rebuiltVehicles.size()));
+        return committed;
+    }
+
+    private static Map<Vehicle, List<DeliveryInstruction>> overlay(Map<Vehicle, List<DeliveryInstruction>> routes,
+            Map<Vehicle, List<DeliveryInstruction>> changes) {
+        if (changes.isEmpty()) {
+            return routes;
+        }
+        Map<Vehicle, List<DeliveryInstruction>> merged = new LinkedHashMap<>(routes);
+        merged.putAll(changes);
+        return merged;
+    }
+
+    /**
+     * Remaining deliveries of every vehicle that can take work, except
+     * {@code excluded}.
+     */
+    private Map<Vehicle, List<DeliveryInstruction>> candidateRoutes(Vehicle excluded,
+            Map<Vehicle, VehiclePlan> plans, LocalDateTime now) {
+        Map<Vehicle, List<DeliveryInstruction>> routes = new LinkedHashMap<>();
+        for (Vehicle vehicle : environment.getAvailableVehicles()) {
+            if (vehicle != excluded && vehicle.getStatus() != VehicleStatus.MAINTENANCE) {
+                VehiclePlan plan = plans.get(vehicle);
+                routes.put(vehicle, plan != null ? remainingInstructions(plan, now) : new ArrayList<>());
+            }
+        }
+        return routes;
+    }
+
+    /**
+     * New plans for the changed vehicles, or null if one of them cannot be
+     * built.
+     */
+    private Map<Vehicle, VehiclePlan> rebuildPlans(Map<Vehicle, List<DeliveryInstruction>> changed) {
+        Map<Vehicle, VehiclePlan> rebuilt = new HashMap<>();
+        for (Map.Entry<Vehicle, List<DeliveryInstruction>> entry : changed.entrySet()) {
+            VehiclePlan plan = VehiclePlanCreator.createPlan(environment, entry.getKey(), entry.getValue());
+            if (plan == null) {
+                logger.info("Could not rebuild plan for vehicle " + entry.getKey().getId());
+                return null;
+            }
+            rebuilt.put(entry.getKey(), plan);
+        }
+        return rebuilt;
+    }
+
+    /**
+     * Deliveries of {@code plan} whose SERVE action has not started at
+     * {@code now}, in plan order. Amounts are capped to what the order still
+     * needs; orders already completed are left out.
+     */
+    List<DeliveryInstruction> remainingInstructions(VehiclePlan plan, LocalDateTime now) {
+        List<DeliveryInstruction> remaining = new ArrayList<>();
+        if (plan == null) {
+            return remaining;
+        }
+        for (Action action : plan.getActions()) {
+            if (action.getType() != ActionType.SERVE || action.getExpectedStartTime().isBefore(now)
+                    || action.getOrderId() == null) {
+                continue;
+            }
+            Order order = environment.findOrderById(action.getOrderId());
+            if (order == null || order.isDelivered()) {
+                continue;
+            }
+            int amount = Math.min(Math.abs(action.getGlpChangeM3()), order.getRemainingGlpM3());
+            if (amount > 0) {
+                remaining.add(new DeliveryInstruction(order, amount));
+            }
+        }
+        return remaining;
+    }
+}
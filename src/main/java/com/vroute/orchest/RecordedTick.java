@@ -0,0 +1,31 @@
+package com.vroute.orchest;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+
+/**
+ * One tick read back from an {@link EventLog}: the events it processed, the
+ * planning decisions it took, in order, and the steps it advanced. Decisions
+ * stay encoded until the replay reaches them, so their plans resolve to the
+ * orders and vehicles the replayed environment has at that point.
+ */
+final class RecordedTick {
+    final List<Event> events = new ArrayList<>();
+    final Deque<byte[]> decisions = new ArrayDeque<>();
+    int steps;
+
+    /**
+     * Takes the next decision, which must be of {@code kind}; anything else
+     * means the replay no longer follows the recorded run.
+     */
+    EventLog.Decision nextDecision(byte kind, Orchestrator orchestrator) {
+        byte[] payload = decisions.poll();
+        if (payload == null || payload[0] != kind) {
+            throw new IllegalStateException("Event log out of step with the replay: expected decision "
+                    + kind + (payload == null ? ", found none" : ", found " + payload[0]));
+        }
+        return EventLog.readDecision(payload, orchestrator.getEnvironment());
+    }
+}
@@ -0,0 +1,240 @@
+package com.vroute.orchest;
+
+import com.vroute.models.Blockage;
+import com.vroute.models.Depot;
+import com.vroute.models.Environment;
+import com.vroute.models.Order;
+import com.vroute.models.Position;
+import com.vroute.models.SimClock;
+import com.vroute.models.Vehicle;
+import com.vroute.models.VehicleStatus;
+import com.vroute.models.VehicleType;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.logging.Logger;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Records the input of each replan (time, vehicle state, depot stocks,
+ * pending orders and blockages) as a small gzipped binary file, so the solver
+ * can be profiled offline on the exact problems it saw during a run.
+ *
+ * Files are named {@code replan-NNNNN.bin} in recording order and are read
+ * back with {@link #read(Path)}.
+ */
+public class ReplanRecorder {
+    private static final Logger logger = Logger.getLogger(ReplanRecorder.class.getName());
+
+    private static final int MAGIC = 0x56525031; // "VRP1"
+    private static final int FORMAT_VERSION = 1;
+    private static final String FILE_PREFIX = "replan-";
+    private static final String FILE_SUFFIX = ".bin";
+
+    private final Path directory;
+    private int recorded;
+
+    public ReplanRecorder(Path directory) throws IOException {
+        this.directory = directory;
+        Files.createDirectories(directory);
+        try (Stream<Path> existing = Files.list(directory)) {
+            this.recorded = (int) existing.filter(ReplanRecorder::isRecording).count();
+        }
+    }
+
+    /**
+     * Writes the current solver input of {@code environment}. Failures are
+     * logged and do not interrupt the simulation.
+     */
+    public void record(Environment environment) {
+        Path file = directory.resolve(String.format("%s%05d%s", FILE_PREFIX, recorded, FILE_SUFFIX));
+        try (DataOutputStream out = new DataOutputStream(
+                new BufferedOutputStream(new GZIPOutputStream(Files.newOutputStream(file))))) {
+            write(environment, out);
+            recorded++;
+        } catch (IOException e) {
+            logger.warning("Could not record replan to " + file + ": " + e.getMessage());
+        }
+    }
+
+    public int getRecordedCount() {
+        return recorded;
+    }
+
+    /**
+     * Recordings in {@code directory}, in recording order.
+     */
+    public static List<Path> listRecordings(Path directory) throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.filter(ReplanRecorder::isRecording).sorted().collect(Collectors.toList());
+        }
+    }
+
+    /**
+     * Rebuilds the environment of a recorded replan. Every call returns new
+     * objects, so the result can be solved and evaluated independently.
+     */
+    public static Environment read(Path file) throws IOException {
+        try (DataInputStream in = new DataInputStream(
+                new BufferedInputStream(new GZIPInputStream(Files.newInputStream(file))))) {
+            if (in.readInt() != MAGIC) {
+                throw new IOException("Not a replan recording: " + file);
+            }
+            int version = in.readUnsignedShort();
+            if (version != FORMAT_VERSION) {
+                throw new IOException("Unsupported replan recording version " + version + ": " + file);
+            }
+            LocalDateTime time = readTime(in);
+
+            int vehicleCount = in.readInt();
+            List<Vehicle> vehicles = new ArrayList<>(vehicleCount);
+            for (int i = 0; i < vehicleCount; i++) {
+                Vehicle vehicle = new Vehicle(in.readUTF(), VehicleType.values()[in.readUnsignedByte()],
+                        readPosition(in));
+                vehicle.setCurrentGlpM3(in.readInt());
+                vehicle.setCurrentFuelGal(in.readDouble());
+                vehicle.setStatus(VehicleStatus.values()[in.readUnsignedByte()]);
+                vehicles.add(vehicle);
+            }
+
+            Depot mainDepot = readDepot(in);
+            int auxCount = in.readInt();
+            List<Depot> auxDepots = new ArrayList<>(auxCount);
+            for (int i = 0; i < auxCount; i++) {
+                auxDepots.add(readDepot(in));
+            }
+            Environment environment = new Environment(vehicles, mainDepot, auxDepots, time);
+
+            int orderCount = in.readInt();
+            List<Order> orders = new ArrayList<>(orderCount);
+            for (int i = 0; i < orderCount; i++) {
+                String id = in.readUTF();
+                LocalDateTime arrive = readTime(in);
+                LocalDateTime due = readTime(in);
+                int request = in.readInt();
+                int remaining = in.readInt();
+                Order order = new Order(id, arrive, due.minusHours(Order.DUE_MARGIN_HOURS), request,
+                        readPosition(in));
+                if (remaining < request) {
+                    // Only the remaining amount matters to the solver
+                    order.recordDelivery(request - remaining, "REPLAY", time);
+                }
+                orders.add(order);
+            }
+            environment.addOrders(orders);
+
+            int blockageCount = in.readInt();
+            List<Blockage> blockages = new ArrayList<>(blockageCount);
+            for (int i = 0; i < blockageCount; i++) {
+                LocalDateTime start = readTime(in);
+                LocalDateTime end = readTime(in);
+                int points = in.readInt();
+                List<Position> lines = new ArrayList<>(points);
+                for (int p = 0; p < points; p++) {
+                    lines.add(readPosition(in));
+                }
+                blockages.add(new Blockage(start, end, lines));
+            }
+            environment.addBlockages(blockages);
+            return environment;
+        }
+    }
+
+    private static void write(Environment environment, DataOutputStream out) throws IOException {
+        out.writeInt(MAGIC);
+        out.writeShort(FORMAT_VERSION);
+        writeTime(out, environment.getCurrentTime());
+
+        List<Vehicle> vehicles = environment.getVehicles();
+        out.writeInt(vehicles.size());
+        for (Vehicle vehicle : vehicles) {
+            out.writeUTF(vehicle.getId());
+            out.writeByte(vehicle.getType().ordinal());
+            writePosition(out, vehicle.getCurrentPosition());
+            out.writeInt(vehicle.getCurrentGlpM3());
+            out.writeDouble(vehicle.getCurrentFuelGal());
+            out.writeByte(vehicle.getStatus().ordinal());
+        }
+
+        writeDepot(out, environment.getMainDepot());
+        List<Depot> auxDepots = environment.getAuxDepots();
+        out.writeInt(auxDepots.size());
+        for (Depot depot : auxDepots) {
+            writeDepot(out, depot);
+        }
+
+        List<Order> pending = environment.getPendingOrders();
+        out.writeInt(pending.size());
+        for (Order order : pending) {
+            out.writeUTF(order.getId());
+            writeTime(out, order.getArriveTime());
+            writeTime(out, order.getDueTime());
+            out.writeInt(order.getGlpRequestM3());
+            out.writeInt(order.getRemainingGlpM3());
+            writePosition(out, order.getPosition());
+        }
+
+        List<Blockage> blockages = environment.getActiveBlockages();
+        out.writeInt(blockages.size());
+        for (Blockage blockage : blockages) {
+            writeTime(out, blockage.getStartTime());
+            writeTime(out, blockage.getEndTime());
+            out.writeInt(blockage.getLines().size());
+            for (Position point : blockage.getLines()) {
+                writePosition(out, point);
+            }
+        }
+    }
+
+    private static void writeDepot(DataOutputStream out, Depot depot) throws IOException {
+        out.writeUTF(depot.getId());
+        writePosition(out, depot.getPosition());
+        out.writeInt(depot.getGlpCapacityM3());
+        out.writeInt(depot.getCurrentGlpM3());
+        out.writeBoolean(depot.canRefuel());
+    }
+
+    private static Depot readDepot(DataInputStream in) throws IOException {
+        String id = in.readUTF();
+        Position position = readPosition(in);
+        int capacity = in.readInt();
+        int current = in.readInt();
+        Depot depot = new Depot(id, position, capacity, in.readBoolean());
+        depot.refillGLP();
+        depot.serveGLP(capacity - current);
+        return depot;
+    }
+
+    private static void writePosition(DataOutputStream out, Position position) throws IOException {
+        out.writeShort(position.getX());
+        out.writeShort(position.getY());
+    }
+
+    private static Position readPosition(DataInputStream in) throws IOException {
+        return new Position(in.readShort(), in.readShort());
+    }
+
+    private static void writeTime(DataOutputStream out, LocalDateTime time) throws IOException {
+        out.writeLong(SimClock.toEpochSecond(time));
+    }
+
+    private static LocalDateTime readTime(DataInputStream in) throws IOException {
+        return SimClock.fromEpochSecond(in.readLong());
+    }
+
+    private static boolean isRecording(Path file) {
+        String name = file.getFileName().toString();
+        return name.startsWith(FILE_PREFIX) && name.endsWith(FILE_SUFFIX);
+    }
+}
@@ -1,5 +1,8 @@
 package com.vroute.orchest;
 
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
 import java.time.Duration;
 import java.time.LocalDateTime;
 import java.util.HashMap;
@@ -32,6 +35,20 @@ public class SimulationStats {
     // Algorithm metrics
     private int totalReplans;
     private long totalPlanningTimeMillis;
+    private int totalLocalRepairs;
+    private long totalLocalRepairNanos;
+    private int totalOrderInsertions;
+    private long totalOrderInsertionNanos;
+    private int ordersCommittedOnArrival;
+    
+    // Clock metrics
+    private long processedTicks;
+    private long simulatedSteps;
+    
+    // Wall time split; planning covers replans, local repairs and order insertion
+    private long simulationWallNanos;
+    private long planningWallNanos;
+    private long ioWallNanos;
     
     // Detailed stats by vehicle
     private Map<String, VehicleStats> vehicleStatsMap = new HashMap<>();
@@ -139,6 +156,18 @@ public class SimulationStats {
         
         totalReplans = 0;
         totalPlanningTimeMillis = 0;
+        totalLocalRepairs = 0;
+        totalLocalRepairNanos = 0;
+        totalOrderInsertions = 0;
+        totalOrderInsertionNanos = 0;
+        ordersCommittedOnArrival = 0;
+        
+        processedTicks = 0;
+        simulatedSteps = 0;
+        
+        simulationWallNanos = 0;
+        planningWallNanos = 0;
+        ioWallNanos = 0;
         
         vehicleStatsMap.clear();
     }
@@ -214,6 +243,47 @@ public class SimulationStats {
         this.totalPlanningTimeMillis += planningTimeMillis;
     }
     
+    /**
+     * Records a full replan measured in nanoseconds; also counts towards the
+     * planning wall time.
+     */
+    public void recordReplanNanos(long planningNanos) {
+        recordReplan(planningNanos / 1_000_000);
+        this.planningWallNanos += planningNanos;
+    }
+    
+    public void recordLocalRepair(long repairNanos) {
+        this.totalLocalRepairs++;
+        this.totalLocalRepairNanos += repairNanos;
+        this.planningWallNanos += repairNanos;
+    }
+    
+    public void recordOrderInsertion(long insertionNanos, int committedOrders) {
+        this.totalOrderInsertions++;
+        this.totalOrderInsertionNanos += insertionNanos;
+        this.ordersCommittedOnArrival += committedOrders;
+        this.planningWallNanos += insertionNanos;
+    }
+    
+    /** Wall time spent advancing the simulation outside planning and I/O. */
+    public void addSimulationWallNanos(long nanos) {
+        this.simulationWallNanos += nanos;
+    }
+    
+    /** Wall time spent loading scenario data or recording replans. */
+    public void addIoWallNanos(long nanos) {
+        this.ioWallNanos += nanos;
+    }
+    
+    /**
+     * @param steps Simulation steps covered by this tick (more than one when
+     *              idle steps were skipped)
+     */
+    public void recordTick(int steps) {
+        this.processedTicks++;
+        this.simulatedSteps += steps;
+    }
+    
     private VehicleStats getOrCreateVehicleStats(String vehicleId) {
         return vehicleStatsMap.computeIfAbsent(vehicleId, VehicleStats::new);
     }
@@ -301,10 +371,131 @@ public class SimulationStats {
                totalPlanningTimeMillis / (double)totalReplans : 0;
     }
     
+    public int getTotalLocalRepairs() {
+        return totalLocalRepairs;
+    }
+    
+    public double getAverageLocalRepairTimeMillis() {
+        return totalLocalRepairs > 0 ? 
+               totalLocalRepairNanos / 1e6 / totalLocalRepairs : 0;
+    }
+    
+    public int getTotalOrderInsertions() {
+        return totalOrderInsertions;
+    }
+    
+    public double getAverageOrderInsertionTimeMillis() {
+        return totalOrderInsertions > 0 ? 
+               totalOrderInsertionNanos / 1e6 / totalOrderInsertions : 0;
+    }
+    
+    public int getOrdersCommittedOnArrival() {
+        return ordersCommittedOnArrival;
+    }
+    
+    public long getProcessedTicks() {
+        return processedTicks;
+    }
+    
+    public long getSimulatedSteps() {
+        return simulatedSteps;
+    }
+    
+    public long getSimulationWallNanos() {
+        return simulationWallNanos;
+    }
+    
+    public long getPlanningWallNanos() {
+        return planningWallNanos;
+    }
+    
+    public long getIoWallNanos() {
+        return ioWallNanos;
+    }
+    
     public Map<String, VehicleStats> getVehicleStats() {
         return new HashMap<>(vehicleStatsMap);
     }
     
+    /** Writes every counter, for {@link CheckpointCodec}. */
+    void writeTo(DataOutputStream out) throws IOException {
+        CheckpointCodec.writeNullableTime(out, simulationStartTime);
+        CheckpointCodec.writeNullableTime(out, simulationEndTime);
+        out.writeLong(realExecutionTimeMillis);
+        out.writeInt(totalOrders);
+        out.writeInt(deliveredOrders);
+        out.writeInt(lateDeliveries);
+        out.writeDouble(totalDistanceTraveled);
+        out.writeDouble(totalFuelConsumed);
+        out.writeInt(totalVehicleBreakdowns);
+        out.writeInt(totalMaintenanceEvents);
+        out.writeInt(totalBlockages);
+        out.writeLong(totalBlockageDuration.toNanos());
+        out.writeInt(totalReplans);
+        out.writeLong(totalPlanningTimeMillis);
+        out.writeInt(totalLocalRepairs);
+        out.writeLong(totalLocalRepairNanos);
+        out.writeInt(totalOrderInsertions);
+        out.writeLong(totalOrderInsertionNanos);
+        out.writeInt(ordersCommittedOnArrival);
+        out.writeLong(processedTicks);
+        out.writeLong(simulatedSteps);
+        out.writeLong(simulationWallNanos);
+        out.writeLong(planningWallNanos);
+        out.writeLong(ioWallNanos);
+        out.writeInt(vehicleStatsMap.size());
+        for (VehicleStats vehicle : vehicleStatsMap.values()) {
+            out.writeUTF(vehicle.vehicleId);
+            out.writeInt(vehicle.deliveries);
+            out.writeDouble(vehicle.distanceTraveled);
+            out.writeDouble(vehicle.fuelConsumed);
+            out.writeInt(vehicle.breakdowns);
+            out.writeLong(vehicle.operationalTime.toNanos());
+            out.writeLong(vehicle.idleTime.toNanos());
+        }
+    }
+
+    /** Reads the counters written by {@link #writeTo}. */
+    static SimulationStats readFrom(DataInputStream in) throws IOException {
+        SimulationStats stats = new SimulationStats();
+        stats.simulationStartTime = CheckpointCodec.readNullableTime(in);
+        stats.simulationEndTime = CheckpointCodec.readNullableTime(in);
+        stats.realExecutionTimeMillis = in.readLong();
+        stats.totalOrders = in.readInt();
+        stats.deliveredOrders = in.readInt();
+        stats.lateDeliveries = in.readInt();
+        stats.totalDistanceTraveled = in.readDouble();
+        stats.totalFuelConsumed = in.readDouble();
+        stats.totalVehicleBreakdowns = in.readInt();
+        stats.totalMaintenanceEvents = in.readInt();
+        stats.totalBlockages = in.readInt();
+        stats.totalBlockageDuration = Duration.ofNanos(in.readLong());
+        stats.totalReplans = in.readInt();
+        stats.totalPlanningTimeMillis = in.readLong();
+        stats.totalLocalRepairs = in.readInt();
+        stats.totalLocalRepairNanos = in.readLong();
+        stats.totalOrderInsertions = in.readInt();
+        stats.totalOrderInsertionNanos = in.readLong();
+        stats.ordersCommittedOnArrival = in.readInt();
+        stats.processedTicks = in.readLong();
+        stats.simulatedSteps = in.readLong();
+        stats.simulationWallNanos = in.readLong();
+        stats.planningWallNanos = in.readLong();
+        stats.ioWallNanos = in.readLong();
+        int vehicles = in.readInt();
+        for (int i = 0; i < vehicles; i++) {
+            VehicleStats vehicle = new VehicleStats(in.readUTF());
+            vehicle.deliveries = in.readInt();
+            vehicle.distanceTraveled = in.readDouble();
+            vehicle.fuelConsumed = in.readDouble();
+            vehicle.breakdowns = in.readInt();
+            vehicle.operationalTime = Duration.ofNanos(in.readLong());
+            vehicle.idleTime = Duration.ofNanos(in.readLong());
+            stats.vehicleStatsMap.put(vehicle.vehicleId, vehicle);
+        }
+        return stats;
+    }
+
     @Override
     public String toString() {
         StringBuilder sb = new StringBuilder();
@@ -341,6 +532,18 @@ public class SimulationStats {
         sb.append(String.format("Replans: %d, Average planning time: %.2f ms\n",
                   totalReplans, getAveragePlanningTimeMillis()));
         
+        sb.append(String.format("Local repairs: %d, Average repair time: %.2f ms\n",
+                  totalLocalRepairs, getAverageLocalRepairTimeMillis()));
+        
+        sb.append(String.format("Orders committed on arrival: %d, Average insertion time: %.2f ms\n",
+                  ordersCommittedOnArrival, getAverageOrderInsertionTimeMillis()));
+        
+        sb.append(String.format("Ticks processed: %d covering %d simulation steps\n",
+                  processedTicks, simulatedSteps));
+        
+        sb.append(String.format("Wall time: simulation %.2f s, planning %.2f s, I/O %.2f s\n",
+                  simulationWallNanos / 1e9, planningWallNanos / 1e9, ioWallNanos / 1e9));
+        
         return sb.toString();
     }
     
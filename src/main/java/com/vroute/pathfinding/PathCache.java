@@ -0,0 +1,42 @@
+package com.vroute.pathfinding;
+
+import com.vroute.models.Position;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Cache de caminos A* de un entorno. Un camino depende solo del origen, el
+ * destino, la hora de salida y los bloqueos del entorno, así que las entradas
+ * se descartan cuando cambia la versión de bloqueos del entorno.
+ */
+class PathCache {
+    private static final int MAX_ENTRIES = 50_000;
+
+    private final Map<Key, List<Position>> paths = new ConcurrentHashMap<>();
+    private volatile long blockageVersion;
+
+    List<Position> get(long currentBlockageVersion, Position from, Position to, long departureSecond) {
+        if (currentBlockageVersion != blockageVersion) {
+            synchronized (this) {
+                if (currentBlockageVersion != blockageVersion) {
+                    paths.clear();
+                    blockageVersion = currentBlockageVersion;
+                }
+            }
+            return null;
+        }
+        return paths.get(new Key(from, to, departureSecond));
+    }
+
+    void put(Position from, Position to, long departureSecond, List<Position> path) {
+        if (paths.size() >= MAX_ENTRIES) {
+            paths.clear();
+        }
+        paths.put(new Key(from, to, departureSecond), path);
+    }
+
+    private record Key(Position from, Position to, long departureSecond) {
+    }
+}
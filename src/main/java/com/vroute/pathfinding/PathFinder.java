@@ -4,11 +4,15 @@ import com.vroute.models.Environment;
 import com.vroute.models.Position;
 import com.vroute.models.Blockage;
 import com.vroute.models.Constants;
+import com.vroute.models.SimClock;
 
 import java.time.LocalDateTime;
 import java.util.*;
 
 public class PathFinder {
+    // Caminos ya calculados por entorno; se invalidan cuando cambian sus bloqueos
+    private static final Map<Environment, PathCache> caches = Collections.synchronizedMap(new WeakHashMap<>());
+
     public static List<Position> findPath(Environment entorno, Position inicio, Position fin, LocalDateTime horaSalida) {
         if (inicio == null || fin == null || horaSalida == null || entorno == null) {
             return Collections.emptyList();
@@ -16,7 +20,29 @@ public class PathFinder {
         if (inicio.equals(fin)) {
             return Collections.singletonList(inicio);
         }
-        if (esBloqueado(inicio, horaSalida, entorno)) {
+
+        long segundoSalida = SimClock.toEpochSecond(horaSalida);
+        PathCache cache = caches.computeIfAbsent(entorno, e -> new PathCache());
+        List<Position> camino = cache.get(entorno.getBlockageVersion(), inicio, fin, segundoSalida);
+        if (camino == null) {
+            camino = buscarCamino(entorno, inicio, fin, segundoSalida);
+            cache.put(inicio, fin, segundoSalida, camino);
+        }
+        return camino;
+    }
+
+    private static List<Position> buscarCamino(Environment entorno, Position inicio, Position fin, long segundoSalida) {
+        // Solo los bloqueos que no han terminado a la hora de salida pueden cortar el camino
+        List<Blockage> bloqueos = new ArrayList<>();
+        for (Blockage bloqueo : entorno.getActiveBlockages()) {
+            if (bloqueo.getEndSecond() >= segundoSalida) {
+                bloqueos.add(bloqueo);
+            }
+        }
+        Blockage[] relevantes = bloqueos.toArray(new Blockage[0]);
+        long segundosPorTramo = SimClock.travelSeconds(1, Constants.VEHICLE_AVG_SPEED);
+
+        if (esBloqueado(inicio, segundoSalida, relevantes)) {
             return Collections.emptyList();
         }
 
@@ -24,7 +50,7 @@ public class PathFinder {
         Map<Position, Node> posicionANodo = new HashMap<>();
         Set<Position> closedSet = new HashSet<>();
 
-        Node startNode = new Node(inicio, null, 0, heuristica(inicio, fin), horaSalida);
+        Node startNode = new Node(inicio, null, 0, heuristica(inicio, fin), segundoSalida);
         openSet.add(startNode);
         posicionANodo.put(inicio, startNode);
 
@@ -54,9 +80,9 @@ public class PathFinder {
                     continue;
                 }
 
-                LocalDateTime tiempoLlegada = calcularTiempoLlegada(current.horaDeLlegada, 1);
+                long tiempoLlegada = current.segundoLlegada + segundosPorTramo;
 
-                if (esBloqueado(vecino, tiempoLlegada, entorno)) {
+                if (esBloqueado(vecino, tiempoLlegada, relevantes)) {
                     continue;
                 }
 
@@ -80,53 +106,49 @@ public class PathFinder {
         return Collections.emptyList();
     }
 
-    private static boolean esBloqueado(Position posicion, LocalDateTime momento, Environment entorno) {
-        List<Blockage> bloqueosActivos = entorno.getActiveBlockagesAt(momento);
-        for (Blockage bloqueo : bloqueosActivos) {
-            if (bloqueo.posicionEstaBloqueada(posicion, momento)) {
+    private static boolean esBloqueado(Position posicion, long segundo, Blockage[] bloqueos) {
+        for (Blockage bloqueo : bloqueos) {
+            if (bloqueo.posicionEstaBloqueada(posicion, segundo)) {
                 return true;
             }
         }
         return false;
     }
 
-    private static LocalDateTime calcularTiempoLlegada(LocalDateTime horaSalida, double distanciaKm) {
-        long segundosViaje = (long) (distanciaKm / Constants.VEHICLE_AVG_SPEED * 3600);
-        return horaSalida.plusSeconds(segundosViaje);
-    }
-
     private static double heuristica(Position a, Position b) {
         return a.distanceTo(b);
     }
 
     private static List<Position> construirResultado(Node destinoNode) {
 
-        List<Position> camino = new LinkedList<>();
+        List<Position> camino = new ArrayList<>();
 
         Node current = destinoNode;
 
         while (current != null) {
-            camino.add(0, current.posicion);
+            camino.add(current.posicion);
             current = current.parent;
         }
 
-        return camino;
+        // Inmutable porque el mismo camino se comparte desde la cache
+        Collections.reverse(camino);
+        return Collections.unmodifiableList(camino);
     }
 
-    // Clase interna para los nodos de A*, ahora con tiempo
+    // Clase interna para los nodos de A*, con la hora de llegada en segundos desde epoch
     private static class Node implements Comparable<Node> {
         final Position posicion;
         final Node parent;
         final double g;
         final double f;
-        final LocalDateTime horaDeLlegada;
+        final long segundoLlegada;
 
-        Node(Position posicion, Node parent, double g, double h, LocalDateTime horaDeLlegada) {
+        Node(Position posicion, Node parent, double g, double h, long segundoLlegada) {
             this.posicion = posicion;
             this.parent = parent;
             this.g = g;
             this.f = g + h;
-            this.horaDeLlegada = horaDeLlegada;
+            this.segundoLlegada = segundoLlegada;
         }
 
         @Override
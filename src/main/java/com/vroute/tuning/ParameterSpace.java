@@ -0,0 +1,91 @@
+package com.vroute.tuning;
+
+import com.vroute.assignation.SolverParameters;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+
+/**
+ * Rangos de los parámetros de {@link SolverParameters} que explora el
+ * ajuste. Los enteros se muestrean uniformemente; la temperatura inicial y
+ * {@code 1 - decay} en escala logarítmica, porque su efecto es multiplicativo.
+ */
+public class ParameterSpace {
+    private final int minIterations;
+    private final int maxIterations;
+    private final int minTabuSize;
+    private final int maxTabuSize;
+    private final int minNeighbors;
+    private final int maxNeighbors;
+    private final double minTemperature;
+    private final double maxTemperature;
+    private final double minDecay;
+    private final double maxDecay;
+    private final int minExactTopK;
+    private final int maxExactTopK;
+
+    public ParameterSpace(int minIterations, int maxIterations, int minTabuSize, int maxTabuSize,
+            int minNeighbors, int maxNeighbors, double minTemperature, double maxTemperature,
+            double minDecay, double maxDecay, int minExactTopK, int maxExactTopK) {
+        if (minIterations > maxIterations || minTabuSize > maxTabuSize || minNeighbors > maxNeighbors
+                || minTemperature > maxTemperature || minDecay > maxDecay || minExactTopK > maxExactTopK) {
+            throw new IllegalArgumentException("Empty parameter range");
+        }
+        if (maxDecay >= 1.0) {
+            throw new IllegalArgumentException("Temperature decay must be below 1");
+        }
+        this.minIterations = minIterations;
+        this.maxIterations = maxIterations;
+        this.minTabuSize = minTabuSize;
+        this.maxTabuSize = maxTabuSize;
+        this.minNeighbors = minNeighbors;
+        this.maxNeighbors = maxNeighbors;
+        this.minTemperature = minTemperature;
+        this.maxTemperature = maxTemperature;
+        this.minDecay = minDecay;
+        this.maxDecay = maxDecay;
+        this.minExactTopK = minExactTopK;
+        this.maxExactTopK = maxExactTopK;
+    }
+
+    /** Rangos alrededor de los valores por defecto del solver. */
+    public static ParameterSpace defaultSpace() {
+        return new ParameterSpace(250, 3000, 10, 150, 10, 120, 10.0, 500.0, 0.98, 0.9995, 0, 8);
+    }
+
+    public SolverParameters sample(SplittableRandom random) {
+        double logTemperature = uniform(random, Math.log(minTemperature), Math.log(maxTemperature));
+        double logCooling = uniform(random, Math.log(1.0 - maxDecay), Math.log(1.0 - minDecay));
+        return new SolverParameters(
+                uniform(random, minIterations, maxIterations),
+                uniform(random, minTabuSize, maxTabuSize),
+                uniform(random, minNeighbors, maxNeighbors),
+                Math.exp(logTemperature),
+                1.0 - Math.exp(logCooling),
+                uniform(random, minExactTopK, maxExactTopK));
+    }
+
+    /**
+     * {@code count} configuraciones muestreadas; la primera es la
+     * configuración por defecto, como referencia.
+     */
+    public List<SolverParameters> sample(SplittableRandom random, int count) {
+        List<SolverParameters> configurations = new ArrayList<>(count);
+        if (count > 0) {
+            configurations.add(SolverParameters.defaults());
+        }
+        while (configurations.size() < count) {
+            configurations.add(sample(random));
+        }
+        return configurations;
+    }
+
+    private static int uniform(SplittableRandom random, int min, int max) {
+        return min == max ? min : random.nextInt(min, max + 1);
+    }
+
+    private static double uniform(SplittableRandom random, double min, double max) {
+        return min == max ? min : random.nextDouble(min, max);
+    }
+}
@@ -0,0 +1,81 @@
+package com.vroute.tuning;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * Frente de Pareto de score (maximizar) frente a tiempo de ejecución
+ * (minimizar).
+ */
+public final class ParetoFront {
+
+    private ParetoFront() {
+    }
+
+    /**
+     * Resultados no dominados, ordenados por tiempo creciente (y por tanto
+     * por score creciente).
+     */
+    public static List<TrialResult> of(List<TrialResult> results) {
+        List<TrialResult> sorted = new ArrayList<>(results);
+        sorted.sort(Comparator.comparingDouble(TrialResult::getMeanCpuMillis)
+                .thenComparing(Comparator.comparingDouble(TrialResult::getMeanScore).reversed()));
+        List<TrialResult> front = new ArrayList<>();
+        double bestScore = Double.NEGATIVE_INFINITY;
+        for (TrialResult result : sorted) {
+            if (result.getMeanScore() > bestScore) {
+                front.add(result);
+                bestScore = result.getMeanScore();
+            }
+        }
+        return front;
+    }
+
+    /**
+     * Rango de no dominancia de cada resultado (0 = en el frente), en el
+     * orden de {@code results}.
+     */
+    static int[] ranks(List<TrialResult> results) {
+        int n = results.size();
+        int[] ranks = new int[n];
+        boolean[] assigned = new boolean[n];
+        int remaining = n;
+        for (int rank = 0; remaining > 0; rank++) {
+            List<Integer> layer = new ArrayList<>();
+            for (int i = 0; i < n; i++) {
+                if (assigned[i]) {
+                    continue;
+                }
+                boolean dominated = false;
+                for (int j = 0; j < n && !dominated; j++) {
+                    dominated = j != i && !assigned[j] && results.get(j).dominates(results.get(i));
+                }
+                if (!dominated) {
+                    layer.add(i);
+                }
+            }
+            for (int i : layer) {
+                ranks[i] = rank;
+                assigned[i] = true;
+            }
+            remaining -= layer.size();
+        }
+        return ranks;
+    }
+
+    /**
+     * El resultado de mayor score del frente cuyo tiempo no supera
+     * {@code maxCpuMillis}; {@code null} si ninguno cabe.
+     */
+    public static TrialResult bestWithin(List<TrialResult> front, double maxCpuMillis) {
+        TrialResult best = null;
+        for (TrialResult result : front) {
+            if (result.getMeanCpuMillis() <= maxCpuMillis
+                    && (best == null || result.getMeanScore() > best.getMeanScore())) {
+                best = result;
+            }
+        }
+        return best;
+    }
+}
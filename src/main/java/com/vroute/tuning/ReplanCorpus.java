@@ -0,0 +1,100 @@
+package com.vroute.tuning;
+
+import com.vroute.models.Constants;
+import com.vroute.models.Depot;
+import com.vroute.models.Environment;
+import com.vroute.models.Vehicle;
+import com.vroute.orchest.DataReader;
+import com.vroute.orchest.ReplanRecorder;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Conjunto ordenado de instancias de replanificación sobre las que se
+ * comparan configuraciones del solver.
+ */
+public class ReplanCorpus {
+    private final List<ReplanInstance> instances;
+
+    public ReplanCorpus(List<ReplanInstance> instances) {
+        if (instances.isEmpty()) {
+            throw new IllegalArgumentException("The corpus has no instances");
+        }
+        this.instances = Collections.unmodifiableList(new ArrayList<>(instances));
+    }
+
+    public List<ReplanInstance> getInstances() {
+        return instances;
+    }
+
+    public int size() {
+        return instances.size();
+    }
+
+    /**
+     * Reconstruye los instantes de replanificación a partir de un fichero de
+     * ventas: la instancia {@code k} ocurre en
+     * {@code start + k * spacingHours} y tiene pendientes los pedidos llegados
+     * en las {@code backlogHours} anteriores, con la flota completa en la
+     * planta principal y los almacenes llenos.
+     */
+    public static ReplanCorpus fromOrderFile(Path ordersFile, LocalDateTime start, int instanceCount,
+            int spacingHours, int backlogHours) {
+        if (!Files.isReadable(ordersFile)) {
+            throw new IllegalArgumentException("Orders file not found: " + ordersFile);
+        }
+        DataReader reader = new DataReader();
+        List<ReplanInstance> instances = new ArrayList<>();
+        for (int k = 0; k < instanceCount; k++) {
+            LocalDateTime replanTime = start.plusHours((long) k * spacingHours);
+            LocalDateTime windowStart = replanTime.minusHours(backlogHours);
+            if (reader.loadOrders(ordersFile.toString(), windowStart, backlogHours, 0).isEmpty()) {
+                continue;
+            }
+            instances.add(new ReplanInstance(ordersFile.getFileName() + "@" + replanTime, () -> {
+                Environment environment = createEnvironment(reader.loadVehicles(null), replanTime);
+                environment.addOrders(reader.loadOrders(ordersFile.toString(), windowStart, backlogHours, 0));
+                return environment;
+            }));
+        }
+        return new ReplanCorpus(instances);
+    }
+
+    /**
+     * Corpus de las replanificaciones grabadas por {@link ReplanRecorder} en
+     * {@code directory}, en orden de grabación.
+     */
+    public static ReplanCorpus fromRecordings(Path directory) throws IOException {
+        List<ReplanInstance> instances = new ArrayList<>();
+        for (Path file : ReplanRecorder.listRecordings(directory)) {
+            instances.add(new ReplanInstance(file.getFileName().toString(), () -> {
+                try {
+                    return ReplanRecorder.read(file);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            }));
+        }
+        return new ReplanCorpus(instances);
+    }
+
+    static Environment createEnvironment(List<Vehicle> vehicles, LocalDateTime time) {
+        Depot mainDepot = new Depot(Constants.MAIN_PLANT_ID, Constants.CENTRAL_STORAGE_LOCATION, 100000, true);
+        mainDepot.refillGLP();
+        List<Depot> auxDepots = new ArrayList<>();
+        Depot north = new Depot("NORTH", Constants.NORTH_INTERMEDIATE_STORAGE_LOCATION, 160, true);
+        north.refillGLP();
+        auxDepots.add(north);
+        Depot east = new Depot("EAST", Constants.EAST_INTERMEDIATE_STORAGE_LOCATION, 160, true);
+        east.refillGLP();
+        auxDepots.add(east);
+        return new Environment(vehicles, mainDepot, auxDepots, time);
+    }
+}
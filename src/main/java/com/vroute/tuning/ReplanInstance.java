@@ -0,0 +1,33 @@
+package com.vroute.tuning;
+
+import com.vroute.models.Environment;
+
+import java.util.function.Supplier;
+
+/**
+ * Un problema de replanificación del corpus. Cada llamada a
+ * {@link #createEnvironment()} devuelve un entorno nuevo, porque el solver y
+ * la evaluación modifican el estado de pedidos y camiones.
+ */
+public class ReplanInstance {
+    private final String name;
+    private final Supplier<Environment> environmentFactory;
+
+    public ReplanInstance(String name, Supplier<Environment> environmentFactory) {
+        this.name = name;
+        this.environmentFactory = environmentFactory;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public Environment createEnvironment() {
+        return environmentFactory.get();
+    }
+
+    @Override
+    public String toString() {
+        return name;
+    }
+}
@@ -0,0 +1,157 @@
+package com.vroute.tuning;
+
+import com.vroute.assignation.Assignator;
+import com.vroute.assignation.MetaheuristicAssignator;
+import com.vroute.assignation.PlanSimulationEvaluator;
+import com.vroute.assignation.Solution;
+import com.vroute.assignation.SolverProgressListener;
+import com.vroute.assignation.ZoneDecompositionAssignator;
+import com.vroute.models.Environment;
+import com.vroute.orchest.AlgorithmConfig;
+
+import java.io.IOException;
+import java.nio.file.Paths;
+import java.util.Arrays;
+import java.util.function.BiFunction;
+
+/**
+ * Ejecuta un {@link Assignator} sobre las replanificaciones grabadas y mide la
+ * latencia de {@code solve} y el score de la simulación del plan. Las
+ * instancias se resuelven una detrás de otra para que la latencia no dependa
+ * de la carga de otros hilos.
+ *
+ * Uso: {@code ReplayBenchmark <directorio> [meta|zone] [repeticiones] [semilla] [parámetros.properties]}
+ */
+public class ReplayBenchmark {
+    private final ReplanCorpus corpus;
+    private final BiFunction<Environment, Long, Assignator> assignatorFactory;
+
+    /**
+     * @param assignatorFactory Crea el assignator para un entorno y una
+     *                          semilla
+     */
+    public ReplayBenchmark(ReplanCorpus corpus, BiFunction<Environment, Long, Assignator> assignatorFactory) {
+        this.corpus = corpus;
+        this.assignatorFactory = assignatorFactory;
+    }
+
+    public Report run(int repeats, long seed, boolean verbose) {
+        int runs = corpus.size() * Math.max(1, repeats);
+        double[] latencies = new double[runs];
+        // Una resolución sin medir para que el JIT no cuente en la primera latencia
+        Environment warmup = corpus.getInstances().get(0).createEnvironment();
+        assignatorFactory.apply(warmup, seed).solve(warmup);
+
+        double scoreSum = 0.0;
+        int run = 0;
+        for (ReplanInstance instance : corpus.getInstances()) {
+            for (int r = 0; r < Math.max(1, repeats); r++) {
+                Environment environment = instance.createEnvironment();
+                Assignator assignator = assignatorFactory.apply(environment, seed + r);
+                long start = System.nanoTime();
+                Solution solution = assignator.solve(environment);
+                latencies[run] = (System.nanoTime() - start) / 1e6;
+                double score = new PlanSimulationEvaluator(environment).evaluateSolution(solution);
+                scoreSum += score;
+                if (verbose) {
+                    System.out.printf("%s #%d: %d orders, %.1f ms, score=%.2f%n", instance.getName(), r,
+                            environment.getPendingOrders().size(), latencies[run], score);
+                }
+                run++;
+            }
+        }
+        Arrays.sort(latencies);
+        return new Report(runs, scoreSum / runs, percentile(latencies, 0.50), percentile(latencies, 0.90),
+                percentile(latencies, 0.99), latencies[runs - 1]);
+    }
+
+    /** Percentil por el método del rango más cercano; {@code sorted} ordenado. */
+    static double percentile(double[] sorted, double fraction) {
+        int rank = (int) Math.ceil(fraction * sorted.length);
+        return sorted[Math.max(0, Math.min(sorted.length - 1, rank - 1))];
+    }
+
+    public static class Report {
+        private final int runs;
+        private final double meanScore;
+        private final double p50Millis;
+        private final double p90Millis;
+        private final double p99Millis;
+        private final double maxMillis;
+
+        Report(int runs, double meanScore, double p50Millis, double p90Millis, double p99Millis, double maxMillis) {
+            this.runs = runs;
+            this.meanScore = meanScore;
+            this.p50Millis = p50Millis;
+            this.p90Millis = p90Millis;
+            this.p99Millis = p99Millis;
+            this.maxMillis = maxMillis;
+        }
+
+        public int getRuns() {
+            return runs;
+        }
+
+        public double getMeanScore() {
+            return meanScore;
+        }
+
+        public double getP50Millis() {
+            return p50Millis;
+        }
+
+        public double getP90Millis() {
+            return p90Millis;
+        }
+
+        public double getP99Millis() {
+            return p99Millis;
+        }
+
+        public double getMaxMillis() {
+            return maxMillis;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("%d runs, mean score=%.2f, latency p50=%.1f ms, p90=%.1f ms, p99=%.1f ms, "
+                    + "max=%.1f ms", runs, meanScore, p50Millis, p90Millis, p99Millis, maxMillis);
+        }
+    }
+
+    public static void main(String[] args) throws IOException {
+        if (args.length < 1) {
+            System.err.println("Usage: ReplayBenchmark <recordings dir> [meta|zone] [repeats] [seed] "
+                    + "[solver properties]");
+            System.exit(1);
+        }
+        ReplanCorpus corpus = ReplanCorpus.fromRecordings(Paths.get(args[0]));
+        String kind = args.length > 1 ? args[1] : "meta";
+        int repeats = args.length > 2 ? Integer.parseInt(args[2]) : 1;
+        long seed = args.length > 3 ? Long.parseLong(args[3]) : 42L;
+        AlgorithmConfig config = AlgorithmConfig.createDefault();
+        if (args.length > 4) {
+            config.loadSolverParameters(Paths.get(args[4]));
+        }
+
+        BiFunction<Environment, Long, Assignator> factory;
+        if (kind.equals("zone")) {
+            int threads = Runtime.getRuntime().availableProcessors();
+            factory = (environment, runSeed) -> new ZoneDecompositionAssignator(threads, runSeed,
+                    config.toSolverParameters());
+        } else if (kind.equals("meta")) {
+            factory = (environment, runSeed) -> {
+                MetaheuristicAssignator assignator = new MetaheuristicAssignator(environment, runSeed,
+                        config.toSolverParameters());
+                assignator.setProgressListener(SolverProgressListener.NONE);
+                return assignator;
+            };
+        } else {
+            throw new IllegalArgumentException("Unknown assignator: " + kind);
+        }
+
+        System.out.println("Replaying " + corpus.size() + " recorded replans with " + kind + " ["
+                + config.toSolverParameters() + "]");
+        System.out.println(new ReplayBenchmark(corpus, factory).run(repeats, seed, true));
+    }
+}
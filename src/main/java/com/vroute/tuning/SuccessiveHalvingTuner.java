@@ -0,0 +1,190 @@
+package com.vroute.tuning;
+
+import com.vroute.assignation.MetaheuristicAssignator;
+import com.vroute.assignation.PlanSimulationEvaluator;
+import com.vroute.assignation.Solution;
+import com.vroute.assignation.SolverParameters;
+import com.vroute.assignation.SolverProgressListener;
+import com.vroute.models.Environment;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.logging.Logger;
+
+/**
+ * Compara configuraciones del solver por eliminación sucesiva: en cada ronda
+ * las supervivientes se evalúan sobre un prefijo del corpus {@code eta} veces
+ * mayor y pasa a la siguiente {@code 1/eta} de ellas. Como el objetivo es el
+ * frente score/tiempo, la selección ordena por rango de Pareto y, dentro del
+ * rango, por score; así una configuración rápida pero algo peor no se
+ * descarta en la primera ronda.
+ *
+ * Cada par (configuración, instancia) es una tarea del pool, que usa todos
+ * los núcleos. Por eso el eje de tiempo es el tiempo de CPU del hilo que
+ * resuelve (el solver es de un solo hilo) y no el tiempo de reloj, que
+ * dependería de cuántas tareas compiten por los núcleos. Todas las configuraciones usan la misma semilla en una misma
+ * instancia, de modo que las diferencias no vienen del generador aleatorio.
+ * Los resultados por instancia se conservan entre rondas y solo se evalúan
+ * las instancias nuevas del prefijo.
+ */
+public class SuccessiveHalvingTuner {
+    private static final Logger logger = Logger.getLogger(SuccessiveHalvingTuner.class.getName());
+    private static final ThreadMXBean threadBean = ManagementFactory.getThreadMXBean();
+
+    private final ReplanCorpus corpus;
+    private final int threads;
+    private final long[] instanceSeeds;
+
+    public SuccessiveHalvingTuner(ReplanCorpus corpus, int threads, long seed) {
+        this.corpus = corpus;
+        this.threads = Math.max(1, threads);
+        if (!threadBean.isCurrentThreadCpuTimeSupported()) {
+            throw new IllegalStateException("Tuning needs per-thread CPU time, which this JVM does not support");
+        }
+        threadBean.setThreadCpuTimeEnabled(true);
+        this.instanceSeeds = new long[corpus.size()];
+        SplittableRandom random = new SplittableRandom(seed);
+        for (int i = 0; i < instanceSeeds.length; i++) {
+            instanceSeeds[i] = random.nextLong();
+        }
+    }
+
+    /**
+     * @param minInstances Instancias de la primera ronda
+     * @param eta          Factor de reducción entre rondas (al menos 2)
+     * @return Resultado de cada configuración en la última ronda que alcanzó
+     */
+    public List<TrialResult> tune(List<SolverParameters> configurations, int minInstances, int eta) {
+        if (eta < 2) {
+            throw new IllegalArgumentException("eta must be at least 2");
+        }
+        List<Trial> survivors = new ArrayList<>();
+        for (SolverParameters parameters : configurations) {
+            survivors.add(new Trial(parameters, corpus.size()));
+        }
+        List<Trial> all = new ArrayList<>(survivors);
+
+        ExecutorService executor = Executors.newFixedThreadPool(threads, runnable -> {
+            Thread thread = new Thread(runnable, "tuning-worker");
+            thread.setDaemon(true);
+            return thread;
+        });
+        try {
+            int budget = Math.max(1, Math.min(minInstances, corpus.size()));
+            for (int rung = 0; !survivors.isEmpty(); rung++) {
+                evaluate(executor, survivors, budget);
+                List<TrialResult> results = new ArrayList<>(survivors.size());
+                for (Trial trial : survivors) {
+                    trial.result = trial.summarize(budget, rung);
+                    results.add(trial.result);
+                }
+                logger.info(String.format("Rung %d: %d configurations on %d instances, front size %d",
+                        rung, survivors.size(), budget, ParetoFront.of(results).size()));
+
+                if (budget >= corpus.size() || survivors.size() <= 1) {
+                    break;
+                }
+                survivors = select(survivors, results, Math.max(1, survivors.size() / eta));
+                budget = (int) Math.min(corpus.size(), (long) budget * eta);
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        List<TrialResult> results = new ArrayList<>(all.size());
+        for (Trial trial : all) {
+            if (trial.result != null) {
+                results.add(trial.result);
+            }
+        }
+        return results;
+    }
+
+    private void evaluate(ExecutorService executor, List<Trial> trials, int budget) {
+        List<Future<?>> futures = new ArrayList<>();
+        for (Trial trial : trials) {
+            for (int i = trial.evaluated; i < budget; i++) {
+                int index = i;
+                futures.add(executor.submit(() -> trial.record(index, run(trial.parameters, index))));
+            }
+            trial.evaluated = Math.max(trial.evaluated, budget);
+        }
+        for (Future<?> future : futures) {
+            try {
+                future.get();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException("Tuning interrupted", e);
+            } catch (ExecutionException e) {
+                throw new IllegalStateException("Tuning trial failed", e.getCause());
+            }
+        }
+    }
+
+    /** Resuelve una instancia y devuelve {score, milisegundos de CPU del solve}. */
+    private double[] run(SolverParameters parameters, int index) {
+        Environment environment = corpus.getInstances().get(index).createEnvironment();
+        MetaheuristicAssignator assignator = new MetaheuristicAssignator(environment, instanceSeeds[index],
+                parameters);
+        assignator.setProgressListener(SolverProgressListener.NONE);
+        long start = threadBean.getCurrentThreadCpuTime();
+        Solution solution = assignator.solve(environment);
+        long elapsed = threadBean.getCurrentThreadCpuTime() - start;
+        double score = new PlanSimulationEvaluator(environment).evaluateSolution(solution);
+        return new double[] { score, elapsed / 1e6 };
+    }
+
+    private static List<Trial> select(List<Trial> trials, List<TrialResult> results, int keep) {
+        int[] ranks = ParetoFront.ranks(results);
+        Integer[] order = new Integer[trials.size()];
+        for (int i = 0; i < order.length; i++) {
+            order[i] = i;
+        }
+        Arrays.sort(order, Comparator.<Integer>comparingInt(i -> ranks[i])
+                .thenComparing(i -> -results.get(i).getMeanScore()));
+        List<Trial> selected = new ArrayList<>(keep);
+        for (int i = 0; i < keep; i++) {
+            selected.add(trials.get(order[i]));
+        }
+        return selected;
+    }
+
+    private static final class Trial {
+        private final SolverParameters parameters;
+        private final double[] scores;
+        private final double[] cpuMillis;
+        private int evaluated;
+        private TrialResult result;
+
+        private Trial(SolverParameters parameters, int instances) {
+            this.parameters = parameters;
+            this.scores = new double[instances];
+            this.cpuMillis = new double[instances];
+        }
+
+        // Cada tarea escribe una posición distinta; Future.get publica los valores
+        private void record(int index, double[] measurement) {
+            scores[index] = measurement[0];
+            cpuMillis[index] = measurement[1];
+        }
+
+        private TrialResult summarize(int instances, int rung) {
+            double score = 0.0;
+            double millis = 0.0;
+            for (int i = 0; i < instances; i++) {
+                score += scores[i];
+                millis += cpuMillis[i];
+            }
+            return new TrialResult(parameters, instances, score / instances, millis / instances, rung);
+        }
+    }
+}
@@ -0,0 +1,62 @@
+package com.vroute.tuning;
+
+import com.vroute.assignation.SolverParameters;
+
+/**
+ * Resultado agregado de una configuración sobre las primeras
+ * {@link #getInstances()} instancias del corpus.
+ */
+public class TrialResult {
+    private final SolverParameters parameters;
+    private final int instances;
+    private final double meanScore;
+    private final double meanCpuMillis;
+    private final int rung;
+
+    public TrialResult(SolverParameters parameters, int instances, double meanScore, double meanCpuMillis,
+            int rung) {
+        this.parameters = parameters;
+        this.instances = instances;
+        this.meanScore = meanScore;
+        this.meanCpuMillis = meanCpuMillis;
+        this.rung = rung;
+    }
+
+    public SolverParameters getParameters() {
+        return parameters;
+    }
+
+    public int getInstances() {
+        return instances;
+    }
+
+    /** Score medio de la simulación del plan (mayor es mejor). */
+    public double getMeanScore() {
+        return meanScore;
+    }
+
+    /** Tiempo medio de CPU de {@code solve} por instancia. */
+    public double getMeanCpuMillis() {
+        return meanCpuMillis;
+    }
+
+    /** Ronda de la eliminación sucesiva en la que se midió. */
+    public int getRung() {
+        return rung;
+    }
+
+    /**
+     * Al menos igual de bueno en score y en tiempo, y mejor en uno de los
+     * dos.
+     */
+    public boolean dominates(TrialResult other) {
+        return meanScore >= other.meanScore && meanCpuMillis <= other.meanCpuMillis
+                && (meanScore > other.meanScore || meanCpuMillis < other.meanCpuMillis);
+    }
+
+    @Override
+    public String toString() {
+        return String.format("score=%.2f, time=%.1f ms, instances=%d, rung=%d [%s]",
+                meanScore, meanCpuMillis, instances, rung, parameters);
+    }
+}
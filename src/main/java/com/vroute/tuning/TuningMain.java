@@ -0,0 +1,80 @@
+package com.vroute.tuning;
+
+import com.vroute.assignation.SolverParameters;
+import com.vroute.orchest.AlgorithmConfig;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+
+/**
+ * Ajuste fuera de línea de los parámetros del solver.
+ *
+ * Uso: {@code TuningMain <ventas.txt> <inicio ISO> [instancias] [configuraciones] [ms máx.] [salida]}
+ *
+ * Imprime el frente de Pareto y guarda en {@code salida} la configuración de
+ * mayor score cuyo tiempo medio de CPU no supera {@code ms máx.}; el fichero se carga
+ * con {@link AlgorithmConfig#loadSolverParameters(Path)}.
+ */
+public class TuningMain {
+    private static final int SPACING_HOURS = 6;
+    private static final int BACKLOG_HOURS = 12;
+    private static final int MIN_INSTANCES = 2;
+    private static final int ETA = 3;
+    private static final long SEED = 20250101L;
+
+    public static void main(String[] args) throws IOException {
+        if (args.length < 2) {
+            System.err.println("Usage: TuningMain <orders file> <start yyyy-MM-ddTHH:mm> [instances] "
+                    + "[configurations] [max ms] [output]");
+            System.exit(1);
+        }
+        Path ordersFile = Paths.get(args[0]);
+        LocalDateTime start = LocalDateTime.parse(args[1]);
+        int instances = args.length > 2 ? Integer.parseInt(args[2]) : 18;
+        int configurations = args.length > 3 ? Integer.parseInt(args[3]) : 27;
+        double maxMillis = args.length > 4 ? Double.parseDouble(args[4]) : Double.MAX_VALUE;
+        Path output = Paths.get(args.length > 5 ? args[5] : "solver-tuned.properties");
+
+        ReplanCorpus corpus = ReplanCorpus.fromOrderFile(ordersFile, start, instances, SPACING_HOURS, BACKLOG_HOURS);
+        int threads = Runtime.getRuntime().availableProcessors();
+        System.out.println("Tuning " + configurations + " configurations on " + corpus.size()
+                + " replan instances with " + threads + " threads");
+
+        List<SolverParameters> candidates = ParameterSpace.defaultSpace()
+                .sample(new SplittableRandom(SEED), configurations);
+        List<TrialResult> results = new SuccessiveHalvingTuner(corpus, threads, SEED)
+                .tune(candidates, MIN_INSTANCES, ETA);
+
+        // Solo son comparables los resultados medidos sobre el mismo prefijo del corpus
+        int finalRung = 0;
+        for (TrialResult result : results) {
+            finalRung = Math.max(finalRung, result.getRung());
+        }
+        List<TrialResult> finalists = new ArrayList<>();
+        for (TrialResult result : results) {
+            if (result.getRung() == finalRung) {
+                finalists.add(result);
+            }
+        }
+        List<TrialResult> front = ParetoFront.of(finalists);
+        System.out.println("Pareto front (score vs. solve CPU time):");
+        for (TrialResult result : front) {
+            System.out.println("  " + result);
+        }
+
+        TrialResult chosen = ParetoFront.bestWithin(front, maxMillis);
+        if (chosen == null) {
+            System.out.println("No configuration on the front runs within " + maxMillis + " ms");
+            return;
+        }
+        AlgorithmConfig.saveSolverParameters(chosen.getParameters(), output,
+                String.format("score=%.2f, cpu=%.1f ms over %d instances", chosen.getMeanScore(),
+                        chosen.getMeanCpuMillis(), chosen.getInstances()));
+        System.out.println("Chosen configuration written to " + output + ": " + chosen);
+    }
+}